@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.commons.configuration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Configurator#getSettings(Class)} with the lookup it replaced, which locked the settings class and then read a JCache cache.<br>
+ * The contended benchmarks read the same settings from 4 threads, as the game threads do.
+ *
+ * @author JoeAlisson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ConfiguratorBenchmark {
+
+    private CacheManager cacheManager;
+    private Cache<Class<? extends Settings>, Settings> cache;
+
+    @Setup
+    public void setUp() {
+        cacheManager = Caching.getCachingProvider().getCacheManager();
+        cache = cacheManager.createCache("settings", new MutableConfiguration<Class<? extends Settings>, Settings>().setStoreByValue(false));
+        cache.put(BenchmarkSettings.class, new BenchmarkSettings());
+        Configurator.getSettings(BenchmarkSettings.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheManager.close();
+    }
+
+    @Benchmark
+    public Settings getSettings() {
+        return Configurator.getSettings(BenchmarkSettings.class);
+    }
+
+    @Benchmark
+    public Settings getSettingsCache() {
+        return cachedSettings(BenchmarkSettings.class);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Settings getSettingsContended() {
+        return Configurator.getSettings(BenchmarkSettings.class);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Settings getSettingsCacheContended() {
+        return cachedSettings(BenchmarkSettings.class);
+    }
+
+    /**
+     * The lookup of {@link Configurator} before the settings holders.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Settings> T cachedSettings(Class<T> settingsClass) {
+        synchronized (settingsClass) {
+            if (cache.containsKey(settingsClass)) {
+                return (T) cache.get(settingsClass);
+            }
+            return null;
+        }
+    }
+
+    public static class BenchmarkSettings implements Settings {
+
+        @Override
+        public void load(SettingsFile settingsFile) {
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.commons.database.handler;
+
+import org.l2j.commons.database.annotation.Column;
+import org.l2j.commons.util.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cached {@link EntityMapper} of {@link EntityHandler} with the reflective mapping it replaced, which resolved every column to a field on every row.<br>
+ * Each invocation maps all the rows of a new in memory result set, so the layout lookup of each query is measured too.
+ *
+ * @author JoeAlisson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class EntityMapperBenchmark {
+
+    private static final String[] COLUMNS = { "charId", "char_name", "level", "exp", "x", "y", "z", "lastAccess" };
+
+    @Param({ "1", "100" })
+    private int rows;
+
+    private EntityHandler handler;
+
+    @Setup
+    public void setUp() {
+        for (TypeHandler<?> typeHandler : List.of(new IntegerHandler(), new LongHandler(), new StringHandler(), new EntityHandler())) {
+            TypeHandler.MAP.put(typeHandler.type(), typeHandler);
+        }
+        handler = new EntityHandler();
+    }
+
+    @Benchmark
+    public void mapper(Blackhole blackhole) throws SQLException {
+        final var resultSet = resultSet(rows);
+        while (resultSet.next()) {
+            blackhole.consume(handler.handleType(resultSet, CharacterRow.class));
+        }
+    }
+
+    @Benchmark
+    public void reflective(Blackhole blackhole) throws Exception {
+        final var resultSet = resultSet(rows);
+        while (resultSet.next()) {
+            blackhole.consume(reflectiveType(resultSet, CharacterRow.class));
+        }
+    }
+
+    /**
+     * The mapping of {@link EntityHandler} before the mappers were cached.
+     */
+    private static Object reflectiveType(ResultSet resultSet, Class<?> type) throws Exception {
+        final var instance = type.getDeclaredConstructor().newInstance();
+        final var fields = Util.fieldsOf(type);
+
+        final var metaData = resultSet.getMetaData();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            final Field f = findField(fields, metaData.getColumnLabel(i));
+            if (f != null && f.trySetAccessible()) {
+                final TypeHandler<?> columnHandler = TypeHandler.MAP.getOrDefault(f.getType().isEnum() ? "enum" : f.getType().getName(), TypeHandler.MAP.get(Object.class.getName()));
+                f.set(instance, columnHandler.handleColumn(resultSet, i, f.getType()));
+            }
+        }
+        return instance;
+    }
+
+    private static Field findField(List<Field> fields, String columnName) {
+        for (Field field : fields) {
+            if (field.isAnnotationPresent(Column.class)) {
+                if (field.getAnnotation(Column.class).value().equalsIgnoreCase(columnName)) {
+                    return field;
+                }
+            } else if (field.getName().equalsIgnoreCase(columnName)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds a forward only result set over generated rows, implementing only the methods used by the handlers.
+     */
+    private static ResultSet resultSet(int rows) {
+        final var metaData = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class }, (proxy, method, args) -> switch (method.getName()) {
+            case "getColumnCount" -> COLUMNS.length;
+            case "getColumnLabel", "getColumnName" -> COLUMNS[(int) args[0] - 1];
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+
+        final int[] row = { 0 };
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class }, (proxy, method, args) -> switch (method.getName()) {
+            case "next" -> ++row[0] <= rows;
+            case "getMetaData" -> metaData;
+            case "getInt" -> row[0] * (int) args[0];
+            case "getLong" -> (long) row[0] * (int) args[0];
+            case "getString" -> COLUMNS[(int) args[0] - 1];
+            case "wasNull" -> false;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    public static class CharacterRow {
+        private int charId;
+        @Column("char_name")
+        private String name;
+        private int level;
+        private long exp;
+        private int x;
+        private int y;
+        private int z;
+        private long lastAccess;
+    }
+}
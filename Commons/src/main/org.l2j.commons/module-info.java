@@ -9,6 +9,7 @@ module org.l2j.commons {
     requires cache.api;
     requires java.desktop;
     requires io.github.joealisson.primitive;
+    requires jdk.httpserver;
 
     exports org.l2j.commons.util;
     exports org.l2j.commons.util.collection;
@@ -21,8 +22,10 @@ module org.l2j.commons {
     exports org.l2j.commons.cache;
     exports org.l2j.commons.network;
     exports org.l2j.commons.util.filter;
+    exports org.l2j.commons.metrics;
 
     uses TypeHandler;
+    uses org.l2j.commons.metrics.MetricsRegistry;
     provides TypeHandler
         with org.l2j.commons.database.handler.ByteHandler,
              org.l2j.commons.database.handler.ByteArrayHandler,
@@ -18,29 +18,38 @@
  */
 package org.l2j.commons.configuration;
 
-import org.l2j.commons.cache.CacheFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.cache.Cache;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 /**
+ * Each settings class is loaded only once into a holder bound to the class itself.<br>
+ * <br>
+ * Reading loaded settings is a class value lookup followed by a volatile read, without any lock.
+ * A reload builds the new settings aside and swaps them in a single write, so a reader sees either the old or the new settings.
+ *
  * @author JoeAlisson
  */
 public class Configurator {
 
     private static final Logger logger = LoggerFactory.getLogger(Configurator.class);
     private static final String CONFIGURATOR_PROPERTIES = "./config/configurator.properties";
-    private static Configurator configurator;
-    private LazyConfiguratorLoader loader;
+    private final LazyConfiguratorLoader loader;
 
-    private Cache<Class<? extends Settings>, Settings> settingsMap;
+    private final Map<Class<? extends Settings>, SettingsHolder> holders = new ConcurrentHashMap<>();
+    private final ClassValue<SettingsHolder> settingsMap = new ClassValue<>() {
+        @Override
+        protected SettingsHolder computeValue(Class<?> type) {
+            return holders.computeIfAbsent(type.asSubclass(Settings.class), t -> new SettingsHolder());
+        }
+    };
 
     private Configurator() {
-        settingsMap = CacheFactory.getInstance().getCache("settings");
         loader = new LazyConfiguratorLoader();
         load();
     }
@@ -55,7 +64,7 @@ public class Configurator {
         }
     }
 
-    public void addSettingsClass(String className, String fileConfigurationPath) {
+    public synchronized void addSettingsClass(String className, String fileConfigurationPath) {
         loader.addSettingsClass(className, fileConfigurationPath);
     }
 
@@ -63,63 +72,63 @@ public class Configurator {
         return getSettings(settingsClass, false);
     }
 
+    @SuppressWarnings("unchecked")
     public static <T extends Settings> T getSettings(final Class<T> settingsClass, boolean forceReload) {
         if(isNull(settingsClass)) {
             throw new IllegalArgumentException("Can't load settings from Null class");
         }
 
         var instance = getInstance();
-
-        synchronized (settingsClass) {
-            if (!forceReload && instance.hasSettings(settingsClass)) {
-                return instance.get(settingsClass);
-            }
-            return instance.getFromLoader(settingsClass);
+        var settings = instance.settingsMap.get(settingsClass).settings;
+        if (!forceReload && nonNull(settings)) {
+            return (T) settings;
         }
+        return instance.getFromLoader(settingsClass, forceReload);
     }
 
-    private <T extends Settings> T getFromLoader(Class<T> settingsClass) {
+    @SuppressWarnings("unchecked")
+    private synchronized <T extends Settings> T getFromLoader(Class<T> settingsClass, boolean forceReload) {
+        final var holder = settingsMap.get(settingsClass);
+        if(!forceReload && nonNull(holder.settings)) {
+            // loaded by another thread while waiting
+            return (T) holder.settings;
+        }
+
         T settings = loader.getSettings(settingsClass);
         if(nonNull(settings)) {
-            settingsMap.put(settingsClass, settings);
+            holder.settings = settings;
         }
         return settings;
     }
 
-    @SuppressWarnings("unchecked")
-    private <T extends Settings> T get(Class<T> settingsClass){
-        return (T) settingsMap.get(settingsClass);
-    }
-
-    private  boolean hasSettings(Class<? extends Settings> settingsClass) {
-        return settingsMap.containsKey(settingsClass);
-    }
-
     public static void reloadAll() {
         logger.debug("Reloading all settings");
         getInstance().reload();
     }
 
-    private void reload() {
-        settingsMap.clear();
+    private synchronized void reload() {
         load();
+        holders.forEach((settingsClass, holder) -> {
+            if(nonNull(holder.settings)) {
+                getFromLoader(settingsClass, true);
+            }
+        });
     }
 
     public static void reloadSettings(Class<? extends Settings>  settingsClass) {
         logger.debug("Reloading settings " + settingsClass.getName());
-        getInstance().removeSettings(settingsClass);
+        getInstance().getFromLoader(settingsClass, true);
     }
 
-
-    private void removeSettings(Class<? extends Settings> settingsClass) {
-        settingsMap.remove(settingsClass);
+    private static Configurator getInstance() {
+        return Singleton.INSTANCE;
     }
 
-    private static Configurator getInstance() {
-        if(isNull(configurator)) {
-            configurator = new Configurator();
-        }
-        return configurator;
+    private static final class SettingsHolder {
+        private volatile Settings settings;
     }
 
-}
\ No newline at end of file
+    private static final class Singleton {
+        private static final Configurator INSTANCE = new Configurator();
+    }
+}
@@ -19,6 +19,9 @@
 package org.l2j.commons.database;
 
 /**
+ * The query methods returning a {@link java.util.concurrent.CompletableFuture} are executed asynchronously on the database executor,
+ * completing the future with the result of the query.
+ *
  * @author JoeAlisson
  * @param <T> entity type
  */
@@ -61,7 +61,34 @@ public class DatabaseAccess {
         return dao;
     }
 
+    /**
+     * Runs the work in a single transaction, every DAO call and connection used by the work shares it.
+     *
+     * @param work the work to be done
+     * @return true if the transaction was committed
+     */
+    public static boolean inTransaction(Runnable work) {
+        try {
+            return DatabaseFactory.getInstance().inTransaction(work);
+        } catch (SQLException e) {
+            LOGGER.error(e.getLocalizedMessage(), e);
+        }
+        return false;
+    }
+
+    /**
+     * @return the usage statistics of the asynchronous executor and the slowest DAO methods
+     */
+    public static CharSequence getStats() {
+        try {
+            return handler.getStats();
+        } catch (SQLException e) {
+            return e.getMessage();
+        }
+    }
+
     public static void shutdown() {
+        handler.shutdown();
         try {
             DatabaseFactory.getInstance().shutdown();
         } catch (SQLException e) {
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.commons.database;
+
+import org.l2j.commons.metrics.Counter;
+import org.l2j.commons.metrics.MetricsRegistry;
+import org.l2j.commons.metrics.Timer;
+import org.l2j.commons.threading.PriorityThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the asynchronous DAO methods and measures every DAO method.<br>
+ * <br>
+ * There is one thread for each two pooled connections, so the asynchronous queries never hold the whole pool and don't starve the synchronous queries of the game threads.
+ * The queries of the executor still wait for a connection when the synchronous queries hold the rest of the pool.
+ * The queue is bounded: when it's full the query runs in the caller thread, slowing down who is flooding the database.
+ * The executor and the queries are measured in the {@link MetricsRegistry}, as the executor named database.
+ *
+ * @author JoeAlisson
+ */
+final class DatabaseExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseExecutor.class);
+    private static final int QUEUE_SIZE_PER_THREAD = 64;
+    private static final String EXECUTOR_NAME = "database";
+
+    private final ThreadPoolExecutor executor;
+    private final Map<Method, QueryMetrics> metrics = new ConcurrentHashMap<>();
+    private final Counter callerRuns;
+    private final Timer waitTimer;
+    private final Timer runTimer;
+    private final LongAdder submitted = new LongAdder();
+
+    /**
+     * @param connections the size of the connection pool shared with the synchronous queries
+     */
+    DatabaseExecutor(int connections) {
+        final int threads = Math.max(1, connections / 2);
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(threads * QUEUE_SIZE_PER_THREAD),
+                new PriorityThreadFactory("DatabaseExecutor", Thread.NORM_PRIORITY), this::rejected);
+
+        final var registry = MetricsRegistry.getInstance();
+        callerRuns = registry.counter("l2j_threadpool_caller_runs_total", "executor", EXECUTOR_NAME);
+        waitTimer = registry.timer("l2j_threadpool_queue_wait_seconds", "executor", EXECUTOR_NAME);
+        runTimer = registry.timer("l2j_threadpool_run_seconds", "executor", EXECUTOR_NAME);
+        registry.gauge("l2j_threadpool_queue_size", "executor", EXECUTOR_NAME, () -> executor.getQueue().size());
+        registry.gauge("l2j_threadpool_active_threads", "executor", EXECUTOR_NAME, executor::getActiveCount);
+    }
+
+    private void rejected(Runnable query, ThreadPoolExecutor executor) {
+        if(executor.isShutdown()) {
+            throw new RejectedExecutionException("Database executor is shut down");
+        }
+        callerRuns.increment();
+        query.run();
+    }
+
+    <T> CompletableFuture<T> submit(Callable<T> query) {
+        final var future = new CompletableFuture<T>();
+        final long submitTime = System.nanoTime();
+        submitted.increment();
+        executor.execute(() -> {
+            final long start = System.nanoTime();
+            waitTimer.record(start - submitTime);
+            try {
+                future.complete(query.call());
+            } catch (Throwable e) {
+                // most of the callers never look at the result
+                LOGGER.error("Could not execute asynchronous query", e);
+                future.completeExceptionally(e);
+            } finally {
+                runTimer.record(System.nanoTime() - start);
+            }
+        });
+        return future;
+    }
+
+    void record(Method method, long nanos) {
+        metrics.computeIfAbsent(method, QueryMetrics::new).record(nanos);
+    }
+
+    void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    CharSequence getStats() {
+        final long submittedCount = submitted.sum();
+        final StringBuilder stats = new StringBuilder();
+        stats.append("Database\n");
+        stats.append("=================================================\n");
+        stats.append("\tthreads: ............ ").append(executor.getPoolSize()).append('/').append(executor.getMaximumPoolSize()).append('\n');
+        stats.append("\tactive: ............. ").append(executor.getActiveCount()).append('\n');
+        stats.append("\tqueueSize: .......... ").append(executor.getQueue().size()).append('\n');
+        stats.append("\tsubmitted: .......... ").append(submittedCount).append('\n');
+        stats.append("\tcallerRuns: ......... ").append(callerRuns.count()).append('\n');
+        stats.append("\tavgQueueTime: ....... ").append(waitTimer.mean(TimeUnit.MICROSECONDS)).append(" us\n");
+        stats.append("\tmaxQueueTime: ....... ").append(waitTimer.max(TimeUnit.MICROSECONDS)).append(" us\n");
+        stats.append("\tslowest queries (avg us / max us / calls):\n");
+        metrics.values().stream().sorted(Comparator.comparingLong(QueryMetrics::average).reversed()).limit(10).forEach(m ->
+            stats.append("\t\t").append(m.name).append(": ").append(m.timer.mean(TimeUnit.MICROSECONDS)).append(" / ")
+                 .append(m.timer.max(TimeUnit.MICROSECONDS)).append(" / ").append(m.timer.count()).append('\n'));
+        return stats;
+    }
+
+    private static final class QueryMetrics {
+        private final String name;
+        private final Timer timer;
+
+        private QueryMetrics(Method method) {
+            name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            timer = MetricsRegistry.getInstance().timer("l2j_database_query_seconds", "query", name);
+        }
+
+        private void record(long nanos) {
+            timer.record(nanos);
+        }
+
+        private long average() {
+            return timer.mean(TimeUnit.NANOSECONDS);
+        }
+    }
+}
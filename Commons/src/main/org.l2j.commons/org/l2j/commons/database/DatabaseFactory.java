@@ -23,10 +23,15 @@ import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * @author JoeAlisson
@@ -36,9 +41,17 @@ public class DatabaseFactory {
 
     private static DatabaseFactory instance;
     private final HikariDataSource dataSource;
+    private final ThreadLocal<Transaction> runningTransaction = new ThreadLocal<>();
 
     public DatabaseFactory() throws SQLException {
-        dataSource = new HikariDataSource(new HikariConfig());
+        final var config = new HikariConfig();
+        // statements are prepared on every DAO call, they should be cached by the driver
+        final var properties = config.getDataSourceProperties();
+        properties.putIfAbsent("cachePrepStmts", "true");
+        properties.putIfAbsent("prepStmtCacheSize", "250");
+        properties.putIfAbsent("prepStmtCacheSqlLimit", "2048");
+        properties.putIfAbsent("useServerPrepStmts", "true");
+        dataSource = new HikariDataSource(config);
         dataSource.getConnection().close();
     }
 
@@ -58,7 +71,19 @@ public class DatabaseFactory {
         return instance;
     }
 
+    public int getMaximumPoolSize() {
+        return dataSource.getMaximumPoolSize();
+    }
+
+    /**
+     * @return a connection from the pool, or the transaction connection when called inside {@link #inTransaction(Runnable)}
+     */
     public Connection getConnection() {
+        final var transaction = runningTransaction.get();
+        if (nonNull(transaction)) {
+            return transaction.bound;
+        }
+
         try {
             return dataSource.getConnection();
         } catch (SQLException e) {
@@ -66,4 +91,112 @@ public class DatabaseFactory {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs the work as a single unit, all connections requested by the current thread meanwhile share one transaction.<br>
+     * Nested calls join the running transaction.<br>
+     * <br>
+     * The users of the transaction usually catch and log their own errors, so any rollback asked by them or
+     * {@link SQLException} thrown through the transaction connection or its statements marks it to be rolled back at the end.
+     *
+     * @param work the work to be done
+     * @return true if the transaction was committed
+     */
+    public boolean inTransaction(Runnable work) {
+        final var running = runningTransaction.get();
+        if (nonNull(running)) {
+            work.run();
+            return !running.rollbackOnly;
+        }
+
+        try (Connection con = dataSource.getConnection()) {
+            con.setAutoCommit(false);
+            final var transaction = new Transaction(con);
+            runningTransaction.set(transaction);
+            try {
+                work.run();
+                if (transaction.rollbackOnly) {
+                    LOGGER.warn("Transaction rolled back, a statement failed or a rollback was asked");
+                    con.rollback();
+                    return false;
+                }
+                con.commit();
+                return true;
+            } catch (RuntimeException | SQLException e) {
+                LOGGER.error("Transaction rolled back", e);
+                con.rollback();
+                return false;
+            } finally {
+                runningTransaction.remove();
+                con.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+        return false;
+    }
+
+    /**
+     * A transaction of {@link #inTransaction(Runnable)}, it is only used by the thread running it.
+     */
+    private static final class Transaction {
+        private final Connection connection;
+        private final Connection bound;
+        private boolean rollbackOnly;
+
+        private Transaction(Connection connection) {
+            this.connection = connection;
+            this.bound = bind();
+        }
+
+        /**
+         * The transaction is controlled by its owner, so the users can neither close nor commit it, and a rollback marks it as rollback only.
+         */
+        private Connection bind() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[] { Connection.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getAutoCommit":
+                        return false;
+                    case "close":
+                    case "commit":
+                    case "setAutoCommit":
+                        return null;
+                    case "rollback":
+                        if (method.getParameterCount() == 0) {
+                            rollbackOnly = true;
+                            return null;
+                        }
+                        break;
+                }
+                final Object result = invoke(connection, method, args);
+                if (result instanceof Statement) {
+                    return bind((Statement) result, method.getReturnType());
+                }
+                return result;
+            });
+        }
+
+        /**
+         * The statements are bound too, since the failed executions are seen by them.
+         */
+        private Statement bind(Statement statement, Class<?> type) {
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class[] { type }, (proxy, method, args) -> {
+                if (method.getName().equals("getConnection")) {
+                    return bound;
+                }
+                return invoke(statement, method, args);
+            });
+        }
+
+        private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException) {
+                    rollbackOnly = true;
+                }
+                throw e.getCause();
+            }
+        }
+    }
+}
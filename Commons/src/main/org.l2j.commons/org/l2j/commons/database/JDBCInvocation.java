@@ -29,6 +29,7 @@ import org.l2j.commons.database.annotation.Table;
 import org.l2j.commons.database.handler.TypeHandler;
 import org.l2j.commons.database.helpers.EntityBasedStrategy;
 import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +41,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -63,6 +65,8 @@ class JDBCInvocation implements InvocationHandler {
     private static final Cache<Method, QueryDescriptor> descriptors = CacheFactory.getInstance().getCache("sql-descriptors");
     private static final Cache<Class<?>, QueryDescriptor> saveDescriptors = CacheFactory.getInstance().getCache("sql-save-descriptors");
 
+    private volatile DatabaseExecutor executor;
+
     JDBCInvocation() {
         for (TypeHandler<?> typeHandler : ServiceLoader.load(TypeHandler.class)) {
             TypeHandler.MAP.put(typeHandler.type(), typeHandler);
@@ -71,23 +75,39 @@ class JDBCInvocation implements InvocationHandler {
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if(method.getReturnType() == CompletableFuture.class) {
+            return executor().submit(() -> invokeMeasured(method, args));
+        }
+        return invokeMeasured(method, args);
+    }
+
+    private Object invokeMeasured(Method method, Object[] args) throws Throwable {
+        final long start = System.nanoTime();
+        try {
+            return invokeQuery(method, args);
+        } finally {
+            executor().record(method, System.nanoTime() - start);
+        }
+    }
+
+    private Object invokeQuery(Method method, Object[] args) throws Throwable {
         if(method.getName().equalsIgnoreCase("save") && method.getParameterCount() == 1) {
             return save(method, args);
         }
 
-        var handler = TypeHandler.MAP.getOrDefault(method.getReturnType().isEnum() ? "enum" : method.getReturnType().getName(), TypeHandler.MAP.get(Object.class.getName()));
+        final var resultType = QueryDescriptor.resultType(method);
+        var handler = TypeHandler.MAP.getOrDefault(resultType.isEnum() ? "enum" : resultType.getName(), TypeHandler.MAP.get(Object.class.getName()));
 
         if(isNull(handler)) {
-            throw new IllegalStateException("There is no TypeHandler Service for type " + method.getReturnType().getName());
+            throw new IllegalStateException("There is no TypeHandler Service for type " + resultType.getName());
         }
 
         if(!method.isAnnotationPresent(Query.class)) {
             return handler.defaultValue();
         }
 
-        try(var query = buildQuery(method);
-            var con = DatabaseFactory.getInstance().getConnection()) {
-            query.execute(con, args);
+        try(var con = DatabaseFactory.getInstance().getConnection();
+            var query = buildQuery(method).execute(con, args)) {
             if(hasResultConsumer(method)) {
                 var consumer = resultSetConsumer(args);
                 if(nonNull(consumer)) {
@@ -102,6 +122,29 @@ class JDBCInvocation implements InvocationHandler {
         }
     }
 
+    private DatabaseExecutor executor() throws SQLException {
+        var executor = this.executor;
+        if(isNull(executor)) {
+            synchronized (this) {
+                executor = this.executor;
+                if(isNull(executor)) {
+                    this.executor = executor = new DatabaseExecutor(DatabaseFactory.getInstance().getMaximumPoolSize());
+                }
+            }
+        }
+        return executor;
+    }
+
+    void shutdown() {
+        if(nonNull(executor)) {
+            executor.shutdown();
+        }
+    }
+
+    CharSequence getStats() throws SQLException {
+        return executor().getStats();
+    }
+
     @SuppressWarnings("unchecked")
     private Consumer<ResultSet> resultSetConsumer(Object[] args) {
         var consumer = args[args.length-1];
@@ -138,21 +181,22 @@ class JDBCInvocation implements InvocationHandler {
             return false;
         }
 
-        try(var con = DatabaseFactory.getInstance().getConnection();
-            var query = buildSaveQuery(clazz, method, table) ) {
+        final var descriptor = buildSaveQuery(clazz, method, table);
+        try(var con = DatabaseFactory.getInstance().getConnection()) {
             if(isBatch) {
-                query.executeBatch(con, (Collection<?>) args[0]);
+                descriptor.executeBatch(con, (Collection<?>) args[0]).close();
             } else {
-                query.execute(con, args);
-                if (isNotEmpty(table.autoGeneratedProperty())) {
-                    trySetGeneratedKey(args, clazz, table, query);
+                try(var query = descriptor.execute(con, args)) {
+                    if (isNotEmpty(table.autoGeneratedProperty())) {
+                        trySetGeneratedKey(args, clazz, table, query);
+                    }
                 }
             }
             return true;
         }
     }
 
-    private void trySetGeneratedKey(Object[] args, Class<?> clazz, Table table, QueryDescriptor query)  {
+    private void trySetGeneratedKey(Object[] args, Class<?> clazz, Table table, QueryExecution query)  {
         var field = findField(clazz, table.autoGeneratedProperty());
         if(nonNull(field)) {
             try {
@@ -166,8 +210,9 @@ class JDBCInvocation implements InvocationHandler {
     }
 
     private QueryDescriptor buildSaveQuery(Class<?> clazz, Method method, Table table) {
-        if(saveDescriptors.containsKey(clazz)) {
-            return saveDescriptors.get(clazz);
+        var cached = saveDescriptors.get(clazz);
+        if(nonNull(cached)) {
+            return cached;
         }
 
         var fields = fieldsOf(clazz);
@@ -191,12 +236,11 @@ class JDBCInvocation implements InvocationHandler {
     }
 
     private QueryDescriptor buildQuery(final Method method)  {
-        if(descriptors.containsKey(method)) {
-            return descriptors.get(method);
+        var descriptor = descriptors.get(method);
+        if(isNull(descriptor)) {
+            descriptor = buildDescriptor(method);
+            descriptors.put(method, descriptor);
         }
-        var descriptor = buildDescriptor(method);
-        descriptors.put(method, descriptor);
-
         return descriptor;
     }
 
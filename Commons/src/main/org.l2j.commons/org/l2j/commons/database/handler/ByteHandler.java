@@ -18,7 +18,7 @@
  */
 package org.l2j.commons.database.handler;
 
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -35,11 +35,11 @@ public class ByteHandler implements TypeHandler<Byte> {
     }
 
     @Override
-    public Byte handleResult(QueryDescriptor queryDescriptor) throws SQLException {
-        if(queryDescriptor.isUpdate()) {
-            return queryDescriptor.getUpdateCount().byteValue();
+    public Byte handleResult(QueryExecution query) throws SQLException {
+        if(query.isUpdate()) {
+            return query.getUpdateCount().byteValue();
         }
-        var resultSet = queryDescriptor.getResultSet();
+        var resultSet = query.getResultSet();
         if(resultSet.next()) {
             return handleColumn(resultSet, 1);
         }
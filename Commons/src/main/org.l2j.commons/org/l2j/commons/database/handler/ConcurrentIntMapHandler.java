@@ -21,7 +21,7 @@ package org.l2j.commons.database.handler;
 import io.github.joealisson.primitive.CHashIntMap;
 import io.github.joealisson.primitive.ConcurrentIntMap;
 import io.github.joealisson.primitive.IntMap;
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.lang.reflect.ParameterizedType;
 import java.sql.PreparedStatement;
@@ -42,15 +42,15 @@ public class ConcurrentIntMapHandler implements TypeHandler<IntMap<?>> {
 
     @Override
     @SuppressWarnings("unchecked")
-    public IntMap<?> handleResult(QueryDescriptor queryDescriptor) throws SQLException {
-        Class<?> genericType = (Class<?>) ((ParameterizedType)queryDescriptor.getGenericReturnType()).getActualTypeArguments()[0];
+    public IntMap<?> handleResult(QueryExecution query) throws SQLException {
+        Class<?> genericType = (Class<?>) ((ParameterizedType)query.getGenericReturnType()).getActualTypeArguments()[0];
 
         var handler = MAP.getOrDefault(genericType.getName(), MAP.get(Object.class.getName()));
         if(isNull(handler)) {
             throw new IllegalStateException("There is no TypeHandler to Type " + genericType);
         }
         ConcurrentIntMap<Object> result = new CHashIntMap<>();
-        var resultSet = queryDescriptor.getResultSet();
+        var resultSet = query.getResultSet();
         while (resultSet.next()) {
             result.put(resultSet.getInt(1), handler.handleType(resultSet, genericType));
         }
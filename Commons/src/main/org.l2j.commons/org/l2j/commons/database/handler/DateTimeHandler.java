@@ -18,7 +18,7 @@
  */
 package org.l2j.commons.database.handler;
 
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -38,8 +38,8 @@ public class DateTimeHandler implements TypeHandler<LocalDateTime> {
     }
 
     @Override
-    public LocalDateTime handleResult(QueryDescriptor queryDescriptor) throws SQLException {
-        var resultSet = queryDescriptor.getResultSet();
+    public LocalDateTime handleResult(QueryExecution query) throws SQLException {
+        var resultSet = query.getResultSet();
         if(resultSet.next()) {
             return handleColumn(resultSet, 1);
         }
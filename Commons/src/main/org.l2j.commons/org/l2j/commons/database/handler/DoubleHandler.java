@@ -18,7 +18,7 @@
  */
 package org.l2j.commons.database.handler;
 
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -35,11 +35,11 @@ public class DoubleHandler implements TypeHandler<Double> {
     }
 
     @Override
-    public Double handleResult(QueryDescriptor queryDescriptor) throws SQLException {
-        if(queryDescriptor.isUpdate()) {
-            return Double.valueOf(queryDescriptor.getUpdateCount());
+    public Double handleResult(QueryExecution query) throws SQLException {
+        if(query.isUpdate()) {
+            return Double.valueOf(query.getUpdateCount());
         }
-        var resultSet = queryDescriptor.getResultSet();
+        var resultSet = query.getResultSet();
         if(resultSet.next()) {
             return handleColumn(resultSet, 1);
         }
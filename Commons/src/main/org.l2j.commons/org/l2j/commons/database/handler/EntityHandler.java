@@ -18,18 +18,14 @@
  */
 package org.l2j.commons.database.handler;
 
-import org.l2j.commons.database.annotation.Column;
-import org.l2j.commons.database.helpers.QueryDescriptor;
-import org.l2j.commons.util.Util;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import org.l2j.commons.database.helpers.QueryExecution;
+
+import java.lang.ref.WeakReference;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -39,7 +35,8 @@ import static java.util.Objects.nonNull;
  */
 public class EntityHandler implements TypeHandler<Object> {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(EntityHandler.class);
+    private final Map<Class<?>, Map<String, EntityMapper>> mappers = new ConcurrentHashMap<>();
+    private final ThreadLocal<Mapping> lastMapping = new ThreadLocal<>();
 
     @Override
     public Object defaultValue() {
@@ -47,41 +44,42 @@ public class EntityHandler implements TypeHandler<Object> {
     }
 
     @Override
-    public Object handleResult(QueryDescriptor queryDescriptor) throws SQLException {
-        var resultSet = queryDescriptor.getResultSet();
+    public Object handleResult(QueryExecution query) throws SQLException {
+        var resultSet = query.getResultSet();
         if(nonNull(resultSet) && resultSet.next()) {
-            return handleType(resultSet, queryDescriptor.getReturnType());
+            return handleType(resultSet, query.getReturnType());
         }
         return defaultValue();
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Object handleType(ResultSet resultSet, Class<?> type) throws SQLException {
-        try {
-            var instance = type.getDeclaredConstructor().newInstance();
-            var fields = Util.fieldsOf(type);
-
-            var metaData = resultSet.getMetaData();
-            for (int i = 1; i <= metaData.getColumnCount(); i++) {
-                var columnName = metaData.getColumnLabel(i);
-
-                Field f = findField(fields, columnName);
-                if(isNull(f)) {
-                    LOGGER.debug("There is no field with name {} on Type {}",  columnName, type.getName());
-                    continue;
-                }
-                if(f.trySetAccessible()) {
-                    var handler = TypeHandler.MAP.getOrDefault(f.getType().isEnum() ? "enum" : f.getType().getName(), TypeHandler.MAP.get(Object.class.getName()));
-                    f.set(instance, handler.handleColumn(resultSet, i, f.getType()));
-                } else {
-                    throw new SQLException("No accessible field " + f.getName() + " On type " + type );
-                }
-            }
-            return instance;
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-            throw new SQLException(e);
+        return mapperOf(resultSet, type).map(resultSet);
+    }
+
+    /**
+     * The rows of a result set are mapped in sequence by the same thread, so the last mapper is kept to skip the layout lookup on the next rows.
+     */
+    private EntityMapper mapperOf(ResultSet resultSet, Class<?> type) throws SQLException {
+        final var last = lastMapping.get();
+        if(nonNull(last) && last.type == type && last.resultSet.get() == resultSet) {
+            return last.mapper;
+        }
+
+        final var metaData = resultSet.getMetaData();
+        final var layout = new StringBuilder();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            layout.append(metaData.getColumnLabel(i)).append(',');
+        }
+
+        final var typeMappers = mappers.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
+        var mapper = typeMappers.get(layout.toString());
+        if(isNull(mapper)) {
+            mapper = EntityMapper.of(type, metaData);
+            typeMappers.putIfAbsent(layout.toString(), mapper);
         }
+        lastMapping.set(new Mapping(resultSet, type, mapper));
+        return mapper;
     }
 
     @Override
@@ -89,19 +87,6 @@ public class EntityHandler implements TypeHandler<Object> {
         return null;
     }
 
-    private Field findField(List<Field> fields, String columnName) {
-        for (Field field : fields) {
-            if(field.isAnnotationPresent(Column.class)) {
-                if(field.getAnnotation(Column.class).value().equalsIgnoreCase(columnName)) {
-                    return field;
-                }
-            } else if(field.getName().equalsIgnoreCase(columnName)) {
-                return field;
-            }
-        }
-        return  null;
-    }
-
     @Override
     public void setParameter(PreparedStatement statement, int parameterIndex, Object arg) {
         throw new UnsupportedOperationException();
@@ -111,4 +96,16 @@ public class EntityHandler implements TypeHandler<Object> {
     public String type() {
         return Object.class.getName();
     }
+
+    private static final class Mapping {
+        private final WeakReference<ResultSet> resultSet;
+        private final Class<?> type;
+        private final EntityMapper mapper;
+
+        private Mapping(ResultSet resultSet, Class<?> type, EntityMapper mapper) {
+            this.resultSet = new WeakReference<>(resultSet);
+            this.type = type;
+            this.mapper = mapper;
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.commons.database.handler;
+
+import org.l2j.commons.database.annotation.Column;
+import org.l2j.commons.util.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Maps the rows of one column layout into entities of one type.<br>
+ * <br>
+ * The columns are resolved to fields only once, when the mapper is built. Each row is then mapped by column index,
+ * through the constructor and field setter method handles, without any reflective lookup.
+ *
+ * @author JoeAlisson
+ */
+final class EntityMapper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntityMapper.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final MethodHandle constructor;
+    private final int[] columns;
+    private final MethodHandle[] setters;
+    private final Class<?>[] fieldTypes;
+    private final TypeHandler<?>[] handlers;
+
+    private EntityMapper(MethodHandle constructor, int[] columns, MethodHandle[] setters, Class<?>[] fieldTypes, TypeHandler<?>[] handlers) {
+        this.constructor = constructor;
+        this.columns = columns;
+        this.setters = setters;
+        this.fieldTypes = fieldTypes;
+        this.handlers = handlers;
+    }
+
+    Object map(ResultSet resultSet) throws SQLException {
+        final Object instance;
+        try {
+            instance = constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new SQLException(e);
+        }
+
+        for (int i = 0; i < columns.length; i++) {
+            final Object value = handlers[i].handleColumn(resultSet, columns[i], fieldTypes[i]);
+            try {
+                setters[i].invokeExact(instance, value);
+            } catch (Throwable e) {
+                throw new SQLException("Could not set column " + columns[i] + " on type " + instance.getClass().getName(), e);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Resolves the fields of each column of the layout.
+     *
+     * @param type the entity type
+     * @param metaData the layout of the result set
+     * @return the mapper of the layout
+     */
+    static EntityMapper of(Class<?> type, ResultSetMetaData metaData) throws SQLException {
+        final MethodHandle constructor;
+        try {
+            final var declaredConstructor = type.getDeclaredConstructor();
+            declaredConstructor.trySetAccessible();
+            constructor = MethodHandles.lookup().unreflectConstructor(declaredConstructor).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new SQLException(e);
+        }
+
+        final var fields = Util.fieldsOf(type);
+        final int columnCount = metaData.getColumnCount();
+        final var columns = new int[columnCount];
+        final var setters = new MethodHandle[columnCount];
+        final var fieldTypes = new Class<?>[columnCount];
+        final var handlers = new TypeHandler<?>[columnCount];
+
+        int mapped = 0;
+        for (int i = 1; i <= columnCount; i++) {
+            final var columnName = metaData.getColumnLabel(i);
+            final Field f = findField(fields, columnName);
+            if(isNull(f)) {
+                LOGGER.debug("There is no field with name {} on Type {}",  columnName, type.getName());
+                continue;
+            }
+
+            if(!f.trySetAccessible()) {
+                throw new SQLException("No accessible field " + f.getName() + " On type " + type );
+            }
+
+            try {
+                setters[mapped] = MethodHandles.lookup().unreflectSetter(f).asType(SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new SQLException(e);
+            }
+            columns[mapped] = i;
+            fieldTypes[mapped] = f.getType();
+            handlers[mapped] = TypeHandler.MAP.getOrDefault(f.getType().isEnum() ? "enum" : f.getType().getName(), TypeHandler.MAP.get(Object.class.getName()));
+            mapped++;
+        }
+        return new EntityMapper(constructor, Arrays.copyOf(columns, mapped), Arrays.copyOf(setters, mapped), Arrays.copyOf(fieldTypes, mapped), Arrays.copyOf(handlers, mapped));
+    }
+
+    private static Field findField(List<Field> fields, String columnName) {
+        for (Field field : fields) {
+            if(field.isAnnotationPresent(Column.class)) {
+                if(field.getAnnotation(Column.class).value().equalsIgnoreCase(columnName)) {
+                    return field;
+                }
+            } else if(field.getName().equalsIgnoreCase(columnName)) {
+                return field;
+            }
+        }
+        return  null;
+    }
+}
@@ -18,7 +18,7 @@
  */
 package org.l2j.commons.database.handler;
 
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -35,10 +35,10 @@ public class EnumHandler implements TypeHandler<Enum<?>> {
     }
 
     @Override
-    public Enum<?> handleResult(QueryDescriptor queryDescriptor) throws SQLException {
-        var resultSet = queryDescriptor.getResultSet();
+    public Enum<?> handleResult(QueryExecution query) throws SQLException {
+        var resultSet = query.getResultSet();
         if(resultSet.next()) {
-            return handleType(resultSet, queryDescriptor.getReturnType());
+            return handleType(resultSet, query.getReturnType());
         }
         return defaultValue();
     }
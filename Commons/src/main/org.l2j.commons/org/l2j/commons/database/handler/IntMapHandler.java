@@ -20,7 +20,7 @@ package org.l2j.commons.database.handler;
 
 import io.github.joealisson.primitive.HashIntMap;
 import io.github.joealisson.primitive.IntMap;
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.lang.reflect.ParameterizedType;
 import java.sql.PreparedStatement;
@@ -41,8 +41,8 @@ public class IntMapHandler implements TypeHandler<IntMap<?>> {
 
     @Override
     @SuppressWarnings("unchecked")
-    public IntMap<?> handleResult(QueryDescriptor queryDescriptor) throws SQLException {
-        Class<?> genericType = (Class<?>) ((ParameterizedType)queryDescriptor.getGenericReturnType()).getActualTypeArguments()[0];
+    public IntMap<?> handleResult(QueryExecution query) throws SQLException {
+        Class<?> genericType = (Class<?>) ((ParameterizedType)query.getGenericReturnType()).getActualTypeArguments()[0];
 
         var handler = MAP.getOrDefault(genericType.getName(), MAP.get(Object.class.getName()));
         if(isNull(handler)) {
@@ -50,7 +50,7 @@ public class IntMapHandler implements TypeHandler<IntMap<?>> {
         }
 
         HashIntMap<Object> result = new HashIntMap<>();
-        var resultSet = queryDescriptor.getResultSet();
+        var resultSet = query.getResultSet();
         while (resultSet.next()) {
             result.put(resultSet.getInt(1), handler.handleType(resultSet, genericType));
         }
@@ -20,7 +20,7 @@ package org.l2j.commons.database.handler;
 
 import io.github.joealisson.primitive.HashIntSet;
 import io.github.joealisson.primitive.IntSet;
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -37,9 +37,9 @@ public class IntSetHandler implements TypeHandler<IntSet> {
     }
 
     @Override
-    public IntSet handleResult(QueryDescriptor queryDescriptor) throws SQLException {
+    public IntSet handleResult(QueryExecution query) throws SQLException {
         IntSet result = new HashIntSet();
-        ResultSet resultSet = queryDescriptor.getResultSet();
+        ResultSet resultSet = query.getResultSet();
         while (resultSet.next()) {
             result.add(resultSet.getInt(1));
         }
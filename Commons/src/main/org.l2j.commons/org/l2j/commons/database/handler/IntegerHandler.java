@@ -18,7 +18,7 @@
  */
 package org.l2j.commons.database.handler;
 
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -35,11 +35,11 @@ public class IntegerHandler implements TypeHandler<Integer> {
     }
 
     @Override
-    public Integer handleResult(QueryDescriptor queryDescriptor) throws SQLException {
-        if(queryDescriptor.isUpdate()) {
-            return queryDescriptor.getUpdateCount();
+    public Integer handleResult(QueryExecution query) throws SQLException {
+        if(query.isUpdate()) {
+            return query.getUpdateCount();
         }
-        var resultSet = queryDescriptor.getResultSet();
+        var resultSet = query.getResultSet();
         if(resultSet.next()) {
             return handleColumn(resultSet, 1);
         }
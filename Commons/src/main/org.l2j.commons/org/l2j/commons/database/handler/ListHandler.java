@@ -18,7 +18,7 @@
  */
 package org.l2j.commons.database.handler;
 
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.lang.reflect.ParameterizedType;
 import java.sql.PreparedStatement;
@@ -41,15 +41,15 @@ public class ListHandler implements TypeHandler<List<?>> {
 
     @Override
     @SuppressWarnings("unchecked")
-    public List<?> handleResult(QueryDescriptor queryDescriptor) throws SQLException {
-        Class<?> genericType = (Class<?>) ((ParameterizedType)queryDescriptor.getGenericReturnType()).getActualTypeArguments()[0];
+    public List<?> handleResult(QueryExecution query) throws SQLException {
+        Class<?> genericType = (Class<?>) ((ParameterizedType)query.getGenericReturnType()).getActualTypeArguments()[0];
 
         var handler = MAP.getOrDefault(genericType.getName(), MAP.get(Object.class.getName()));
         if(isNull(handler)) {
             throw new IllegalStateException("There is no TypeHandler to Type " + genericType);
         }
         List<Object> result = new ArrayList<>();
-        var resultSet = queryDescriptor.getResultSet();
+        var resultSet = query.getResultSet();
         while (resultSet.next()) {
             result.add(handler.handleType(resultSet, genericType));
         }
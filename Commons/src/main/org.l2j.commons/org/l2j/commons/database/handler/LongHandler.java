@@ -18,7 +18,7 @@
  */
 package org.l2j.commons.database.handler;
 
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -34,11 +34,11 @@ public class LongHandler implements TypeHandler<Long> {
     }
 
     @Override
-    public Long handleResult(QueryDescriptor queryDescriptor) throws SQLException {
-        if(queryDescriptor.isUpdate()) {
-            return (long) queryDescriptor.getUpdateCount();
+    public Long handleResult(QueryExecution query) throws SQLException {
+        if(query.isUpdate()) {
+            return (long) query.getUpdateCount();
         }
-        var resultSet = queryDescriptor.getResultSet();
+        var resultSet = query.getResultSet();
         if(resultSet.next()) {
             return handleColumn(resultSet, 1);
         }
@@ -18,7 +18,7 @@
  */
 package org.l2j.commons.database.handler;
 
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -32,11 +32,11 @@ public class ShortHandler implements TypeHandler<Short> {
     }
 
     @Override
-    public Short handleResult(QueryDescriptor queryDescriptor) throws SQLException {
-        if(queryDescriptor.isUpdate()) {
-            return queryDescriptor.getUpdateCount().shortValue();
+    public Short handleResult(QueryExecution query) throws SQLException {
+        if(query.isUpdate()) {
+            return query.getUpdateCount().shortValue();
         }
-        var resultSet = queryDescriptor.getResultSet();
+        var resultSet = query.getResultSet();
         if(resultSet.next()) {
             return handleColumn(resultSet, 1);
         }
@@ -18,7 +18,7 @@
  */
 package org.l2j.commons.database.handler;
 
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 import org.l2j.commons.util.Util;
 
 import java.sql.PreparedStatement;
@@ -36,8 +36,8 @@ public class StringHandler implements TypeHandler<String> {
     }
 
     @Override
-    public String handleResult(QueryDescriptor queryDescriptor) throws SQLException {
-        var resultSet = queryDescriptor.getResultSet();
+    public String handleResult(QueryExecution query) throws SQLException {
+        var resultSet = query.getResultSet();
         if(resultSet.next()) {
             return handleColumn(resultSet, 1);
         }
@@ -18,7 +18,7 @@
  */
 package org.l2j.commons.database.handler;
 
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -36,7 +36,7 @@ public interface TypeHandler<T> {
     Map<String, TypeHandler> MAP = new HashMap<>();
 
     T defaultValue();
-    T handleResult(QueryDescriptor queryDescriptor) throws SQLException;
+    T handleResult(QueryExecution query) throws SQLException;
     T handleType(ResultSet resultSet, Class<?> type) throws SQLException;
     T handleColumn(ResultSet resultSet, int column) throws SQLException;
 
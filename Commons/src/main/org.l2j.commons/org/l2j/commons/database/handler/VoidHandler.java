@@ -18,7 +18,7 @@
  */
 package org.l2j.commons.database.handler;
 
-import org.l2j.commons.database.helpers.QueryDescriptor;
+import org.l2j.commons.database.helpers.QueryExecution;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -34,7 +34,7 @@ public class VoidHandler implements TypeHandler<Void> {
     }
 
     @Override
-    public Void handleResult(QueryDescriptor queryDescriptor) {
+    public Void handleResult(QueryExecution query) {
         return null;
     }
 
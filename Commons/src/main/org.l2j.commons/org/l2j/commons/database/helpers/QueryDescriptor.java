@@ -23,26 +23,34 @@ import io.github.joealisson.primitive.IntMap;
 import org.l2j.commons.database.annotation.Query;
 import org.l2j.commons.database.helpers.BatchSupporters.BatchSupport;
 
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.sql.*;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 import static java.util.Objects.nonNull;
 
 /**
+ * The immutable plan of a query: the SQL text, how the method arguments map to its parameters and how its result is returned.<br>
+ * <br>
+ * A descriptor is shared by all threads calling its method. Each call executes it into its own {@link QueryExecution}, which owns the statement.
+ *
  * @author JoeAlisson
  */
-public class QueryDescriptor implements AutoCloseable {
+public class QueryDescriptor {
 
     private static final Pattern SELECT_PATTERN = Pattern.compile("^SELECT.*", Pattern.CASE_INSENSITIVE);
     private static final NoParameterStrategy NO_PARAMETER_STRATEGY = new NoParameterStrategy();
-    private static final ThreadLocal<Statement> statementLocal = new ThreadLocal<>();
 
     private final String query;
     private final Method method;
     private final MapParameterStrategy strategy;
+    private final boolean update;
+    private final int batchIndex;
 
     public QueryDescriptor(Method method, String query) {
         this(method, query, NO_PARAMETER_STRATEGY);
@@ -56,26 +64,22 @@ public class QueryDescriptor implements AutoCloseable {
         this.query = query;
         this.method = method;
         this.strategy = strategy;
+        update = !SELECT_PATTERN.matcher(query).matches();
+        final var queryAnnotation = method.getAnnotation(Query.class);
+        batchIndex = nonNull(queryAnnotation) ? queryAnnotation.batchIndex() : -1;
     }
 
     public boolean isUpdate() {
-        return !SELECT_PATTERN.matcher(query).matches();
+        return update;
     }
 
     public boolean isBatch(Object[] args) {
-        var batchIndex = getBatchIndex();
-
         if(batchIndex < 0 || batchIndex >= args.length) {
             return false;
         }
         return isBatchSupported(args[batchIndex]);
     }
 
-    private int getBatchIndex() {
-        final var queryAnnotation = method.getAnnotation(Query.class);
-        return nonNull(queryAnnotation) ? queryAnnotation.batchIndex() : -1;
-    }
-
     private boolean isBatchSupported(Object batchedArg) {
         return nonNull(supporterHandler(batchedArg.getClass()));
     }
@@ -85,40 +89,58 @@ public class QueryDescriptor implements AutoCloseable {
     }
 
     public Class<?> getReturnType() {
-        return method.getReturnType();
+        return resultType(method);
     }
 
     public Type getGenericReturnType() {
-        return method.getGenericReturnType();
+        return genericResultType(method);
     }
 
-    public ResultSet getResultSet() throws SQLException {
-        var statement = statementLocal.get();
-        return nonNull(statement) ? statement.getResultSet() : null;
+    /**
+     * @return the type of the query result, the future value type for asynchronous methods
+     */
+    public static Type genericResultType(Method method) {
+        if(method.getReturnType() == CompletableFuture.class) {
+            return ((ParameterizedType) method.getGenericReturnType()).getActualTypeArguments()[0];
+        }
+        return method.getGenericReturnType();
     }
 
-    @Override
-    public void close() throws SQLException {
-        var statement = statementLocal.get();
-        if(nonNull(statement)) {
-            statement.close();
-            statementLocal.remove();
+    /**
+     * @return the raw type of the query result, wrappers are unwrapped to primitives since the handlers are registered by primitive types
+     */
+    public static Class<?> resultType(Method method) {
+        if(method.getReturnType() != CompletableFuture.class) {
+            return method.getReturnType();
         }
-    }
 
-    public void execute(Connection con, Object[] args) throws SQLException {
-        var statement = con.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
-        if(isBatch(args)) {
-            executeBatch(statement, args);
-        } else {
-            executeSingle(statement, args);
+        final var type = genericResultType(method);
+        final var rawType = type instanceof ParameterizedType ? (Class<?>) ((ParameterizedType) type).getRawType() : (Class<?>) type;
+        return MethodType.methodType(rawType).unwrap().returnType();
+    }
+
+    /**
+     * Executes the query with the method arguments.
+     *
+     * @return the execution, it must be closed by the caller
+     */
+    public QueryExecution execute(Connection con, Object[] args) throws SQLException {
+        final var statement = update ? con.prepareStatement(query, Statement.RETURN_GENERATED_KEYS) : con.prepareStatement(query);
+        try {
+            if(isBatch(args)) {
+                executeBatch(statement, args);
+            } else {
+                executeSingle(statement, args);
+            }
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
         }
-        statementLocal.set(statement);
+        return new QueryExecution(this, statement);
     }
 
     @SuppressWarnings("unchecked")
     private void executeBatch(PreparedStatement statement, Object[] args) throws SQLException {
-        final var batchIndex = getBatchIndex();
         final var batchArg = args[batchIndex];
         final var supporter = supporterHandler(batchArg.getClass());
         final var handler = supporter.getHandler();
@@ -141,30 +163,23 @@ public class QueryDescriptor implements AutoCloseable {
         statement.execute();
     }
 
-    public void executeBatch(Connection con, Collection<?> collection) throws SQLException {
-        var statement = con.prepareStatement(query);
-        for (Object obj : collection) {
-            strategy.setParameters(statement, obj);
-            statement.addBatch();
-        }
-        statement.executeBatch();
-        statementLocal.set(statement);
-
-    }
-
-    public int getGeneratedKey() throws SQLException{
-        var statment = statementLocal.get();
-        if(nonNull(statment)) {
-            var rs = statment.getGeneratedKeys();
-            if(rs.next()) {
-                return rs.getInt(1);
+    /**
+     * Executes the query once for each entity of the collection, in a single batch.
+     *
+     * @return the execution, it must be closed by the caller
+     */
+    public QueryExecution executeBatch(Connection con, Collection<?> collection) throws SQLException {
+        final var statement = con.prepareStatement(query);
+        try {
+            for (Object obj : collection) {
+                strategy.setParameters(statement, obj);
+                statement.addBatch();
             }
+            statement.executeBatch();
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
         }
-        return  0;
-    }
-
-    public Integer getUpdateCount() throws SQLException {
-        var statement = statementLocal.get();
-        return nonNull(statement) ? statement.getUpdateCount() : 0;
+        return new QueryExecution(this, statement);
     }
 }
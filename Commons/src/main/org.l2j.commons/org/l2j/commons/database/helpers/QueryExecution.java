@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.commons.database.helpers;
+
+import java.lang.reflect.Type;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The state of a single execution of a {@link QueryDescriptor}, owning the statement until it's closed.
+ *
+ * @author JoeAlisson
+ */
+public final class QueryExecution implements AutoCloseable {
+
+    private final QueryDescriptor descriptor;
+    private final Statement statement;
+
+    QueryExecution(QueryDescriptor descriptor, Statement statement) {
+        this.descriptor = descriptor;
+        this.statement = statement;
+    }
+
+    public boolean isUpdate() {
+        return descriptor.isUpdate();
+    }
+
+    public Class<?> getReturnType() {
+        return descriptor.getReturnType();
+    }
+
+    public Type getGenericReturnType() {
+        return descriptor.getGenericReturnType();
+    }
+
+    public ResultSet getResultSet() throws SQLException {
+        return statement.getResultSet();
+    }
+
+    public int getGeneratedKey() throws SQLException {
+        try (var rs = statement.getGeneratedKeys()) {
+            if(rs.next()) {
+                return rs.getInt(1);
+            }
+        }
+        return 0;
+    }
+
+    public Integer getUpdateCount() throws SQLException {
+        return statement.getUpdateCount();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        statement.close();
+    }
+}
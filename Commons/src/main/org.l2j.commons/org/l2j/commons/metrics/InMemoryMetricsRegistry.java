@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.commons.metrics;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the metrics in memory, the timers as histograms of fixed buckets.
+ *
+ * @author JoeAlisson
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry {
+
+    private static final long[] BUCKETS = { 100_000, 500_000, 1_000_000, 5_000_000, 10_000_000, 50_000_000, 100_000_000, 500_000_000, 1_000_000_000, 5_000_000_000L };
+    private static final String[] BUCKET_LABELS = Arrays.stream(BUCKETS).mapToObj(nanos -> BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString()).toArray(String[]::new);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, Family<HistogramTimer>> timers = new ConcurrentSkipListMap<>();
+    private final Map<String, Family<AdderCounter>> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, Family<LongSupplier>> gauges = new ConcurrentSkipListMap<>();
+
+    @Override
+    public Timer timer(String name, String label, String value) {
+        return timers.computeIfAbsent(name, n -> new Family<>(label)).metrics.computeIfAbsent(value, v -> new HistogramTimer());
+    }
+
+    @Override
+    public Counter counter(String name, String label, String value) {
+        return counters.computeIfAbsent(name, n -> new Family<>(label)).metrics.computeIfAbsent(value, v -> new AdderCounter());
+    }
+
+    @Override
+    public void gauge(String name, String label, String value, LongSupplier supplier) {
+        gauges.computeIfAbsent(name, n -> new Family<>(label)).metrics.put(value, supplier);
+    }
+
+    @Override
+    public void export(StringBuilder output) {
+        timers.forEach((name, family) -> {
+            output.append("# TYPE ").append(name).append(" histogram\n");
+            family.metrics.forEach((value, timer) -> {
+                long cumulative = 0;
+                for (int i = 0; i < BUCKETS.length; i++) {
+                    cumulative += timer.buckets[i].sum();
+                    output.append(name).append("_bucket{").append(family.label).append("=\"").append(value).append("\",le=\"").append(BUCKET_LABELS[i]).append("\"} ").append(cumulative).append('\n');
+                }
+                output.append(name).append("_bucket{").append(family.label).append("=\"").append(value).append("\",le=\"+Inf\"} ").append(timer.count()).append('\n');
+                output.append(name).append("_sum{").append(family.label).append("=\"").append(value).append("\"} ").append(timer.total.sum() / NANOS_PER_SECOND).append('\n');
+                output.append(name).append("_count{").append(family.label).append("=\"").append(value).append("\"} ").append(timer.count()).append('\n');
+            });
+        });
+
+        counters.forEach((name, family) -> {
+            output.append("# TYPE ").append(name).append(" counter\n");
+            family.metrics.forEach((value, counter) -> output.append(name).append('{').append(family.label).append("=\"").append(value).append("\"} ").append(counter.count()).append('\n'));
+        });
+
+        gauges.forEach((name, family) -> {
+            output.append("# TYPE ").append(name).append(" gauge\n");
+            family.metrics.forEach((value, gauge) -> output.append(name).append('{').append(family.label).append("=\"").append(value).append("\"} ").append(gauge.getAsLong()).append('\n'));
+        });
+    }
+
+    private static final class Family<T> {
+        private final String label;
+        private final Map<String, T> metrics = new ConcurrentHashMap<>();
+
+        private Family(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class HistogramTimer implements Timer {
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private HistogramTimer() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        @Override
+        public void record(long nanos) {
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (nanos <= BUCKETS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            total.add(nanos);
+            if (nanos > max.get()) {
+                max.accumulateAndGet(nanos, Math::max);
+            }
+        }
+
+        @Override
+        public long count() {
+            return count.sum();
+        }
+
+        @Override
+        public long totalTime(TimeUnit unit) {
+            return unit.convert(total.sum(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public long max(TimeUnit unit) {
+            return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static final class AdderCounter implements Counter {
+        private final LongAdder count = new LongAdder();
+
+        @Override
+        public void increment() {
+            count.increment();
+        }
+
+        @Override
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        @Override
+        public long count() {
+            return count.sum();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.commons.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of the server metrics.<br>
+ * <br>
+ * The implementation is looked up as a service, falling back to the {@link InMemoryMetricsRegistry}.
+ * Each metric has a name and a single label, the metrics with the same name and label value are the same metric.
+ *
+ * @author JoeAlisson
+ */
+public interface MetricsRegistry {
+
+    /**
+     * @param name the metric name, in the prometheus format: lowercase words separated by underscore, ending by the unit
+     * @param label the label name
+     * @param value the label value
+     * @return the timer, created on first use
+     */
+    Timer timer(String name, String label, String value);
+
+    /**
+     * @return the counter, created on first use
+     */
+    Counter counter(String name, String label, String value);
+
+    /**
+     * Registers a value read when the metrics are exported.
+     */
+    void gauge(String name, String label, String value, LongSupplier supplier);
+
+    /**
+     * Writes all metrics in the prometheus text format.
+     */
+    void export(StringBuilder output);
+
+    static MetricsRegistry getInstance() {
+        return MetricsRegistryHolder.INSTANCE;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.commons.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Serves the metrics of the {@link MetricsRegistry} in the prometheus text format on {@code /metrics}.<br>
+ * <br>
+ * The endpoint only listens on the loopback address, it must be exposed by the local prometheus agent or a proxy.
+ *
+ * @author JoeAlisson
+ */
+public final class PrometheusEndpoint {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrometheusEndpoint.class);
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private HttpServer server;
+
+    private PrometheusEndpoint() {
+    }
+
+    public synchronized void start(int port) {
+        if (nonNull(server)) {
+            return;
+        }
+
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", this::handle);
+            server.start();
+            LOGGER.info("Metrics available on http://{}:{}/metrics", InetAddress.getLoopbackAddress().getHostAddress(), port);
+        } catch (IOException e) {
+            LOGGER.error("Could not start the metrics endpoint on port {}", port, e);
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            final var output = new StringBuilder(8192);
+            MetricsRegistry.getInstance().export(output);
+            final byte[] body = output.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    public synchronized void stop() {
+        if (nonNull(server)) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    public static PrometheusEndpoint getInstance() {
+        return Singleton.INSTANCE;
+    }
+
+    private static final class Singleton {
+        private static final PrometheusEndpoint INSTANCE = new PrometheusEndpoint();
+    }
+}
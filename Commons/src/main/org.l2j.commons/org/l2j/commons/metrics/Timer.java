@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.commons.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the distribution of a duration.
+ *
+ * @author JoeAlisson
+ */
+public interface Timer {
+
+    void record(long nanos);
+
+    long count();
+
+    long totalTime(TimeUnit unit);
+
+    long max(TimeUnit unit);
+
+    default long mean(TimeUnit unit) {
+        final long count = count();
+        return count > 0 ? totalTime(unit) / count : 0;
+    }
+}
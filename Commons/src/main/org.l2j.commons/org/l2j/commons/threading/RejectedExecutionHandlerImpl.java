@@ -18,6 +18,8 @@
  */
 package org.l2j.commons.threading;
 
+import org.l2j.commons.metrics.Counter;
+import org.l2j.commons.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,9 +30,22 @@ import java.util.concurrent.ThreadPoolExecutor;
 public final class RejectedExecutionHandlerImpl implements RejectedExecutionHandler, UncaughtExceptionHandler
 {
 	private static final Logger LOGGER = LoggerFactory.getLogger(RejectedExecutionHandlerImpl.class);
-	
+
+	private final Counter rejected;
+	private final Counter uncaught;
+
+	/**
+	 * @param executorName the name of the executor in the metrics
+	 */
+	public RejectedExecutionHandlerImpl(String executorName) {
+		final var metrics = MetricsRegistry.getInstance();
+		rejected = metrics.counter("l2j_threadpool_rejected_total", "executor", executorName);
+		uncaught = metrics.counter("l2j_threadpool_uncaught_exceptions_total", "executor", executorName);
+	}
+
 	@Override
 	public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+		rejected.increment();
 		if (executor.isShutdown()) {
 			return;
 		}
@@ -40,6 +55,14 @@ public final class RejectedExecutionHandlerImpl implements RejectedExecutionHand
 
 	@Override
 	public void uncaughtException(Thread t, Throwable e) {
+		uncaught.increment();
 		LOGGER.warn("Exception on Thread {}", t, e);
 	}
+
+	/**
+	 * @return the amount of rejected tasks
+	 */
+	public long getRejectedCount() {
+		return rejected.count();
+	}
 }
@@ -18,16 +18,31 @@
  */
 package org.l2j.commons.threading;
 
+import org.l2j.commons.metrics.MetricsRegistry;
+import org.l2j.commons.metrics.Timer;
+
 import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.*;
 
 import static java.util.Objects.isNull;
 
+/**
+ * The executors of the server tasks.<br>
+ * <br>
+ * The tasks are executed by independent executors of each {@link ExecutorGroup}, and the time each task waits on the queue and runs
+ * is measured on the {@link MetricsRegistry} by group.
+ */
 public class ThreadPool {
     private static final long MAX_DELAY = TimeUnit.NANOSECONDS.toMillis(Long.MAX_VALUE - System.nanoTime()) / 2;
+    private static final String SCHEDULED = "scheduled";
 
     private ScheduledThreadPoolExecutor scheduledExecutor;
-    private ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor[] executors = new ThreadPoolExecutor[ExecutorGroup.values().length];
+    private final Timer[] waitTimers = new Timer[ExecutorGroup.values().length];
+    private final Timer[] runTimers = new Timer[ExecutorGroup.values().length];
+    private Timer scheduledRunTimer;
     private ForkJoinPool forkPool;
 
     private boolean shutdown;
@@ -36,19 +51,42 @@ public class ThreadPool {
 
     }
 
-    private void initThreadPools(int threadPoolSize, int scheduledPoolSize) {
-        final var rejectedHandler = new RejectedExecutionHandlerImpl();
+    private void initThreadPools(int threadPoolSize, int scheduledPoolSize, Map<ExecutorGroup, Integer> groupPoolSizes) {
+        final var metrics = MetricsRegistry.getInstance();
+
+        for (ExecutorGroup group : ExecutorGroup.values()) {
+            // the threads are only created when needed, an unused group costs nothing
+            final int size = groupPoolSizes.getOrDefault(group, threadPoolSize);
+            final var executor = new ThreadPoolExecutor(size, Integer.MAX_VALUE, 5, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                    new PriorityThreadFactory(group == ExecutorGroup.GENERAL ? "ThreadPoolExecutor" : "ThreadPool-" + group.label(), Thread.NORM_PRIORITY),
+                    new RejectedExecutionHandlerImpl(group.label()));
+
+            executors[group.ordinal()] = executor;
+            waitTimers[group.ordinal()] = metrics.timer("l2j_threadpool_queue_wait_seconds", "executor", group.label());
+            runTimers[group.ordinal()] = metrics.timer("l2j_threadpool_run_seconds", "executor", group.label());
+            metrics.gauge("l2j_threadpool_queue_size", "executor", group.label(), () -> executor.getQueue().size());
+            metrics.gauge("l2j_threadpool_active_threads", "executor", group.label(), executor::getActiveCount);
+        }
 
-        executor = new ThreadPoolExecutor(threadPoolSize, Integer.MAX_VALUE, 5, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), new PriorityThreadFactory("ThreadPoolExecutor", Thread.NORM_PRIORITY), rejectedHandler);
-        scheduledExecutor = new ScheduledThreadPoolExecutor(scheduledPoolSize, new PriorityThreadFactory("ScheduledThreadPool", Thread.NORM_PRIORITY), rejectedHandler);
+        final var scheduledRejectedHandler = new RejectedExecutionHandlerImpl(SCHEDULED);
+        scheduledExecutor = new ScheduledThreadPoolExecutor(scheduledPoolSize, new PriorityThreadFactory("ScheduledThreadPool", Thread.NORM_PRIORITY), scheduledRejectedHandler);
         scheduledExecutor.setRemoveOnCancelPolicy(true);
-        forkPool = new ForkJoinPool(threadPoolSize, ForkJoinPool.defaultForkJoinWorkerThreadFactory, rejectedHandler, false);
+        scheduledRunTimer = metrics.timer("l2j_threadpool_run_seconds", "executor", SCHEDULED);
+        metrics.gauge("l2j_threadpool_queue_size", "executor", SCHEDULED, () -> scheduledExecutor.getQueue().size());
+        metrics.gauge("l2j_threadpool_active_threads", "executor", SCHEDULED, scheduledExecutor::getActiveCount);
+
+        forkPool = new ForkJoinPool(threadPoolSize, ForkJoinPool.defaultForkJoinWorkerThreadFactory, new RejectedExecutionHandlerImpl("forked"), false);
 
         schedulePurge();
     }
 
     private void schedulePurge() {
-        scheduleAtFixedRate(() -> { scheduledExecutor.purge(); executor.purge();  }, 300000L, 300000L);
+        scheduleAtFixedRate(() -> {
+            scheduledExecutor.purge();
+            for (ThreadPoolExecutor executor : executors) {
+                executor.purge();
+            }
+        }, 300000L, 300000L);
     }
 
     private static long validate(long delay)
@@ -79,7 +117,8 @@ public class ThreadPool {
         if(delay == -1)
             return null;
 
-        return getInstance().scheduledExecutor.schedule(r, delay, unit);
+        final var instance = getInstance();
+        return instance.scheduledExecutor.schedule(instance.measured(r), delay, unit);
     }
 
     public static ScheduledFuture<?> scheduleAtFixedRate(Runnable r, Duration initial, Duration delay) {
@@ -92,10 +131,11 @@ public class ThreadPool {
             return null;
 
         delay = validate(delay);
+        final var instance = getInstance();
         if(delay == -1)
-            return getInstance().scheduledExecutor.schedule(r, initial, TimeUnit.MILLISECONDS);
+            return instance.scheduledExecutor.schedule(instance.measured(r), initial, TimeUnit.MILLISECONDS);
 
-        return getInstance().scheduledExecutor.scheduleAtFixedRate(r, initial, delay, TimeUnit.MILLISECONDS);
+        return instance.scheduledExecutor.scheduleAtFixedRate(instance.measured(r), initial, delay, TimeUnit.MILLISECONDS);
     }
 
     public static ScheduledFuture<?> scheduleAtFixedDelay(Runnable r, long initial, long delay) {
@@ -108,20 +148,41 @@ public class ThreadPool {
             return null;
 
         delay = validate(delay);
+        final var instance = getInstance();
         if(delay == -1)
-            return getInstance().scheduledExecutor.schedule(r, initial, unit);
+            return instance.scheduledExecutor.schedule(instance.measured(r), initial, unit);
 
-        return getInstance().scheduledExecutor.scheduleWithFixedDelay(r, initial, delay, unit);
+        return instance.scheduledExecutor.scheduleWithFixedDelay(instance.measured(r), initial, delay, unit);
     }
 
     public static void execute(Runnable r) {
-        getInstance().executor.execute(r);
+        execute(ExecutorGroup.GENERAL, r);
+    }
+
+    /**
+     * Executes the task on the executor of the group.
+     *
+     * @param group the group of the task
+     * @param r the task
+     */
+    public static void execute(ExecutorGroup group, Runnable r) {
+        final var instance = getInstance();
+        final int index = group.ordinal();
+        instance.executors[index].execute(new MeasuredTask(r, instance.waitTimers[index], instance.runTimers[index]));
+    }
+
+    private Runnable measured(Runnable r) {
+        return new MeasuredTask(r, null, scheduledRunTimer);
     }
 
     public static void executeForked(Runnable action) {
         getInstance().forkPool.execute(action);
     }
 
+    public static <T> T invokeForked(ForkJoinTask<T> task) {
+        return getInstance().forkPool.invoke(task);
+    }
+
     public void shutdown() throws InterruptedException {
         shutdown = true;
         try {
@@ -129,8 +190,12 @@ public class ThreadPool {
             scheduledExecutor.awaitTermination(15, TimeUnit.SECONDS);
         } finally {
             try {
-                executor.shutdown();
-                executor.awaitTermination(15, TimeUnit.SECONDS);
+                for (ThreadPoolExecutor executor : executors) {
+                    executor.shutdown();
+                }
+                for (ThreadPoolExecutor executor : executors) {
+                    executor.awaitTermination(15, TimeUnit.SECONDS);
+                }
             } finally {
                 forkPool.shutdown();
                 forkPool.awaitTermination(15, TimeUnit.SECONDS);
@@ -144,12 +209,28 @@ public class ThreadPool {
 
         list.append("ScheduledThreadPool\n");
         treadPoolStats(list, scheduledExecutor);
-        list.append("ThreadPoolExecutor\n");
-        treadPoolStats(list, executor);
+        timerStats(list, null, scheduledRunTimer);
+        for (ExecutorGroup group : ExecutorGroup.values()) {
+            final var executor = executors[group.ordinal()];
+            if (executor.getTaskCount() > 0) {
+                list.append(group == ExecutorGroup.GENERAL ? "ThreadPoolExecutor" : "ThreadPool " + group.label()).append('\n');
+                treadPoolStats(list, executor);
+                timerStats(list, waitTimers[group.ordinal()], runTimers[group.ordinal()]);
+            }
+        }
 
         return list;
     }
 
+    private void timerStats(StringBuilder list, Timer waitTimer, Timer runTimer) {
+        if (waitTimer != null) {
+            list.append("\tavgQueueWait: ........ ").append(waitTimer.mean(TimeUnit.MICROSECONDS)).append(" us\n");
+            list.append("\tmaxQueueWait: ........ ").append(waitTimer.max(TimeUnit.MICROSECONDS)).append(" us\n");
+        }
+        list.append("\tavgRunTime: .......... ").append(runTimer.mean(TimeUnit.MICROSECONDS)).append(" us\n");
+        list.append("\tmaxRunTime: .......... ").append(runTimer.max(TimeUnit.MICROSECONDS)).append(" us\n");
+    }
+
     private void treadPoolStats(StringBuilder list, ThreadPoolExecutor scheduledExecutor) {
         list.append("=================================================\n");
         list.append("\tgetActiveCount: ...... ").append(scheduledExecutor.getActiveCount()).append("\n");
@@ -163,11 +244,20 @@ public class ThreadPool {
     }
 
     public static void init(int threadPoolSize, int scheduledPoolSize) {
+        init(threadPoolSize, scheduledPoolSize, Collections.emptyMap());
+    }
+
+    /**
+     * @param threadPoolSize the size of the general executor and of the groups without their own size
+     * @param scheduledPoolSize the size of the scheduled executor
+     * @param groupPoolSizes the size of the executor of each group
+     */
+    public static void init(int threadPoolSize, int scheduledPoolSize, Map<ExecutorGroup, Integer> groupPoolSizes) {
         synchronized (ThreadPool.class) {
 
             var instance = getInstance();
             if(isNull(instance.scheduledExecutor)) {
-                instance.initThreadPools(threadPoolSize, scheduledPoolSize);
+                instance.initThreadPools(threadPoolSize, scheduledPoolSize, groupPoolSizes);
             }
         }
     }
@@ -179,4 +269,36 @@ public class ThreadPool {
     private static class Singleton {
         private static final ThreadPool INSTANCE = new ThreadPool();
     }
+
+    private static final class MeasuredTask implements Runnable {
+        private final Runnable task;
+        private final Timer waitTimer;
+        private final Timer runTimer;
+        private final long submitTime;
+
+        private MeasuredTask(Runnable task, Timer waitTimer, Timer runTimer) {
+            this.task = task;
+            this.waitTimer = waitTimer;
+            this.runTimer = runTimer;
+            submitTime = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            final long start = System.nanoTime();
+            if (waitTimer != null) {
+                waitTimer.record(start - submitTime);
+            }
+            try {
+                task.run();
+            } finally {
+                runTimer.record(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
 }
\ No newline at end of file
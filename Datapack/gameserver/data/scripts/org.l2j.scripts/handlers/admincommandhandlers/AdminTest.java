@@ -18,15 +18,22 @@
  */
 package handlers.admincommandhandlers;
 
+import org.l2j.commons.database.DatabaseAccess;
 import org.l2j.commons.threading.ThreadPool;
+import org.l2j.gameserver.engine.geo.GeoEngine;
+import org.l2j.gameserver.engine.item.ItemPersistenceEngine;
 import org.l2j.gameserver.engine.skill.api.Skill;
 import org.l2j.gameserver.engine.skill.api.SkillEngine;
 import org.l2j.gameserver.handler.IAdminCommandHandler;
 import org.l2j.gameserver.model.WorldObject;
 import org.l2j.gameserver.model.actor.Creature;
 import org.l2j.gameserver.model.actor.instance.Player;
+import org.l2j.gameserver.model.events.EventDispatcher;
 import org.l2j.gameserver.network.serverpackets.MagicSkillUse;
+import org.l2j.gameserver.taskmanager.AttackableThinkTaskManager;
+import org.l2j.gameserver.taskmanager.TimingWheel;
 import org.l2j.gameserver.util.BuilderUtil;
+import org.l2j.gameserver.world.WorldTimeController;
 
 import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
@@ -50,6 +57,14 @@ public class AdminTest implements IAdminCommandHandler
 		if (command.equals("admin_stats"))
 		{
 			activeChar.sendMessage(ThreadPool.getInstance().getStats().toString());
+			activeChar.sendMessage(TimingWheel.getInstance().getStats().toString());
+			activeChar.sendMessage(AttackableThinkTaskManager.getInstance().getStats().toString());
+			activeChar.sendMessage(WorldTimeController.getInstance().getStats().toString());
+			activeChar.sendMessage(GeoEngine.getInstance().getPathFindingStats().toString());
+			activeChar.sendMessage(GeoEngine.getInstance().getSightStats().toString());
+			activeChar.sendMessage(ItemPersistenceEngine.getInstance().getStats().toString());
+			activeChar.sendMessage(DatabaseAccess.getStats().toString());
+			activeChar.sendMessage(EventDispatcher.getInstance().getStats().toString());
 		}
 		else if (command.startsWith("admin_skill_test"))
 		{
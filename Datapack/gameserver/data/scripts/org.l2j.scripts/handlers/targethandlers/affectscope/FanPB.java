@@ -56,6 +56,7 @@ public class FanPB implements IAffectScopeHandler {
         final int affectLimit = skill.getAffectLimit();
         // Target checks.
         final AtomicInteger affected = new AtomicInteger(0);
+        final var sight = GeoEngine.getInstance().sightFrom(activeChar);
 
         return creature -> {
             if (creature.isDead() || ((affectLimit > 0) && (affected.get() >= affectLimit))) {
@@ -69,7 +70,7 @@ public class FanPB implements IAffectScopeHandler {
             if ((affectObject != null) && !affectObject.checkAffectedObject(activeChar, creature)) {
                 return false;
             }
-            if (!GeoEngine.getInstance().canSeeTarget(activeChar, creature)) {
+            if (!sight.canSee(creature)) {
                 return false;
             }
 
@@ -54,6 +54,7 @@ public class PointBlank implements IAffectScopeHandler
 		
 		// Target checks.
 		final AtomicInteger affected = new AtomicInteger(0);
+		final var sight = GeoEngine.getInstance().sightFrom(target);
 		final Predicate<Creature> filter = c ->
 		{
 			if ((affectLimit > 0) && (affected.get() >= affectLimit))
@@ -71,7 +72,7 @@ public class PointBlank implements IAffectScopeHandler
 					return false;
 				}
 			}
-			if (!GeoEngine.getInstance().canSeeTarget(target, c))
+			if (!sight.canSee(c))
 			{
 				return false;
 			}
@@ -56,6 +56,7 @@ public class Range implements IAffectScopeHandler
 		// Target checks.
 		final TargetType targetType = skill.getTargetType();
 		final AtomicInteger affected = new AtomicInteger(0);
+		final var sight = GeoEngine.getInstance().sightFrom(target);
 		final Predicate<Creature> filter = c ->
 		{
 			if ((affectLimit > 0) && (affected.get() >= affectLimit))
@@ -74,7 +75,7 @@ public class Range implements IAffectScopeHandler
 			{
 				return false;
 			}
-			if (!GeoEngine.getInstance().canSeeTarget(target, c))
+			if (!sight.canSee(c))
 			{
 				return false;
 			}
@@ -62,6 +62,7 @@ public class SquarePB implements IAffectScopeHandler {
 		final double sin = Math.sin(-heading);
 
 		final AtomicInteger affected = new AtomicInteger(0);
+		final var sight = GeoEngine.getInstance().sightFrom(activeChar);
 		return creature -> {
 			if (creature.isDead() || ((affectLimit > 0) && (affected.get() >= affectLimit))) {
 				return false;
@@ -77,7 +78,7 @@ public class SquarePB implements IAffectScopeHandler {
 				if ((affectObject != null) && !affectObject.checkAffectedObject(activeChar, creature)) {
 					return false;
 				}
-				if (!GeoEngine.getInstance().canSeeTarget(activeChar, creature)) {
+				if (!sight.canSee(creature)) {
 					return false;
 				}
 				affected.incrementAndGet();
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.network;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the word at a time cipher of {@link Crypt} with the byte loop of {@link ReferenceCrypt}.
+ *
+ * @author JoeAlisson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class CryptBenchmark {
+
+    @Param({ "16", "64", "512", "4096" })
+    private int size;
+
+    private final byte[] key = new byte[16];
+    private byte[] data;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(size);
+        random.nextBytes(key);
+        data = new byte[size];
+        random.nextBytes(data);
+    }
+
+    @Benchmark
+    public byte[] encrypt() {
+        Crypt.encrypt(key, data, 0, size);
+        return data;
+    }
+
+    @Benchmark
+    public byte[] encryptReference() {
+        ReferenceCrypt.encrypt(key, data, 0, size);
+        return data;
+    }
+
+    @Benchmark
+    public byte[] decrypt() {
+        Crypt.decrypt(key, data, 0, size);
+        return data;
+    }
+
+    @Benchmark
+    public byte[] decryptReference() {
+        ReferenceCrypt.decrypt(key, data, 0, size);
+        return data;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.network;
+
+import org.l2j.gameserver.model.events.EventDispatcher;
+import org.l2j.gameserver.model.events.EventType;
+import org.l2j.gameserver.model.events.Listeners;
+import org.l2j.gameserver.model.events.impl.server.OnPacketReceived;
+import org.l2j.gameserver.model.events.impl.server.OnPacketSent;
+import org.l2j.gameserver.model.events.listeners.AbstractEventListener;
+import org.l2j.gameserver.model.events.listeners.ConsumerEventListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the packet events of {@link Crypt} with and without global packet listeners.<br>
+ * The always dispatching benchmarks create and notify the event for each packet, as Crypt did before checking the listeners.
+ *
+ * @author JoeAlisson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class CryptListenerBenchmark {
+
+    @Param({ "false", "true" })
+    private boolean listening;
+
+    @Param({ "64", "512" })
+    private int size;
+
+    private final byte[] key = new byte[16];
+    private Crypt crypt;
+    private byte[] data;
+    private AbstractEventListener sentListener;
+    private AbstractEventListener receivedListener;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(size);
+        random.nextBytes(key);
+        data = new byte[size];
+        random.nextBytes(data);
+
+        crypt = new Crypt(null);
+        crypt.setKey(key);
+        // the first packet is sent in plain text and enables the cipher
+        crypt.encrypt(data, 0, size);
+
+        if (listening) {
+            sentListener = Listeners.Global().addListener(new ConsumerEventListener(Listeners.Global(), EventType.ON_PACKET_SENT, (OnPacketSent event) -> { }, this));
+            receivedListener = Listeners.Global().addListener(new ConsumerEventListener(Listeners.Global(), EventType.ON_PACKET_RECEIVED, (OnPacketReceived event) -> { }, this));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (listening) {
+            sentListener.unregisterMe();
+            receivedListener.unregisterMe();
+        }
+    }
+
+    @Benchmark
+    public byte[] encrypt() {
+        return crypt.encrypt(data, 0, size);
+    }
+
+    @Benchmark
+    public byte[] encryptAlwaysDispatching() {
+        EventDispatcher.getInstance().notifyEvent(new OnPacketSent(null, data));
+        Crypt.encrypt(key, data, 0, size);
+        return data;
+    }
+
+    @Benchmark
+    public boolean decrypt() {
+        return crypt.decrypt(data, 0, size);
+    }
+
+    @Benchmark
+    public boolean decryptAlwaysDispatching() {
+        Crypt.decrypt(key, data, 0, size);
+        EventDispatcher.getInstance().notifyEvent(new OnPacketReceived(null, data));
+        return true;
+    }
+}
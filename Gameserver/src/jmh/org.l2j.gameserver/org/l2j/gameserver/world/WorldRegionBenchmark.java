@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.world;
+
+import io.github.joealisson.primitive.CHashIntMap;
+import io.github.joealisson.primitive.IntMap;
+import org.l2j.gameserver.model.WorldObject;
+import org.l2j.gameserver.model.actor.Creature;
+import org.l2j.gameserver.model.actor.instance.Player;
+import org.l2j.gameserver.util.MathUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Compares the loops of the {@link WorldRegion} visibility queries with the stream pipelines they replaced.<br>
+ * The stream side keeps the objects of each region in the map the regions used before the cells, and builds the predicates per query as {@link World} did.
+ *
+ * @author JoeAlisson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class WorldRegionBenchmark {
+
+    private static final int RANGE = 1500;
+
+    @Param({ "16", "128", "512" })
+    private int objectsPerRegion;
+
+    private WorldRegion center;
+    private WorldObject reference;
+    private WorldRegion[] regions;
+    private IntMap<WorldObject>[] regionObjects;
+
+    @SuppressWarnings("unchecked")
+    @Setup
+    public void setUp() {
+        final Random random = new Random(objectsPerRegion);
+        regions = new WorldRegion[9];
+        regionObjects = new IntMap[9];
+        int objectId = 1;
+        for (int i = 0; i < regions.length; i++) {
+            final int regionX = World.OFFSET_X + (i / 3) - 1;
+            final int regionY = World.OFFSET_Y + (i % 3) - 1;
+            regions[i] = new WorldRegion(regionX, regionY);
+            regionObjects[i] = new CHashIntMap<>();
+
+            final int minX = (regionX - World.OFFSET_X) << World.SHIFT_BY;
+            final int minY = (regionY - World.OFFSET_Y) << World.SHIFT_BY;
+            for (int j = 0; j < objectsPerRegion; j++) {
+                final var object = new RegionObject(objectId++);
+                object.setXYZ(minX + random.nextInt(1 << World.SHIFT_BY), minY + random.nextInt(1 << World.SHIFT_BY), random.nextInt(200));
+                regions[i].addVisibleObject(object);
+                regionObjects[i].put(object.getObjectId(), object);
+            }
+        }
+
+        for (WorldRegion region : regions) {
+            region.setSurroundingRegions(regions.clone());
+        }
+        center = regions[4];
+
+        reference = new RegionObject(objectId);
+        reference.setXYZ(1 << (World.SHIFT_BY - 1), 1 << (World.SHIFT_BY - 1), 100);
+    }
+
+    @Benchmark
+    public void forEachVisibleInRange(Blackhole blackhole) {
+        center.forEachVisibleObjectInSurrounding(reference, WorldObject.class, RANGE, false, Integer.MAX_VALUE, o -> true, blackhole::consume);
+    }
+
+    @Benchmark
+    public void forEachVisibleInRangeStream(Blackhole blackhole) {
+        surroundingStream(WorldObject.class, isVisibleInRange(reference, RANGE).and(o -> true)).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void forEachVisible(Blackhole blackhole) {
+        center.forEachVisibleObjectInSurrounding(reference, WorldObject.class, WorldRegion.UNLIMITED_RANGE, false, Integer.MAX_VALUE, o -> true, blackhole::consume);
+    }
+
+    @Benchmark
+    public void forEachVisibleStream(Blackhole blackhole) {
+        surroundingStream(WorldObject.class, isVisible(reference).and(o -> true)).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public boolean hasVisiblePlayer() {
+        return center.hasVisibleObjectInSurrounding(reference, Player.class, RANGE, p -> true);
+    }
+
+    @Benchmark
+    public boolean hasVisiblePlayerStream() {
+        return Arrays.stream(regions).flatMap(this::regionStream).anyMatch(instanceFilter(Player.class, isVisibleInRange(reference, RANGE)));
+    }
+
+    private <T extends WorldObject> Stream<T> surroundingStream(Class<T> clazz, Predicate<T> filter) {
+        return Arrays.stream(regions).flatMap(this::regionStream).filter(instanceFilter(clazz, filter)).map(clazz::cast);
+    }
+
+    private Stream<? extends WorldObject> regionStream(WorldRegion region) {
+        for (int i = 0; i < regions.length; i++) {
+            if (regions[i] == region) {
+                return regionObjects[i].values().parallelStream();
+            }
+        }
+        return Stream.empty();
+    }
+
+    private static <T extends WorldObject> Predicate<? super WorldObject> instanceFilter(Class<T> clazz, Predicate<T> filter) {
+        return object -> clazz.isInstance(object) && filter.test(clazz.cast(object));
+    }
+
+    private static <T extends WorldObject> Predicate<T> isVisible(WorldObject reference) {
+        return object -> nonNull(object) && !object.equals(reference) && Objects.equals(object.getInstanceWorld(), reference.getInstanceWorld());
+    }
+
+    private static <T extends WorldObject> Predicate<T> isVisibleInRange(WorldObject reference, int range) {
+        return object -> WorldRegionBenchmark.<T>isVisible(reference).test(object) && MathUtil.isInsideRadius3D(reference, object, range);
+    }
+
+    private static final class RegionObject extends WorldObject {
+
+        private RegionObject(int objectId) {
+            super(objectId);
+        }
+
+        @Override
+        public boolean isAutoAttackable(Creature attacker) {
+            return false;
+        }
+
+        @Override
+        public void sendInfo(Player activeChar) {
+        }
+
+        @Override
+        public int getId() {
+            return 0;
+        }
+    }
+}
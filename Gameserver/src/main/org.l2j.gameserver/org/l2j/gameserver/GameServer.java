@@ -22,6 +22,8 @@ import io.github.joealisson.mmocore.ConnectionBuilder;
 import io.github.joealisson.mmocore.ConnectionHandler;
 import org.l2j.commons.cache.CacheFactory;
 import org.l2j.commons.database.DatabaseAccess;
+import org.l2j.commons.metrics.PrometheusEndpoint;
+import org.l2j.commons.threading.ExecutorGroup;
 import org.l2j.commons.threading.ThreadPool;
 import org.l2j.commons.util.DeadLockDetector;
 import org.l2j.gameserver.cache.HtmCache;
@@ -246,7 +248,7 @@ public class GameServer {
         printSection("Setting All characters to offline status!");
         getDAO(PlayerDAO.class).setAllCharactersOffline();
 
-        connectionHandler = ConnectionBuilder.create(new InetSocketAddress(serverSettings.port()), GameClient::new, new ClientPacketHandler(), ThreadPool::execute).build();
+        connectionHandler = ConnectionBuilder.create(new InetSocketAddress(serverSettings.port()), GameClient::new, new ClientPacketHandler(), task -> ThreadPool.execute(ExecutorGroup.NETWORK, task)).build();
         connectionHandler.start();
     }
 
@@ -264,7 +266,10 @@ public class GameServer {
         ScriptEngineManager.init();
 
         var settings = getSettings(ServerSettings.class);
-        ThreadPool.init(settings.threadPoolSize() ,settings.scheduledPoolSize());
+        ThreadPool.init(settings.threadPoolSize() ,settings.scheduledPoolSize(), settings.executorPoolSizes());
+        if (settings.metricsPort() > 0) {
+            PrometheusEndpoint.getInstance().start(settings.metricsPort());
+        }
 
         INSTANCE = new GameServer();
 
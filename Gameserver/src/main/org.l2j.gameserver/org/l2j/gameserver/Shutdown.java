@@ -19,6 +19,7 @@
 package org.l2j.gameserver;
 
 import org.l2j.commons.database.DatabaseAccess;
+import org.l2j.commons.metrics.PrometheusEndpoint;
 import org.l2j.commons.threading.ThreadPool;
 import org.l2j.commons.util.Util;
 import org.l2j.gameserver.data.sql.impl.ClanTable;
@@ -26,9 +27,11 @@ import org.l2j.gameserver.data.sql.impl.OfflineTradersTable;
 import org.l2j.gameserver.datatables.ReportTable;
 import org.l2j.gameserver.datatables.SchemeBufferTable;
 import org.l2j.gameserver.engine.autoplay.AutoPlayEngine;
+import org.l2j.gameserver.engine.item.ItemPersistenceEngine;
 import org.l2j.gameserver.instancemanager.*;
 import org.l2j.gameserver.model.actor.instance.Player;
 import org.l2j.gameserver.model.entity.Hero;
+import org.l2j.gameserver.model.events.EventDispatcher;
 import org.l2j.gameserver.model.olympiad.Olympiad;
 import org.l2j.gameserver.network.Disconnection;
 import org.l2j.gameserver.network.SystemMessageId;
@@ -134,6 +137,8 @@ public class Shutdown extends Thread {
             DatabaseAccess.shutdown();
             LOGGER.info("Database connection has been shut down.");
 
+            PrometheusEndpoint.getInstance().stop();
+
             ThreadPool.getInstance().shutdown();
             LOGGER.info("Thread Pool Manager: Manager has been shut down.");
         } catch (Throwable t) {
@@ -304,6 +309,12 @@ public class Shutdown extends Thread {
             ReportTable.getInstance().saveReportedCharData();
             LOGGER.info("Bot Report Table: Successfully saved reports to database!");
         }
+
+        // Deliver the pending events, their scripts may still change items
+        EventDispatcher.getInstance().shutdown();
+
+        // Write the pending item changes, after everything else that could change items
+        ItemPersistenceEngine.getInstance().shutdown();
     }
 
     /**
@@ -94,9 +94,10 @@ public class AttackableAI extends CreatureAI {
 
     /**
      * @param target The targeted WorldObject
+     * @param sight The line of sight from the actor, shared by all targets checked on the same think
      * @return {@code true} if target can be auto attacked due aggression.
      */
-    private boolean isAggressiveTowards(Creature target) {
+    private boolean isAggressiveTowards(Creature target, GeoEngine.SightOrigin sight) {
         if ((target == null) || (getActiveChar() == null)) {
             return false;
         }
@@ -167,7 +168,7 @@ public class AttackableAI extends CreatureAI {
             return false;
         }
 
-        return target.isAutoAttackable(me) && GeoEngine.getInstance().canSeeTarget(me, target);
+        return target.isAutoAttackable(me) && sight.canSee(target);
     }
 
     public void startAITask() {
@@ -300,10 +301,11 @@ public class AttackableAI extends CreatureAI {
         if (_globalAggro >= 0) {
             if (npc.isAggressive() || (npc instanceof Guard)) {
                 final int range = npc instanceof Guard ? 500 : npc.getAggroRange(); // TODO Make sure how guards behave towards players.
+                final var sight = GeoEngine.getInstance().sightFrom(npc);
                 World.getInstance().forEachVisibleObjectInRange(npc, Creature.class, range, t ->
                 {
                     // For each Creature check if the target is autoattackable
-                    if (isAggressiveTowards(t)) // check aggression
+                    if (isAggressiveTowards(t, sight)) // check aggression
                     {
                         if (isPlayable(t)) {
                             final TerminateReturn term = EventDispatcher.getInstance().notifyEvent(new OnAttackableHate(getActiveChar(), t.getActingPlayer(), isSummon(t)), getActiveChar(), TerminateReturn.class);
@@ -19,6 +19,7 @@
  */
 package org.l2j.gameserver.ai;
 
+import org.l2j.commons.threading.ExecutorGroup;
 import org.l2j.commons.threading.ThreadPool;
 import org.l2j.gameserver.engine.skill.api.Skill;
 import org.l2j.gameserver.model.Location;
@@ -82,7 +83,7 @@ public class DoorAI extends CreatureAI {
 
     @Override
     protected void onEvtAttacked(Creature attacker) {
-        ThreadPool.execute(new onEventAttackedDoorTask((Door) actor, attacker));
+        ThreadPool.execute(ExecutorGroup.AI, new onEventAttackedDoorTask((Door) actor, attacker));
     }
 
     @Override
@@ -22,6 +22,8 @@ import org.l2j.commons.database.DAO;
 import org.l2j.commons.database.annotation.Query;
 import org.l2j.gameserver.data.database.data.AccountData;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author JoeAlisson
  */
@@ -32,4 +34,7 @@ public interface AccountDAO extends DAO<AccountData> {
 
     @Query("SELECT * FROM account_data WHERE account = :account:")
     AccountData findById(String account);
+
+    @Query("SELECT * FROM account_data WHERE account = :account:")
+    CompletableFuture<AccountData> findByIdAsync(String account);
 }
@@ -23,6 +23,8 @@ import org.l2j.commons.database.DAO;
 import org.l2j.commons.database.annotation.Query;
 import org.l2j.gameserver.data.database.data.MailData;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author JoeAlisson
  */
@@ -32,17 +34,17 @@ public interface MailDAO extends DAO<MailData> {
     ConcurrentIntMap<MailData> findAll();
 
     @Query("UPDATE mail SET unread=FALSE WHERE id=:mailId:")
-    void markAsRead(int mailId);
+    CompletableFuture<Void> markAsRead(int mailId);
 
     @Query("UPDATE mail SET sender_deleted=TRUE WHERE id=:mailId:")
-    void markAsDeletedBySender(int mailId);
+    CompletableFuture<Void> markAsDeletedBySender(int mailId);
 
     @Query("UPDATE mail SET receiver_deleted=TRUE WHERE id=:mailId:")
-    void markAsDeletedByReceiver(int mailId);
+    CompletableFuture<Void> markAsDeletedByReceiver(int mailId);
 
     @Query("UPDATE mail SET has_attachment=FALSE WHERE id=:mailId:")
-    void deleteAttachment(int mailId);
+    CompletableFuture<Void> deleteAttachment(int mailId);
 
     @Query("DELETE FROM mail WHERE id=:mailId:")
-    void deleteById(int mailId);
+    CompletableFuture<Void> deleteById(int mailId);
 }
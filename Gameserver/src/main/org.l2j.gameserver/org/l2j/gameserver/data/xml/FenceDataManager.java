@@ -20,6 +20,7 @@ package org.l2j.gameserver.data.xml;
 
 import io.github.joealisson.primitive.CHashIntMap;
 import io.github.joealisson.primitive.IntMap;
+import org.l2j.gameserver.engine.geo.GeoEngine;
 import org.l2j.gameserver.enums.FenceState;
 import org.l2j.gameserver.model.StatsSet;
 import org.l2j.gameserver.model.actor.instance.Fence;
@@ -103,6 +104,7 @@ public final class FenceDataManager extends GameXmlReader {
     private void addFence(Fence fence) {
         fences.put(fence.getObjectId(), fence);
         regions.computeIfAbsent(World.getInstance().getRegion(fence), key -> new ArrayList<>()).add(fence);
+        GeoEngine.getInstance().onGeoObjectChanged(fence.getInstanceId(), fence.getXMin(), fence.getYMin(), fence.getXMax(), fence.getYMax());
     }
 
     public void removeFence(Fence fence) {
@@ -112,6 +114,7 @@ public final class FenceDataManager extends GameXmlReader {
         if (fencesInRegion != null) {
             fencesInRegion.remove(fence);
         }
+        GeoEngine.getInstance().onGeoObjectChanged(fence.getInstanceId(), fence.getXMin(), fence.getYMin(), fence.getXMax(), fence.getYMax());
     }
 
     public IntMap<Fence> getFences() {
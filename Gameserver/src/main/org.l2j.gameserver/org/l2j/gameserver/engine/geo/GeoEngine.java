@@ -39,7 +39,9 @@ import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static org.l2j.commons.configuration.Configurator.getSettings;
 import static org.l2j.gameserver.util.GameUtils.*;
@@ -55,26 +57,39 @@ public class GeoEngine {
     private static final double SIGHT_LINE_PERCENT = 0.75;
     private static final int MAX_OBSTACLE_HEIGHT = 32;
 
-    private final ABlock[][] blocks = new ABlock[GeoStructure.GEO_BLOCKS_X][GeoStructure.GEO_BLOCKS_Y];
     private final BlockNull nullBlock = new BlockNull();
+    private final SightCache sightCache = new SightCache();
+    private ABlock[][] blocks;
+    /**
+     * Regions indexed by x * {@link GeoStructure#GEO_REGIONS_Y} + y. The slots are filled on first access, so they are published through an atomic array.
+     */
+    private AtomicReferenceArray<ABlock> regions;
+    private Path geodataPath;
 
     protected GeoEngine() {
 
     }
 
     protected void load() {
-        BlockMultilayer.initialize();
-        loadGeodataFiles();
-        BlockMultilayer.release();
+        geodataPath = getSettings(ServerSettings.class).dataPackDirectory().resolve("geodata");
+        final int loaded;
+        if (getSettings(GeoEngineSettings.class).storage() == GeoStorage.MAPPED) {
+            loaded = indexGeodataFiles();
+        } else {
+            BlockMultilayer.initialize();
+            loaded = loadGeodataFiles();
+            BlockMultilayer.release();
+        }
+        onGeodataLoaded(loaded);
     }
 
-    private void loadGeodataFiles() {
+    private int loadGeodataFiles() {
         int loaded = 0;
-        var geodataPath = getSettings(ServerSettings.class).dataPackDirectory().resolve("geodata");
+        blocks = new ABlock[GeoStructure.GEO_BLOCKS_X][GeoStructure.GEO_BLOCKS_Y];
 
         for (int rx = World.TILE_X_MIN; rx <= World.TILE_X_MAX; rx++) {
             for (int ry = World.TILE_Y_MIN; ry <= World.TILE_Y_MAX; ry++) {
-                var filePath = geodataPath.resolve(String.format(GeoFormat.L2D.getFilename(), rx, ry));
+                var filePath = regionFile(rx, ry);
                 if(Files.exists(filePath) && !Files.isDirectory(filePath)) {
                     if (loadGeoBlocks(filePath, rx, ry)) {
                         loaded++;
@@ -85,7 +100,42 @@ public class GeoEngine {
             }
         }
         LOGGER.info("Loaded {} geodata files.", loaded);
+        return loaded;
+    }
+
+    /**
+     * Only checks which region files exist, they are mapped on first access by {@link #pageRegion(int, int)}.
+     *
+     * @return int : amount of region files found.
+     */
+    private int indexGeodataFiles() {
+        int found = 0;
+        final var mappedRegions = new AtomicReferenceArray<ABlock>(GeoStructure.GEO_REGIONS_X * GeoStructure.GEO_REGIONS_Y);
 
+        for (int rx = World.TILE_X_MIN; rx <= World.TILE_X_MAX; rx++) {
+            for (int ry = World.TILE_Y_MIN; ry <= World.TILE_Y_MAX; ry++) {
+                var filePath = regionFile(rx, ry);
+                if(Files.exists(filePath) && !Files.isDirectory(filePath)) {
+                    found++;
+                } else {
+                    mappedRegions.set(regionIndex(rx - World.TILE_X_MIN, ry - World.TILE_Y_MIN), nullBlock);
+                }
+            }
+        }
+        regions = mappedRegions;
+        LOGGER.info("Found {} geodata files, regions will be mapped on first access.", found);
+        return found;
+    }
+
+    private static int regionIndex(int x, int y) {
+        return x * GeoStructure.GEO_REGIONS_Y + y;
+    }
+
+    private Path regionFile(int regionX, int regionY) {
+        return geodataPath.resolve(String.format(GeoFormat.L2D.getFilename(), regionX, regionY));
+    }
+
+    private void onGeodataLoaded(int loaded) {
         if (loaded == 0) {
             var geoSettings = getSettings(GeoEngineSettings.class);
             if (geoSettings.isEnabledPathFinding()) {
@@ -221,6 +271,35 @@ public class GeoEngine {
         }
     }
 
+    /**
+     * Maps the region file and indexes its blocks. When the file is corrupted, the region has none geodata.
+     *
+     * @param x : region index X.
+     * @param y : region index Y.
+     * @return {@link ABlock} : the view over the whole region.
+     */
+    private synchronized ABlock pageRegion(int x, int y) {
+        final int index = regionIndex(x, y);
+        var region = regions.get(index);
+        if (region != null) {
+            return region;
+        }
+
+        final var filePath = regionFile(x + World.TILE_X_MIN, y + World.TILE_Y_MIN);
+        try (FileChannel fc = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            region = new BlockMapped(fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size()));
+            LOGGER.debug("Mapped geodata region file {}.", filePath);
+        } catch (Exception e) {
+            LOGGER.error("Error while mapping {} region file.", filePath);
+            LOGGER.error(e.getMessage());
+            region = nullBlock;
+        }
+
+        // the volatile write of the atomic array publishes the block built by this thread to the readers of getBlock
+        regions.set(index, region);
+        return region;
+    }
+
     /**
      * Loads null blocks. Used when no region file is detected or an error occurs during loading.
      *
@@ -253,7 +332,14 @@ public class GeoEngine {
 
         // if x or y is out of array return null
         if ((x > -1) && (y > -1) && (x < GeoStructure.GEO_BLOCKS_X) && (y < GeoStructure.GEO_BLOCKS_Y)) {
-            return blocks[x][y];
+            final var mappedRegions = regions;
+            if (mappedRegions != null) {
+                final int regionX = x / GeoStructure.REGION_BLOCKS_X;
+                final int regionY = y / GeoStructure.REGION_BLOCKS_Y;
+                final var region = mappedRegions.get(regionIndex(regionX, regionY));
+                return region != null ? region : pageRegion(regionX, regionY);
+            }
+            return blocks != null ? blocks[x][y] : null;
         }
         return null;
     }
@@ -289,6 +375,19 @@ public class GeoEngine {
         return block != null ? block.getHeightNearest(geoX, geoY, worldZ) : (short) worldZ;
     }
 
+    /**
+     * Returns the height of the first cell layer below given coordinates.
+     *
+     * @param geoX   : Cell geodata X coordinate.
+     * @param geoY   : Cell geodata Y coordinate.
+     * @param worldZ : Cell world Z coordinate.
+     * @return short : Cell geodata Z coordinate, {@link Short#MAX_VALUE} when there is no layer below.
+     */
+    public final short getHeightBelow(int geoX, int geoY, int worldZ) {
+        final ABlock block = getBlock(geoX, geoY);
+        return block != null ? block.getHeightBelow(geoX, geoY, worldZ) : Short.MAX_VALUE;
+    }
+
     /**
      * Returns the NSWE flag byte of cell, which is closes to given coordinates.
      *
@@ -333,12 +432,7 @@ public class GeoEngine {
      * @return {@code boolean} : True if origin can see target
      */
     public final boolean canSeeTarget(WorldObject origin, WorldObject target) {
-        if (isDoor(target) || isArtifact(target) || (isCreature(target) && ((Creature) target).isFlying())) {
-            return true;
-        }
-
-        double theight = isCreature(target) ? ((Creature) target).getCollisionHeight() * 2 : 0;
-        return canSeeTarget(origin, target.getLocation(), theight);
+        return sightFrom(origin).canSee(target);
     }
 
     /**
@@ -349,55 +443,35 @@ public class GeoEngine {
      * @return {@code boolean} : True if object can see position
      */
     public final boolean canSeeTarget(WorldObject origin, Location position) {
-        return canSeeTarget(origin, position, 0);
+        return sightFrom(origin).canSee(position);
     }
 
-    private boolean canSeeTarget(WorldObject origin, Location position, double tHeight) {
-        // get origin and target world coordinates
-        final int ox = origin.getX();
-        final int oy = origin.getY();
-        final int oz = origin.getZ();
-        final int tx = position.getX();
-        final int ty = position.getY();
-        final int tz = position.getZ();
-
-        if (DoorDataManager.getInstance().checkIfDoorsBetween(ox, oy, oz, tx, ty, tz, origin.getInstanceWorld(), true)) {
-            return false;
-        }
-
-        if (FenceDataManager.getInstance().checkIfFenceBetween(ox, oy, oz, tx, ty, tz, origin.getInstanceWorld())) {
-            return false;
-        }
-
-        // get origin and check existing geo coordinates
-        final int gox = getGeoX(ox);
-        final int goy = getGeoY(oy);
-        if (!hasGeoPos(gox, goy)) {
-            return true;
-        }
-
-        final short goz = getHeightNearest(gox, goy, oz);
-
-        // get target and check existing geo coordinates
-        final int gtx = getGeoX(tx);
-        final int gty = getGeoY(ty);
-        if (!hasGeoPos(gtx, gty)) {
-            return true;
-        }
-
-        final short gtz = getHeightNearest(gtx, gty, tz);
+    /**
+     * Prepares the line of sight checks from the origin, to test it against many targets.<br>
+     * The origin position is taken now, so the result must not be kept after the origin moves.
+     *
+     * @param origin : The origin object.
+     * @return {@link SightOrigin} : the prepared origin
+     */
+    public final SightOrigin sightFrom(WorldObject origin) {
+        return new SightOrigin(origin);
+    }
 
-        if (gox == gtx && goy == gty) {
-            return goz == gtz;
+    private boolean checkSeeCached(int gox, int goy, int goz, double oheight, int gtx, int gty, int gtz, double theight, Instance instance) {
+        final long originKey = SightCache.key(gox, goy, goz, oheight);
+        final long targetKey = SightCache.key(gtx, gty, gtz, theight);
+        final Boolean cached = sightCache.get(originKey, targetKey);
+        if (cached != null) {
+            return cached;
         }
 
-        // get origin and target height, real height = collision height * 2
-        double oheight = 0;
-        if (isCreature(origin)) {
-            oheight = ((Creature) origin).getTemplate().getCollisionHeight();
-        }
+        final boolean canSee = checkSee(gox, goy, goz, oheight, gtx, gty, gtz, theight, instance);
+        sightCache.put(originKey, targetKey, canSee);
+        return canSee;
+    }
 
-        return checkSee(gox, goy, goz, oheight, gtx, gty, gtz, tHeight, origin.getInstanceWorld());
+    public CharSequence getSightStats() {
+        return sightCache.getStats();
     }
 
     /**
@@ -775,6 +849,23 @@ public class GeoEngine {
         return null;
     }
 
+    /**
+     * Notifies that a dynamic geo object, such as a door or a fence, changed its state inside the given area.<br>
+     * Paths searched around the area are no longer trusted.
+     *
+     * @param instanceId : the instance of the object
+     * @param minX : lowest world x of the object
+     * @param minY : lowest world y of the object
+     * @param maxX : highest world x of the object
+     * @param maxY : highest world y of the object
+     */
+    public void onGeoObjectChanged(int instanceId, int minX, int minY, int maxX, int maxY) {
+    }
+
+    public CharSequence getPathFindingStats() {
+        return "PathFinding disabled\n";
+    }
+
     public static void init() {
         getInstance().load();
     }
@@ -784,6 +875,87 @@ public class GeoEngine {
     }
 
 
+    /**
+     * Line of sight origin, with the door independent part of the check resolved once for all targets.
+     */
+    public final class SightOrigin {
+        private final int ox;
+        private final int oy;
+        private final int oz;
+        private final Instance instance;
+        private final boolean hasGeo;
+        private final int gox;
+        private final int goy;
+        private final short goz;
+        private final double oheight;
+
+        private SightOrigin(WorldObject origin) {
+            ox = origin.getX();
+            oy = origin.getY();
+            oz = origin.getZ();
+            instance = origin.getInstanceWorld();
+
+            // get origin and check existing geo coordinates
+            gox = getGeoX(ox);
+            goy = getGeoY(oy);
+            hasGeo = hasGeoPos(gox, goy);
+            goz = hasGeo ? getHeightNearest(gox, goy, oz) : (short) oz;
+
+            // get origin height, real height = collision height * 2
+            oheight = isCreature(origin) ? ((Creature) origin).getTemplate().getCollisionHeight() : 0;
+        }
+
+        /**
+         * @param target : The target object.
+         * @return {@code boolean} : True if the origin can see the target
+         */
+        public boolean canSee(WorldObject target) {
+            if (isDoor(target) || isArtifact(target) || (isCreature(target) && ((Creature) target).isFlying())) {
+                return true;
+            }
+
+            final double theight = isCreature(target) ? ((Creature) target).getCollisionHeight() * 2 : 0;
+            return canSee(target.getX(), target.getY(), target.getZ(), theight);
+        }
+
+        /**
+         * @param position : The target position.
+         * @return {@code boolean} : True if the origin can see the position
+         */
+        public boolean canSee(Location position) {
+            return canSee(position.getX(), position.getY(), position.getZ(), 0);
+        }
+
+        private boolean canSee(int tx, int ty, int tz, double theight) {
+            if (DoorDataManager.getInstance().checkIfDoorsBetween(ox, oy, oz, tx, ty, tz, instance, true)) {
+                return false;
+            }
+
+            if (FenceDataManager.getInstance().checkIfFenceBetween(ox, oy, oz, tx, ty, tz, instance)) {
+                return false;
+            }
+
+            if (!hasGeo) {
+                return true;
+            }
+
+            // get target and check existing geo coordinates
+            final int gtx = getGeoX(tx);
+            final int gty = getGeoY(ty);
+            if (!hasGeoPos(gtx, gty)) {
+                return true;
+            }
+
+            final short gtz = getHeightNearest(gtx, gty, tz);
+
+            if (gox == gtx && goy == gty) {
+                return goz == gtz;
+            }
+
+            return checkSeeCached(gox, goy, goz, oheight, gtx, gty, gtz, theight, instance);
+        }
+    }
+
     private static class Singleton {
         private static final GeoEngine INSTANCE = getSettings(GeoEngineSettings.class).isEnabledPathFinding() ? new GeoEnginePathFinding() : new GeoEngine();
     }
@@ -18,18 +18,29 @@
  */
 package org.l2j.gameserver.engine.geo;
 
+import org.l2j.commons.metrics.Counter;
+import org.l2j.commons.metrics.MetricsRegistry;
 import org.l2j.gameserver.engine.geo.geodata.GeoLocation;
-import org.l2j.gameserver.engine.geo.pathfinding.Node;
+import org.l2j.gameserver.engine.geo.pathfinding.ClusterGraph;
 import org.l2j.gameserver.engine.geo.pathfinding.NodeBuffer;
+import org.l2j.gameserver.engine.geo.pathfinding.PathCache;
+import org.l2j.gameserver.engine.geo.settings.GeoEngineSettings;
 import org.l2j.gameserver.model.Location;
 import org.l2j.gameserver.model.instancezone.Instance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.l2j.commons.configuration.Configurator.getSettings;
 
 /**
  * @author Hasha
@@ -39,60 +50,54 @@ final class GeoEnginePathFinding extends GeoEngine {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GeoEnginePathFinding.class);
 
-    private final BufferHolder[] buffers = {
-        new BufferHolder(100, 6),
-        new BufferHolder(128, 6),
-        new BufferHolder(192, 6),
-        new BufferHolder(256, 4),
-        new BufferHolder(320, 4),
-        new BufferHolder(384, 4),
-        new BufferHolder(500, 2)
-    };
+    private static final int[] BUFFER_SIZES = { 100, 128, 192, 256, 320, 384, 500 };
+    private static final int LOCAL_BUFFER_SIZE = 128;
+    private static final int HIERARCHICAL_DISTANCE = 2 * ClusterGraph.CLUSTER_SIZE;
+    private static final int REFINE_DISTANCE = 3 * ClusterGraph.CLUSTER_SIZE;
 
-    GeoEnginePathFinding() {
-        LOGGER.info("Loaded {} path node buffers.", buffers.length);
-    }
+    // a search that did not finish, for lack of a buffer or an error, compared by identity and never cached
+    private static final List<Location> SEARCH_FAILED = new ArrayList<>(0);
 
     /**
-     * Create list of node locations as result of calculated buffer node tree.
-     *
-     * @param target : the entry point
-     * @return List<NodeLoc> : list of node location
+     * Each thread searches the small squares on its own buffer, grown to the biggest of them it needed so far.
+     * The bigger squares take a buffer from the bounded pools, so a thread doesn't keep megabytes forever.
      */
-    private static List<Location> constructPath(Node target) {
-        // create empty list
-        LinkedList<Location> list = new LinkedList<>();
-
-        // set direction X/Y
-        int dx = 0;
-        int dy = 0;
-
-        // get target parent
-        Node parent = target.getParent();
-
-        // while parent exists
-        while (parent != null) {
-            // get parent <> target direction X/Y
-            final int nx = parent.getLoc().getGeoX() - target.getLoc().getGeoX();
-            final int ny = parent.getLoc().getGeoY() - target.getLoc().getGeoY();
-
-            // direction has changed?
-            if ((dx != nx) || (dy != ny)) {
-                // add node to the beginning of the list
-                list.addFirst(target.getLoc());
-
-                // update direction X/Y
-                dx = nx;
-                dy = ny;
-            }
+    private final ThreadLocal<NodeBuffer> buffers = new ThreadLocal<>();
+    private final BufferPool[] pools = {
+        new BufferPool(192, 6),
+        new BufferPool(256, 4),
+        new BufferPool(320, 4),
+        new BufferPool(384, 4),
+        new BufferPool(500, 2)
+    };
+    private final ThreadLocal<boolean[]> removedPoints = ThreadLocal.withInitial(() -> new boolean[32]);
 
-            // move to next node, set target and get its parent
-            target = parent;
-            parent = target.getParent();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder pathsFound = new LongAdder();
+    private final LongAdder searchesTooFar = new LongAdder();
+    private final LongAdder buffersAllocated = new LongAdder();
+    private final LongAdder searchTime = new LongAdder();
+    private volatile long maxSearchTime;
+
+    private final PathCache cache;
+    private final ClusterGraph hierarchy;
+
+    GeoEnginePathFinding() {
+        LOGGER.info("Path finding buffers are allocated per thread up to {} cells wide, and pooled up to {} cells wide.", LOCAL_BUFFER_SIZE, BUFFER_SIZES[BUFFER_SIZES.length - 1]);
+        final var settings = getSettings(GeoEngineSettings.class);
+        if (settings.pathCacheSize() > 0) {
+            cache = new PathCache(settings.pathCacheSize(), settings.pathCacheTimeToLive());
+            LOGGER.info("Caching up to {} paths for {} ms.", settings.pathCacheSize(), settings.pathCacheTimeToLive());
+        } else {
+            cache = null;
         }
 
-        // return list
-        return list;
+        if (settings.isHierarchicalPathFinding()) {
+            hierarchy = new ClusterGraph();
+            LOGGER.info("Paths farther than {} cells are planned over clusters of {} cells.", HIERARCHICAL_DISTANCE, ClusterGraph.CLUSTER_SIZE);
+        } else {
+            hierarchy = null;
+        }
     }
 
     @Override
@@ -116,117 +121,327 @@ final class GeoEnginePathFinding extends GeoEngine {
         short gtz = getHeightNearest(gtx, gty, tz);
 
         // Prepare buffer for pathfinding calculations
-        final NodeBuffer buffer = getBuffer(64 + (2 * Math.max(Math.abs(gox - gtx), Math.abs(goy - gty))));
-        if (buffer == null) {
+        final int distance = Math.max(Math.abs(gox - gtx), Math.abs(goy - gty));
+        final int size = getBufferSize(64 + (2 * distance));
+        final boolean hierarchical = nonNull(hierarchy) && (distance >= HIERARCHICAL_DISTANCE);
+        if ((size < 0) && !hierarchical) {
+            searchesTooFar.increment();
             return null;
         }
 
-        // find path
-        List<Location> path = null;
-        try {
-            Node result = buffer.findPath(gox, goy, goz, gtx, gty, gtz);
+        PathCache.PathKey key = null;
+        if (nonNull(cache)) {
+            key = new PathCache.PathKey(gox, goy, goz, gtx, gty, gtz, isNull(instance) ? 0 : instance.getId());
+            final var cached = cache.get(key);
+            if (nonNull(cached)) {
+                return cached.isEmpty() ? null : cached;
+            }
+        }
 
-            if (result == null) {
+        if (hierarchical) {
+            final List<Location> path = searchHierarchicalPath(gox, goy, goz, gtx, gty, gtz, instance);
+            if (nonNull(path) && (path != SEARCH_FAILED)) {
+                if (nonNull(key)) {
+                    cachePath(key, path, gox, goy, gtx, gty);
+                }
+                return path;
+            }
+
+            if (size < 0) {
+                searchesTooFar.increment();
                 return null;
             }
+        }
 
-            path = constructPath(result);
-        } catch (Exception e) {
-            LOGGER.warn(e.getMessage());
+        final List<Location> path = searchPath(size, gox, goy, goz, gtx, gty, gtz, instance);
+        if (path == SEARCH_FAILED) {
             return null;
-        } finally {
-            buffer.free();
         }
 
-        // check path
-        if (path.size() < 3) {
-            return path;
+        if (nonNull(key)) {
+            // same square the node buffer searches on
+            cache.put(key, path, gox + ((gtx - gox - size) / 2), goy + ((gty - goy - size) / 2), size);
+        }
+        return path;
+    }
+
+    /**
+     * Plans the path over the cluster graph and refines it with local searches, each one reaching the farthest waypoint in range.
+     *
+     * @return the path, {@code null} when there is no path or {@link #SEARCH_FAILED} when a local search did not finish
+     */
+    private List<Location> searchHierarchicalPath(int gox, int goy, short goz, int gtx, int gty, short gtz, Instance instance) {
+        final int[] waypoints = hierarchy.findPath(gox, goy, goz, gtx, gty, gtz);
+        if (isNull(waypoints)) {
+            return null;
         }
 
-        // get path list iterator
-        ListIterator<Location> point = path.listIterator();
+        final List<Location> path = new ArrayList<>();
+        final int count = waypoints.length / 3;
+        int ax = gox;
+        int ay = goy;
+        short az = goz;
+        int next = 0;
+        while (next < count) {
+            int last = next;
+            while (((last + 1) < count) && (getDistance(ax, ay, waypoints, last + 1) <= REFINE_DISTANCE)) {
+                last++;
+            }
 
-        // get node A (origin)
-        int nodeAx = gox;
-        int nodeAy = goy;
-        short nodeAz = goz;
+            List<Location> segment = null;
+            int reached = last;
+            for (; reached >= next; reached--) {
+                final int size = getBufferSize(64 + (2 * getDistance(ax, ay, waypoints, reached)));
+                if (size > 0) {
+                    segment = searchPath(size, ax, ay, az, waypoints[reached * 3], waypoints[(reached * 3) + 1], (short) waypoints[(reached * 3) + 2], instance);
+                    if (segment == SEARCH_FAILED) {
+                        return SEARCH_FAILED;
+                    }
+
+                    if (nonNull(segment)) {
+                        break;
+                    }
+                }
+            }
 
-        // get node B
-        GeoLocation nodeB = (GeoLocation) point.next();
+            if (isNull(segment)) {
+                return null;
+            }
+            path.addAll(segment);
+            ax = waypoints[reached * 3];
+            ay = waypoints[(reached * 3) + 1];
+            az = (short) waypoints[(reached * 3) + 2];
+            next = reached + 1;
+        }
+        return path;
+    }
 
-        // iterate thought the path to optimize it
-        while (point.hasNext()) {
-            // get node C
-            GeoLocation nodeC = (GeoLocation) path.get(point.nextIndex());
+    private static int getDistance(int x, int y, int[] waypoints, int waypoint) {
+        return Math.max(Math.abs(waypoints[waypoint * 3] - x), Math.abs(waypoints[(waypoint * 3) + 1] - y));
+    }
 
-            // check movement from node A to node C
-            GeoLocation loc = checkMove(nodeAx, nodeAy, nodeAz, nodeC.getGeoX(), nodeC.getGeoY(), nodeC.getZ(), instance);
-            if ((loc.getGeoX() == nodeC.getGeoX()) && (loc.getGeoY() == nodeC.getGeoY())) {
-                // can move from node A to node C
+    private void cachePath(PathCache.PathKey key, List<Location> path, int gox, int goy, int gtx, int gty) {
+        int minX = Math.min(gox, gtx);
+        int minY = Math.min(goy, gty);
+        int maxX = Math.max(gox, gtx);
+        int maxY = Math.max(goy, gty);
+        for (var location : path) {
+            final int x = getGeoX(location.getX());
+            final int y = getGeoY(location.getY());
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        cache.put(key, path, minX, minY, maxX, maxY);
+    }
 
-                // remove node B
-                point.remove();
-            } else {
-                // can not move from node A to node C
+    /**
+     * @return the path, {@code null} when the search finished without a path or {@link #SEARCH_FAILED} when it did not finish
+     */
+    private List<Location> searchPath(int size, int gox, int goy, short goz, int gtx, int gty, short gtz, Instance instance) {
+        if (size <= LOCAL_BUFFER_SIZE) {
+            return searchPath(getLocalBuffer(size), size, gox, goy, goz, gtx, gty, gtz, instance);
+        }
 
-                // set node A (node B is part of path, update A coordinates)
-                nodeAx = nodeB.getGeoX();
-                nodeAy = nodeB.getGeoY();
-                nodeAz = (short) nodeB.getZ();
+        for (BufferPool pool : pools) {
+            if (pool.size < size) {
+                continue;
             }
 
-            // set node B
-            nodeB = (GeoLocation) point.next();
+            final NodeBuffer buffer = pool.poll();
+            if (nonNull(buffer)) {
+                try {
+                    return searchPath(buffer, size, gox, goy, goz, gtx, gty, gtz, instance);
+                } finally {
+                    pool.release(buffer);
+                }
+            }
         }
 
+        // every buffer big enough is in use
+        findPool(size).exhausted.increment();
+        return SEARCH_FAILED;
+    }
+
+    private List<Location> searchPath(NodeBuffer buffer, int size, int gox, int goy, short goz, int gtx, int gty, short gtz, Instance instance) {
+        // find path
+        final long start = System.nanoTime();
+        final int points;
+        try {
+            points = buffer.findPath(size, gox, goy, goz, gtx, gty, gtz);
+        } catch (Exception e) {
+            LOGGER.warn(e.getMessage());
+            return SEARCH_FAILED;
+        } finally {
+            onSearchFinished(System.nanoTime() - start);
+        }
+
+        if (points < 0) {
+            return null;
+        }
+        pathsFound.increment();
+
+        // check path
+        final boolean[] removed = getRemovedPoints(points);
+        if (points >= 3) {
+            // get node A (origin)
+            int nodeAx = gox;
+            int nodeAy = goy;
+            short nodeAz = goz;
+
+            // iterate thought the path to optimize it, node B is the point before node C
+            for (int nodeC = 1; nodeC < points; nodeC++) {
+                final int nodeB = nodeC - 1;
+
+                // check movement from node A to node C
+                GeoLocation loc = checkMove(nodeAx, nodeAy, nodeAz, buffer.getPathX(nodeC), buffer.getPathY(nodeC), buffer.getPathZ(nodeC), instance);
+                if ((loc.getGeoX() == buffer.getPathX(nodeC)) && (loc.getGeoY() == buffer.getPathY(nodeC))) {
+                    // can move from node A to node C, remove node B
+                    removed[nodeB] = true;
+                } else {
+                    // can not move from node A to node C, node B is part of path, update A coordinates
+                    nodeAx = buffer.getPathX(nodeB);
+                    nodeAy = buffer.getPathY(nodeB);
+                    nodeAz = buffer.getPathZ(nodeB);
+                }
+            }
+        }
+
+        final List<Location> path = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            if (!removed[i]) {
+                path.add(new Location(getWorldX(buffer.getPathX(i)), getWorldY(buffer.getPathY(i)), buffer.getPathZ(i)));
+            }
+        }
         return path;
     }
 
+    @Override
+    public void onGeoObjectChanged(int instanceId, int minX, int minY, int maxX, int maxY) {
+        if (nonNull(cache)) {
+            cache.invalidate(instanceId, getGeoX(minX), getGeoY(minY), getGeoX(maxX), getGeoY(maxY));
+        }
+    }
+
+    private void onSearchFinished(long time) {
+        searches.increment();
+        searchTime.add(time);
+        if (time > maxSearchTime) {
+            maxSearchTime = time;
+        }
+    }
+
+    private boolean[] getRemovedPoints(int points) {
+        var removed = removedPoints.get();
+        if (removed.length < points) {
+            removed = new boolean[Math.max(points, removed.length * 2)];
+            removedPoints.set(removed);
+        } else {
+            Arrays.fill(removed, 0, points, false);
+        }
+        return removed;
+    }
+
     /**
-     * Provides optimize selection of the buffer. When all pre-initialized buffer are locked, creates new buffer.
-     *
      * @param size : pre-calculated minimal required size
-     * @return NodeBuffer : buffer
+     * @return int : the size of the search square, -1 when the target is too far
      */
-    private final NodeBuffer getBuffer(int size) {
-        NodeBuffer current = null;
-        for (BufferHolder holder : buffers) {
-            // Find proper size of buffer
-            if (holder._size < size) {
-                continue;
+    private static int getBufferSize(int size) {
+        for (int bufferSize : BUFFER_SIZES) {
+            if (bufferSize >= size) {
+                return bufferSize;
             }
+        }
+        return -1;
+    }
 
-            // Find unlocked NodeBuffer
-            for (NodeBuffer buffer : holder._buffer) {
-                if (!buffer.isLocked()) {
-                    continue;
-                }
-
-                return buffer;
-            }
+    /**
+     * Provides the buffer of the current thread, growing it when it is smaller than the search square.
+     *
+     * @param size : the size of the search square, not bigger than {@link #LOCAL_BUFFER_SIZE}
+     * @return NodeBuffer : buffer
+     */
+    private NodeBuffer getLocalBuffer(int size) {
+        var buffer = buffers.get();
+        if (isNull(buffer) || (buffer.capacity() < size)) {
+            buffer = new NodeBuffer(size);
+            buffers.set(buffer);
+            buffersAllocated.increment();
+        }
+        return buffer;
+    }
 
-            // NodeBuffer not found, allocate temporary buffer
-            current = new NodeBuffer(holder._size);
-            current.isLocked();
+    @Override
+    public CharSequence getPathFindingStats() {
+        final long searchCount = searches.sum();
+        final StringBuilder stats = new StringBuilder();
+        stats.append("PathFinding\n");
+        stats.append("=================================================\n");
+        stats.append("\tsearches: ............ ").append(searchCount).append('\n');
+        stats.append("\tpathsFound: .......... ").append(pathsFound.sum()).append('\n');
+        stats.append("\ttooFar: .............. ").append(searchesTooFar.sum()).append('\n');
+        stats.append("\tbuffersAllocated: .... ").append(buffersAllocated.sum()).append('\n');
+        stats.append("\taverageSearchTime: ... ").append(searchCount > 0 ? searchTime.sum() / searchCount / 1000 : 0).append(" us\n");
+        stats.append("\tmaxSearchTime: ....... ").append(maxSearchTime / 1000).append(" us\n");
+        for (BufferPool pool : pools) {
+            stats.append("\t\t").append(pool.size).append(" cells: ").append(pool.inUse()).append(" / ").append(pool.capacity)
+                 .append(" in use, exhausted ").append(pool.exhausted.count()).append('\n');
+        }
+        if (nonNull(cache)) {
+            stats.append(cache.getStats());
+        }
+        if (nonNull(hierarchy)) {
+            stats.append(hierarchy.getStats());
         }
+        return stats;
+    }
 
-        return current;
+    private BufferPool findPool(int size) {
+        for (BufferPool pool : pools) {
+            if (pool.size >= size) {
+                return pool;
+            }
+        }
+        return pools[pools.length - 1];
     }
 
     /**
-     * NodeBuffer container with specified size and count of separate buffers.
+     * Bounded set of buffers of a search square size, each one created when first needed.
      */
-    private static final class BufferHolder {
-        final int _size;
-        List<NodeBuffer> _buffer;
-
-        public BufferHolder(int size, int count) {
-            _size = size;
-            _buffer = new ArrayList<>(count);
+    private final class BufferPool {
+        private final int size;
+        private final int capacity;
+        private final Queue<NodeBuffer> free = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger created = new AtomicInteger();
+        private final Counter exhausted;
+
+        private BufferPool(int size, int capacity) {
+            this.size = size;
+            this.capacity = capacity;
+            final var metrics = MetricsRegistry.getInstance();
+            exhausted = metrics.counter("l2j_pathfinding_buffer_pool_exhausted_total", "size", String.valueOf(size));
+            metrics.gauge("l2j_pathfinding_buffers_in_use", "size", String.valueOf(size), this::inUse);
+        }
 
-            for (int i = 0; i < count; i++) {
-                _buffer.add(new NodeBuffer(size));
+        /**
+         * @return a free buffer, null when all of them are in use
+         */
+        private NodeBuffer poll() {
+            var buffer = free.poll();
+            if (isNull(buffer) && (created.getAndUpdate(count -> count < capacity ? count + 1 : count) < capacity)) {
+                buffer = new NodeBuffer(size);
+                buffersAllocated.increment();
             }
+            return buffer;
+        }
+
+        private void release(NodeBuffer buffer) {
+            free.offer(buffer);
+        }
+
+        private int inUse() {
+            return created.get() - free.size();
         }
     }
-}
\ No newline at end of file
+}
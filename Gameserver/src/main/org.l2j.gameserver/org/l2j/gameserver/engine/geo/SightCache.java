@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.engine.geo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Short lived cache of line of sight results between geodata cells.<br>
+ * <br>
+ * Only the geodata part of the check is cached, doors and fences are always checked before. Since the geodata does not change,
+ * the period only bounds how long a result is kept: the whole cache is dropped when a new period starts, and it stops growing when full.
+ *
+ * @author JoeAlisson
+ */
+final class SightCache {
+
+    private static final long PERIOD = 1000;
+    private static final int MAX_ENTRIES = 32768;
+
+    private volatile Period current = new Period(System.currentTimeMillis() / PERIOD);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder periods = new LongAdder();
+
+    /**
+     * @return the cached result, {@code null} when the cells were not checked in the current period
+     */
+    Boolean get(long origin, long target) {
+        final Boolean result = getPeriod().results.get(new SightKey(origin, target));
+        if (nonNull(result)) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return result;
+    }
+
+    void put(long origin, long target, boolean canSee) {
+        final var results = getPeriod().results;
+        if (results.size() < MAX_ENTRIES) {
+            results.put(new SightKey(origin, target), canSee);
+        }
+    }
+
+    private Period getPeriod() {
+        final long id = System.currentTimeMillis() / PERIOD;
+        Period period = current;
+        if (period.id != id) {
+            period = new Period(id);
+            current = period;
+            periods.increment();
+        }
+        return period;
+    }
+
+    /**
+     * Packs the cell and the height of the line of sight on it.
+     */
+    static long key(int geoX, int geoY, int geoZ, double height) {
+        return ((long) geoX << 48) | ((long) (geoY & 0xFFFF) << 32) | ((long) (geoZ & 0xFFFF) << 16) | ((int) (height * 4) & 0xFFFF);
+    }
+
+    CharSequence getStats() {
+        final long hitCount = hits.sum();
+        final long requests = hitCount + misses.sum();
+        final StringBuilder stats = new StringBuilder();
+        stats.append("LineOfSight\n");
+        stats.append("=================================================\n");
+        stats.append("\tcacheSize: ........... ").append(current.results.size()).append('/').append(MAX_ENTRIES).append('\n');
+        stats.append("\tcacheHits: ........... ").append(hitCount).append('\n');
+        stats.append("\tcacheMisses: ......... ").append(requests - hitCount).append('\n');
+        stats.append("\tcacheHitRatio: ....... ").append(requests > 0 ? (hitCount * 100 / requests) : 0).append(" %\n");
+        stats.append("\tcachePeriods: ........ ").append(periods.sum()).append('\n');
+        return stats;
+    }
+
+    private static final class Period {
+        private final long id;
+        private final Map<SightKey, Boolean> results = new ConcurrentHashMap<>();
+
+        private Period(long id) {
+            this.id = id;
+        }
+    }
+
+    private static final class SightKey {
+        private final long origin;
+        private final long target;
+
+        private SightKey(long origin, long target) {
+            this.origin = origin;
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SightKey)) {
+                return false;
+            }
+            final var other = (SightKey) o;
+            return origin == other.origin && target == other.target;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(origin) + Long.hashCode(target);
+        }
+    }
+}
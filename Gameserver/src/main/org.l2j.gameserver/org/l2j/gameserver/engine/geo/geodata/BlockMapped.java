@@ -0,0 +1,330 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.engine.geo.geodata;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * View over a whole memory mapped L2D region file.<br>
+ * <br>
+ * Only a block offset index is kept on heap, the cells are read from the mapped buffer.
+ * The data layout of the L2D blocks is the same used by {@link BlockComplex} and {@link BlockMultilayer},
+ * so the indexes are buffer positions and the answers are the same given by the heap blocks.<br>
+ * <br>
+ * The mapping is read only, the first nswe change copies the region to heap and the later reads and writes use the copy.
+ *
+ * @author JoeAlisson
+ */
+public final class BlockMapped extends ABlock {
+
+    private static final int TYPE_FLAT = 0;
+    private static final int TYPE_COMPLEX = 1;
+    private static final int TYPE_MULTILAYER = 2;
+    private static final int TYPE_BITS = 2;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    /**
+     * Marks the index of a flat block cell, which has no nswe byte in the file. The index holds the block number.
+     */
+    private static final int FLAT_INDEX = 1 << 30;
+    private static final int POSITION_MASK = FLAT_INDEX - 1;
+
+    private static final int MAX_LAYERS = Byte.MAX_VALUE;
+
+    private final int[] blocks = new int[GeoStructure.REGION_BLOCKS];
+    private volatile ByteBuffer buffer;
+    private volatile byte[] flatNswe;
+
+    /**
+     * Creates the view indexing the blocks of the region.
+     *
+     * @param buffer : the mapped region file
+     * @throws IllegalArgumentException when the region file is corrupted
+     */
+    public BlockMapped(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() > POSITION_MASK) {
+            throw new IllegalArgumentException("Region file too large: " + buffer.capacity());
+        }
+
+        int position = 0;
+        for (int block = 0; block < GeoStructure.REGION_BLOCKS; block++) {
+            final byte type = buffer.get(position);
+            switch (type) {
+                case GeoStructure.TYPE_FLAT_L2D -> {
+                    blocks[block] = position << TYPE_BITS | TYPE_FLAT;
+                    position += 3;
+                }
+                case GeoStructure.TYPE_COMPLEX_L2D -> {
+                    blocks[block] = position << TYPE_BITS | TYPE_COMPLEX;
+                    position += 1 + GeoStructure.BLOCK_CELLS * 3;
+                }
+                case GeoStructure.TYPE_MULTILAYER_L2D -> {
+                    blocks[block] = position << TYPE_BITS | TYPE_MULTILAYER;
+                    position++;
+                    for (int cell = 0; cell < GeoStructure.BLOCK_CELLS; cell++) {
+                        final byte layers = buffer.get(position);
+                        if (layers <= 0 || layers > MAX_LAYERS) {
+                            throw new IllegalArgumentException("Invalid layer count for MultilayerBlock");
+                        }
+                        position += layers * 3 + 1;
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown block type: " + type);
+            }
+        }
+
+        if (position != buffer.capacity()) {
+            throw new IllegalArgumentException("Region file has " + (buffer.capacity() - position) + " remaining bytes to read");
+        }
+    }
+
+    private static int blockNumber(int geoX, int geoY) {
+        return ((geoX / GeoStructure.BLOCK_CELLS_X) % GeoStructure.REGION_BLOCKS_X) * GeoStructure.REGION_BLOCKS_Y + ((geoY / GeoStructure.BLOCK_CELLS_Y) % GeoStructure.REGION_BLOCKS_Y);
+    }
+
+    private int block(int geoX, int geoY) {
+        return blocks[blockNumber(geoX, geoY)];
+    }
+
+    private static int cell(int geoX, int geoY) {
+        return ((geoX % GeoStructure.BLOCK_CELLS_X) * GeoStructure.BLOCK_CELLS_Y) + (geoY % GeoStructure.BLOCK_CELLS_Y);
+    }
+
+    /**
+     * @return the position of the layers count of the cell in a multilayer block
+     */
+    private int multilayerCell(int block, int geoX, int geoY) {
+        int position = (block >>> TYPE_BITS) + 1;
+        for (int i = cell(geoX, geoY); i > 0; i--) {
+            position += (buffer.get(position) * 3) + 1;
+        }
+        return position;
+    }
+
+    @Override
+    public boolean hasGeoPos() {
+        return true;
+    }
+
+    @Override
+    public short getHeightNearest(int geoX, int geoY, int worldZ) {
+        return getHeight(getIndexNearest(geoX, geoY, worldZ));
+    }
+
+    @Override
+    public short getHeightNearestOriginal(int geoX, int geoY, int worldZ) {
+        return getHeightNearest(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public short getHeightAbove(int geoX, int geoY, int worldZ) {
+        final int index = getIndexAbove(geoX, geoY, worldZ);
+        return index == -1 ? Short.MIN_VALUE : getHeight(index);
+    }
+
+    @Override
+    public short getHeightBelow(int geoX, int geoY, int worldZ) {
+        final int index = getIndexBelow(geoX, geoY, worldZ);
+        return index == -1 ? Short.MAX_VALUE : getHeight(index);
+    }
+
+    @Override
+    public byte getNsweNearest(int geoX, int geoY, int worldZ) {
+        return getNswe(getIndexNearest(geoX, geoY, worldZ));
+    }
+
+    @Override
+    public byte getNsweNearestOriginal(int geoX, int geoY, int worldZ) {
+        return getNsweNearest(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public byte getNsweAbove(int geoX, int geoY, int worldZ) {
+        final int index = getIndexAbove(geoX, geoY, worldZ);
+        return index == -1 ? 0 : getNswe(index);
+    }
+
+    @Override
+    public byte getNsweBelow(int geoX, int geoY, int worldZ) {
+        final int index = getIndexBelow(geoX, geoY, worldZ);
+        return index == -1 ? 0 : getNswe(index);
+    }
+
+    @Override
+    public int getIndexNearest(int geoX, int geoY, int worldZ) {
+        final int block = block(geoX, geoY);
+        return switch (block & TYPE_MASK) {
+            case TYPE_FLAT -> blockNumber(geoX, geoY) | FLAT_INDEX;
+            case TYPE_COMPLEX -> (block >>> TYPE_BITS) + 1 + cell(geoX, geoY) * 3;
+            default -> {
+                int index = multilayerCell(block, geoX, geoY);
+                byte layers = buffer.get(index++);
+
+                // same as BlockMultilayer, on equal distances the bottom layer wins
+                int limit = Integer.MAX_VALUE;
+                while (layers-- > 0) {
+                    final int distance = Math.abs(buffer.getShort(index + 1) - worldZ);
+                    if (distance > limit) {
+                        break;
+                    }
+                    limit = distance;
+                    index += 3;
+                }
+                yield index - 3;
+            }
+        };
+    }
+
+    @Override
+    public int getIndexAbove(int geoX, int geoY, int worldZ) {
+        final int block = block(geoX, geoY);
+        return switch (block & TYPE_MASK) {
+            case TYPE_FLAT -> {
+                yield buffer.getShort((block >>> TYPE_BITS) + 1) > worldZ ? blockNumber(geoX, geoY) | FLAT_INDEX : -1;
+            }
+            case TYPE_COMPLEX -> {
+                final int index = (block >>> TYPE_BITS) + 1 + cell(geoX, geoY) * 3;
+                yield buffer.getShort(index + 1) > worldZ ? index : -1;
+            }
+            default -> {
+                int index = multilayerCell(block, geoX, geoY);
+                byte layers = buffer.get(index++);
+                index += (layers - 1) * 3;
+
+                // from the bottom layer, find the first layer above worldZ
+                while (layers-- > 0) {
+                    if (buffer.getShort(index + 1) > worldZ) {
+                        yield index;
+                    }
+                    index -= 3;
+                }
+                yield -1;
+            }
+        };
+    }
+
+    @Override
+    public int getIndexAboveOriginal(int geoX, int geoY, int worldZ) {
+        return getIndexAbove(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public int getIndexBelow(int geoX, int geoY, int worldZ) {
+        final int block = block(geoX, geoY);
+        return switch (block & TYPE_MASK) {
+            case TYPE_FLAT -> {
+                yield buffer.getShort((block >>> TYPE_BITS) + 1) < worldZ ? blockNumber(geoX, geoY) | FLAT_INDEX : -1;
+            }
+            case TYPE_COMPLEX -> {
+                final int index = (block >>> TYPE_BITS) + 1 + cell(geoX, geoY) * 3;
+                yield buffer.getShort(index + 1) < worldZ ? index : -1;
+            }
+            default -> {
+                int index = multilayerCell(block, geoX, geoY);
+                byte layers = buffer.get(index++);
+
+                // from the top layer, find the first layer below worldZ
+                while (layers-- > 0) {
+                    if (buffer.getShort(index + 1) < worldZ) {
+                        yield index;
+                    }
+                    index += 3;
+                }
+                yield -1;
+            }
+        };
+    }
+
+    @Override
+    public int getIndexBelowOriginal(int geoX, int geoY, int worldZ) {
+        return getIndexBelow(geoX, geoY, worldZ);
+    }
+
+    @Override
+    public short getHeight(int index) {
+        if ((index & FLAT_INDEX) != 0) {
+            return buffer.getShort((blocks[index & POSITION_MASK] >>> TYPE_BITS) + 1);
+        }
+        return buffer.getShort(index + 1);
+    }
+
+    @Override
+    public short getHeightOriginal(int index) {
+        return getHeight(index);
+    }
+
+    @Override
+    public byte getNswe(int index) {
+        if ((index & FLAT_INDEX) != 0) {
+            final byte[] flatNswe = this.flatNswe;
+            return flatNswe == null ? (byte) 0xFF : flatNswe[index & POSITION_MASK];
+        }
+        return buffer.get(index);
+    }
+
+    @Override
+    public byte getNsweOriginal(int index) {
+        return getNswe(index);
+    }
+
+    /**
+     * Sets the NSWE flag byte of the cell. The flat blocks keep it on a heap array, as {@link BlockFlat} does,
+     * the other blocks copy the mapped region to heap on the first change.
+     */
+    @Override
+    public synchronized void setNswe(int index, byte nswe) {
+        if ((index & FLAT_INDEX) != 0) {
+            byte[] flatNswe = this.flatNswe;
+            if (flatNswe == null) {
+                flatNswe = new byte[GeoStructure.REGION_BLOCKS];
+                Arrays.fill(flatNswe, (byte) 0xFF);
+            }
+            flatNswe[index & POSITION_MASK] = nswe;
+            this.flatNswe = flatNswe;
+            return;
+        }
+
+        ByteBuffer buffer = this.buffer;
+        if (buffer.isReadOnly()) {
+            buffer = ByteBuffer.allocate(buffer.capacity()).order(ByteOrder.LITTLE_ENDIAN).put(buffer.duplicate().clear());
+        }
+        buffer.put(index, nswe);
+        this.buffer = buffer;
+    }
+
+    /**
+     * Saves all blocks of the region in L2D format, the view stands for every block of its region.
+     * The flat blocks have no nswe in L2D format, as in {@link BlockFlat}.
+     */
+    @Override
+    public void saveBlock(BufferedOutputStream stream) throws IOException {
+        final ByteBuffer data = buffer.duplicate().clear();
+        final byte[] chunk = new byte[8192];
+        while (data.hasRemaining()) {
+            final int length = Math.min(chunk.length, data.remaining());
+            data.get(chunk, 0, length);
+            stream.write(chunk, 0, length);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.engine.geo.pathfinding;
+
+import org.l2j.gameserver.engine.geo.GeoEngine;
+import org.l2j.gameserver.engine.geo.geodata.GeoStructure;
+
+import java.util.Arrays;
+
+/**
+ * Uniform cost flood over a square of geodata cells, used to measure the walking cost from one cell to every other cell of a cluster.<br>
+ * <br>
+ * Movement follows the same rules as the {@link NodeBuffer}: the NSWE flags of the cell, one layer per cell and a limited climb between neighbors.
+ * The flood is reused by its owner thread and is not thread safe.
+ *
+ * @author JoeAlisson
+ */
+final class ClusterFlood {
+
+    static final int BASE_WEIGHT = 10;
+    static final int DIAGONAL_WEIGHT = 14;
+
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final int size;
+    private final int[] generations;
+    private final int[] costs;
+    private final short[] heights;
+    private final byte[] nswes;
+    private long[] heap = new long[256];
+    private int heapSize;
+    private int generation;
+
+    // flood square origin coordinates
+    private int minX;
+    private int minY;
+
+    /**
+     * @param size : one dimension size of the flood square
+     */
+    ClusterFlood(int size) {
+        this.size = size;
+        final int cells = size * size;
+        generations = new int[cells];
+        costs = new int[cells];
+        heights = new short[cells];
+        nswes = new byte[cells];
+    }
+
+    /**
+     * Floods the square from the origin cell, until every reachable cell of the square has its cost.
+     *
+     * @param minX : lowest geo x of the square
+     * @param minY : lowest geo y of the square
+     * @param ox : origin geo x
+     * @param oy : origin geo y
+     * @param oz : origin height
+     */
+    void flood(int minX, int minY, int ox, int oy, short oz) {
+        this.minX = minX;
+        this.minY = minY;
+        heapSize = 0;
+        if (++generation == 0) {
+            Arrays.fill(generations, 0);
+            generation = 1;
+        }
+
+        final int origin = getNode(ox, oy, oz);
+        if (origin < 0) {
+            return;
+        }
+        costs[origin] = 0;
+        push(0, origin);
+
+        while (heapSize > 0) {
+            final long entry = pop();
+            final int cost = (int) (entry >>> 32);
+            final int node = (int) entry;
+            if (cost > costs[node]) {
+                // stale entry, the node was reached cheaper later
+                continue;
+            }
+            expand(node, cost);
+        }
+    }
+
+    /**
+     * @param x : geo x
+     * @param y : geo y
+     * @param z : height of the wanted layer
+     * @return int : the cost to reach the cell from the last flood origin, -1 when it was not reached on that layer
+     */
+    int getCost(int x, int y, int z) {
+        final int ix = x - minX;
+        final int iy = y - minY;
+        if ((ix < 0) || (ix >= size) || (iy < 0) || (iy >= size)) {
+            return -1;
+        }
+
+        final int node = (ix * size) + iy;
+        if ((generations[node] != generation) || (costs[node] == UNREACHED) || (Math.abs(heights[node] - z) > (2 * GeoStructure.CELL_HEIGHT))) {
+            return -1;
+        }
+        return costs[node];
+    }
+
+    private void expand(int node, int cost) {
+        final byte nswe = nswes[node];
+        if (nswe == 0) {
+            return;
+        }
+
+        final int x = minX + (node / size);
+        final int y = minY + (node % size);
+        final short z = heights[node];
+
+        if ((nswe & GeoStructure.CELL_FLAG_N) != 0) {
+            relax(x, y - 1, z, cost + BASE_WEIGHT);
+        }
+        if ((nswe & GeoStructure.CELL_FLAG_S) != 0) {
+            relax(x, y + 1, z, cost + BASE_WEIGHT);
+        }
+        if ((nswe & GeoStructure.CELL_FLAG_W) != 0) {
+            relax(x - 1, y, z, cost + BASE_WEIGHT);
+        }
+        if ((nswe & GeoStructure.CELL_FLAG_E) != 0) {
+            relax(x + 1, y, z, cost + BASE_WEIGHT);
+        }
+        if ((nswe & GeoStructure.CELL_FLAG_NW) != 0) {
+            relax(x - 1, y - 1, z, cost + DIAGONAL_WEIGHT);
+        }
+        if ((nswe & GeoStructure.CELL_FLAG_NE) != 0) {
+            relax(x + 1, y - 1, z, cost + DIAGONAL_WEIGHT);
+        }
+        if ((nswe & GeoStructure.CELL_FLAG_SW) != 0) {
+            relax(x - 1, y + 1, z, cost + DIAGONAL_WEIGHT);
+        }
+        if ((nswe & GeoStructure.CELL_FLAG_SE) != 0) {
+            relax(x + 1, y + 1, z, cost + DIAGONAL_WEIGHT);
+        }
+    }
+
+    private void relax(int x, int y, short z, int cost) {
+        final int node = getNode(x, y, z);
+        if (node < 0) {
+            return;
+        }
+
+        // Z distance between nearby cells is higher than cell size
+        if (heights[node] > (z + (2 * GeoStructure.CELL_HEIGHT))) {
+            return;
+        }
+
+        if (cost < costs[node]) {
+            costs[node] = cost;
+            push(cost, node);
+        }
+    }
+
+    private int getNode(int x, int y, short z) {
+        final int ix = x - minX;
+        if ((ix < 0) || (ix >= size)) {
+            return -1;
+        }
+
+        final int iy = y - minY;
+        if ((iy < 0) || (iy >= size)) {
+            return -1;
+        }
+
+        final int node = (ix * size) + iy;
+        if (generations[node] != generation) {
+            final var engine = GeoEngine.getInstance();
+            generations[node] = generation;
+            heights[node] = engine.getHeightNearest(x, y, z);
+            nswes[node] = engine.getNsweNearest(x, y, z);
+            costs[node] = UNREACHED;
+        }
+        return node;
+    }
+
+    private void push(int cost, int node) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        final long entry = ((long) cost << 32) | node;
+        int position = heapSize++;
+        while (position > 0) {
+            final int parent = (position - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = entry;
+    }
+
+    private long pop() {
+        final long top = heap[0];
+        final long last = heap[--heapSize];
+        int position = 0;
+        final int half = heapSize >>> 1;
+        while (position < half) {
+            int child = (position << 1) + 1;
+            if (((child + 1) < heapSize) && (heap[child + 1] < heap[child])) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        if (heapSize > 0) {
+            heap[position] = last;
+        }
+        return top;
+    }
+}
@@ -0,0 +1,514 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.engine.geo.pathfinding;
+
+import org.l2j.commons.threading.ThreadPool;
+import org.l2j.gameserver.engine.geo.GeoEngine;
+import org.l2j.gameserver.engine.geo.geodata.GeoStructure;
+import org.l2j.gameserver.world.World;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Abstract graph for hierarchical path finding (HPA*).<br>
+ * <br>
+ * The geodata is split in square clusters. Every walkable span of cells crossing the border of two clusters becomes an entrance,
+ * with one node on each side, and the nodes of a cluster are linked by the walking cost between them.
+ * Long searches run over this graph and the result is refined into a real path by the local search.<br>
+ * <br>
+ * The graph of a region is built in background the first time a search touches it. Until then, searches through the region fail and the caller
+ * falls back to the local search. The built graphs are immutable, so any thread can search them.
+ *
+ * @author JoeAlisson
+ */
+public final class ClusterGraph {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterGraph.class);
+
+    public static final int CLUSTER_SIZE = 64;
+
+    private static final int REGION_CLUSTERS_X = GeoStructure.REGION_CELLS_X / CLUSTER_SIZE;
+    private static final int REGION_CLUSTERS_Y = GeoStructure.REGION_CELLS_Y / CLUSTER_SIZE;
+    private static final int REGION_CLUSTERS = REGION_CLUSTERS_X * REGION_CLUSTERS_Y;
+    private static final int MAX_EXPANSIONS = 20000;
+
+    private static final int NOT_REQUESTED = 0;
+    private static final int REQUESTED = 1;
+
+    private final AtomicReferenceArray<RegionGraph> graphs = new AtomicReferenceArray<>(GeoStructure.GEO_REGIONS_X * GeoStructure.GEO_REGIONS_Y);
+    private final AtomicIntegerArray requests = new AtomicIntegerArray(GeoStructure.GEO_REGIONS_X * GeoStructure.GEO_REGIONS_Y);
+    private final ThreadLocal<ClusterFlood> floods = ThreadLocal.withInitial(() -> new ClusterFlood(CLUSTER_SIZE));
+
+    private final LongAdder regionsBuilt = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder edges = new LongAdder();
+    private final LongAdder buildTime = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchesNotReady = new LongAdder();
+    private final LongAdder pathsFound = new LongAdder();
+    private final LongAdder searchTime = new LongAdder();
+
+    /**
+     * Searches the abstract path between two cells.
+     *
+     * @param gox : origin geo x
+     * @param goy : origin geo y
+     * @param goz : origin height
+     * @param gtx : target geo x
+     * @param gty : target geo y
+     * @param gtz : target height
+     * @return int[] : the waypoints, as geo x, geo y and height triples ending in the target, or {@code null} when no path is known
+     */
+    public int[] findPath(int gox, int goy, short goz, int gtx, int gty, short gtz) {
+        final RegionGraph originGraph = getGraph(gox, goy);
+        final RegionGraph targetGraph = getGraph(gtx, gty);
+        if (isNull(originGraph) || isNull(targetGraph)) {
+            searchesNotReady.increment();
+            return null;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            searches.increment();
+            final int[] path = search(originGraph, targetGraph, gox, goy, goz, gtx, gty, gtz);
+            if (nonNull(path)) {
+                pathsFound.increment();
+            }
+            return path;
+        } finally {
+            searchTime.add(System.nanoTime() - start);
+        }
+    }
+
+    private int[] search(RegionGraph originGraph, RegionGraph targetGraph, int gox, int goy, short goz, int gtx, int gty, short gtz) {
+        final ClusterFlood flood = floods.get();
+
+        // cost from the target to the entrances of its cluster
+        final int targetCluster = getClusterIndex(gtx, gty);
+        flood.flood(getClusterMinX(gtx), getClusterMinY(gty), gtx, gty, gtz);
+        final Map<Long, Integer> goals = new HashMap<>();
+        for (int i = targetGraph.clusterOffsets[targetCluster]; i < targetGraph.clusterOffsets[targetCluster + 1]; i++) {
+            final long key = targetGraph.keys[targetGraph.clusterNodes[i]];
+            final int cost = flood.getCost(getX(key), getY(key), getZ(key));
+            if (cost >= 0) {
+                goals.put(key, cost);
+            }
+        }
+
+        final PriorityQueue<SearchNode> open = new PriorityQueue<>();
+        final Map<Long, SearchNode> visited = new HashMap<>();
+
+        // cost from the origin to the entrances of its cluster
+        final int originCluster = getClusterIndex(gox, goy);
+        flood.flood(getClusterMinX(gox), getClusterMinY(goy), gox, goy, goz);
+        final int direct = flood.getCost(gtx, gty, gtz);
+        if (direct >= 0) {
+            open.add(new SearchNode(SearchNode.GOAL, direct, direct, null));
+        }
+        for (int i = originGraph.clusterOffsets[originCluster]; i < originGraph.clusterOffsets[originCluster + 1]; i++) {
+            final long key = originGraph.keys[originGraph.clusterNodes[i]];
+            final int cost = flood.getCost(getX(key), getY(key), getZ(key));
+            if (cost >= 0) {
+                final var node = new SearchNode(key, cost, cost + getCostH(key, gtx, gty), null);
+                visited.put(key, node);
+                open.add(node);
+            }
+        }
+
+        int expansions = 0;
+        while (!open.isEmpty() && (expansions++ < MAX_EXPANSIONS)) {
+            final SearchNode current = open.poll();
+            if (current.key == SearchNode.GOAL) {
+                return toWaypoints(current, gtx, gty, gtz);
+            }
+            if (current.closed) {
+                continue;
+            }
+            current.closed = true;
+
+            final Integer goalCost = goals.get(current.key);
+            if (nonNull(goalCost)) {
+                open.add(new SearchNode(SearchNode.GOAL, current.cost + goalCost, current.cost + goalCost, current));
+            }
+
+            final RegionGraph graph = getGraph(getX(current.key), getY(current.key));
+            if (isNull(graph)) {
+                continue;
+            }
+            final int index = Arrays.binarySearch(graph.keys, current.key);
+            if (index < 0) {
+                continue;
+            }
+
+            for (int edge = graph.edgeOffsets[index]; edge < graph.edgeOffsets[index + 1]; edge++) {
+                final long neighbor = graph.edgeTargets[edge];
+                final int cost = current.cost + graph.edgeCosts[edge];
+                final SearchNode known = visited.get(neighbor);
+                if (nonNull(known)) {
+                    if (known.closed || (known.cost <= cost)) {
+                        continue;
+                    }
+                    // reached cheaper, the old entry stays in the queue and is skipped as closed
+                    known.closed = true;
+                }
+                final var node = new SearchNode(neighbor, cost, cost + getCostH(neighbor, gtx, gty), current);
+                visited.put(neighbor, node);
+                open.add(node);
+            }
+        }
+        return null;
+    }
+
+    private static int[] toWaypoints(SearchNode goal, int gtx, int gty, short gtz) {
+        int count = 0;
+        for (var node = goal.parent; node != null; node = node.parent) {
+            count++;
+        }
+
+        final int[] waypoints = new int[(count + 1) * 3];
+        int index = count * 3;
+        waypoints[index] = gtx;
+        waypoints[index + 1] = gty;
+        waypoints[index + 2] = gtz;
+        for (var node = goal.parent; node != null; node = node.parent) {
+            index -= 3;
+            waypoints[index] = getX(node.key);
+            waypoints[index + 1] = getY(node.key);
+            waypoints[index + 2] = getZ(node.key);
+        }
+        return waypoints;
+    }
+
+    private static int getCostH(long key, int gtx, int gty) {
+        final int dx = getX(key) - gtx;
+        final int dy = getY(key) - gty;
+        return (int) (Math.sqrt((dx * dx) + (dy * dy)) * ClusterFlood.BASE_WEIGHT);
+    }
+
+    /**
+     * @return the graph of the region holding the cell, requesting its build when it does not exist yet
+     */
+    private RegionGraph getGraph(int geoX, int geoY) {
+        final int regionX = geoX / GeoStructure.REGION_CELLS_X;
+        final int regionY = geoY / GeoStructure.REGION_CELLS_Y;
+        if ((regionX < 0) || (regionX >= GeoStructure.GEO_REGIONS_X) || (regionY < 0) || (regionY >= GeoStructure.GEO_REGIONS_Y)) {
+            return null;
+        }
+
+        final int region = (regionX * GeoStructure.GEO_REGIONS_Y) + regionY;
+        final RegionGraph graph = graphs.get(region);
+        if (isNull(graph) && requests.compareAndSet(region, NOT_REQUESTED, REQUESTED)) {
+            ThreadPool.execute(() -> buildRegion(region, regionX, regionY));
+        }
+        return graph;
+    }
+
+    private void buildRegion(int region, int regionX, int regionY) {
+        final long start = System.currentTimeMillis();
+        RegionGraph graph;
+        try {
+            graph = new RegionBuilder(regionX, regionY).build();
+        } catch (Exception e) {
+            LOGGER.warn("Could not build path finding graph of region {}_{}", regionX + World.TILE_X_MIN, regionY + World.TILE_Y_MIN, e);
+            graph = RegionGraph.EMPTY;
+        }
+        graphs.set(region, graph);
+
+        final long time = System.currentTimeMillis() - start;
+        regionsBuilt.increment();
+        nodes.add(graph.keys.length);
+        edges.add(graph.edgeTargets.length);
+        buildTime.add(time);
+        LOGGER.debug("Built path finding graph of region {}_{} with {} nodes in {} ms", regionX + World.TILE_X_MIN, regionY + World.TILE_Y_MIN, graph.keys.length, time);
+    }
+
+    public CharSequence getStats() {
+        final long searchCount = searches.sum();
+        final long built = regionsBuilt.sum();
+        final StringBuilder stats = new StringBuilder();
+        stats.append("\tgraphRegions: ........ ").append(built).append('\n');
+        stats.append("\tgraphNodes: .......... ").append(nodes.sum()).append('\n');
+        stats.append("\tgraphEdges: .......... ").append(edges.sum()).append('\n');
+        stats.append("\tgraphBuildTime: ...... ").append(built > 0 ? buildTime.sum() / built : 0).append(" ms per region\n");
+        stats.append("\tgraphSearches: ....... ").append(searchCount).append('\n');
+        stats.append("\tgraphNotReady: ....... ").append(searchesNotReady.sum()).append('\n');
+        stats.append("\tgraphPathsFound: ..... ").append(pathsFound.sum()).append('\n');
+        stats.append("\tgraphSearchTime: ..... ").append(searchCount > 0 ? searchTime.sum() / searchCount / 1000 : 0).append(" us\n");
+        return stats;
+    }
+
+    private static int getClusterMinX(int geoX) {
+        return geoX - (geoX % CLUSTER_SIZE);
+    }
+
+    private static int getClusterMinY(int geoY) {
+        return geoY - (geoY % CLUSTER_SIZE);
+    }
+
+    private static int getClusterIndex(int geoX, int geoY) {
+        return (((geoX % GeoStructure.REGION_CELLS_X) / CLUSTER_SIZE) * REGION_CLUSTERS_Y) + ((geoY % GeoStructure.REGION_CELLS_Y) / CLUSTER_SIZE);
+    }
+
+    private static long getKey(int geoX, int geoY, int z) {
+        return ((long) geoX << 32) | ((long) (geoY & 0xFFFF) << 16) | (z & 0xFFFF);
+    }
+
+    private static int getX(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int getY(long key) {
+        return (int) ((key >>> 16) & 0xFFFF);
+    }
+
+    private static short getZ(long key) {
+        return (short) key;
+    }
+
+    /**
+     * Entrance nodes of one region, sorted by key, with their edges in compressed rows.
+     */
+    private static final class RegionGraph {
+        private static final RegionGraph EMPTY = new RegionGraph(new long[0], new int[1], new long[0], new int[0], new int[REGION_CLUSTERS + 1], new int[0]);
+
+        private final long[] keys;
+        private final int[] edgeOffsets;
+        private final long[] edgeTargets;
+        private final int[] edgeCosts;
+        private final int[] clusterOffsets;
+        private final int[] clusterNodes;
+
+        private RegionGraph(long[] keys, int[] edgeOffsets, long[] edgeTargets, int[] edgeCosts, int[] clusterOffsets, int[] clusterNodes) {
+            this.keys = keys;
+            this.edgeOffsets = edgeOffsets;
+            this.edgeTargets = edgeTargets;
+            this.edgeCosts = edgeCosts;
+            this.clusterOffsets = clusterOffsets;
+            this.clusterNodes = clusterNodes;
+        }
+    }
+
+    /**
+     * Finds the entrances of every cluster of a region and links them.<br>
+     * The entrances of a border only depend on the geodata, so the clusters on both sides of a region border agree on them without sharing any state.
+     */
+    private static final class RegionBuilder {
+        private final int minX;
+        private final int minY;
+        private final GeoEngine engine = GeoEngine.getInstance();
+        private final ClusterFlood flood = new ClusterFlood(CLUSTER_SIZE);
+        private final TreeMap<Long, BuilderNode> nodes = new TreeMap<>();
+        private final List<List<Long>> clusters = new ArrayList<>(REGION_CLUSTERS);
+
+        private RegionBuilder(int regionX, int regionY) {
+            minX = regionX * GeoStructure.REGION_CELLS_X;
+            minY = regionY * GeoStructure.REGION_CELLS_Y;
+        }
+
+        private RegionGraph build() {
+            if (!engine.hasGeoPos(minX, minY)) {
+                return RegionGraph.EMPTY;
+            }
+
+            for (int cx = 0; cx < REGION_CLUSTERS_X; cx++) {
+                for (int cy = 0; cy < REGION_CLUSTERS_Y; cy++) {
+                    clusters.add(buildCluster(minX + (cx * CLUSTER_SIZE), minY + (cy * CLUSTER_SIZE)));
+                }
+            }
+            return toGraph();
+        }
+
+        private List<Long> buildCluster(int clusterX, int clusterY) {
+            final Map<Long, BuilderNode> entrances = new HashMap<>();
+
+            // east and south borders, the cluster is on the first side
+            if ((clusterX + CLUSTER_SIZE) < GeoStructure.GEO_CELLS_X) {
+                addEntrances(entrances, scanBorder(true, (clusterX + CLUSTER_SIZE) - 1, clusterY), true);
+            }
+            if ((clusterY + CLUSTER_SIZE) < GeoStructure.GEO_CELLS_Y) {
+                addEntrances(entrances, scanBorder(false, (clusterY + CLUSTER_SIZE) - 1, clusterX), true);
+            }
+
+            // west and north borders, the cluster is on the second side
+            if (clusterX > 0) {
+                addEntrances(entrances, scanBorder(true, clusterX - 1, clusterY), false);
+            }
+            if (clusterY > 0) {
+                addEntrances(entrances, scanBorder(false, clusterY - 1, clusterX), false);
+            }
+
+            final List<Long> keys = new ArrayList<>(entrances.keySet());
+            for (var key : keys) {
+                final BuilderNode node = entrances.get(key);
+                flood.flood(clusterX, clusterY, getX(key), getY(key), getZ(key));
+                for (var other : keys) {
+                    if (!other.equals(key)) {
+                        final int cost = flood.getCost(getX(other), getY(other), getZ(other));
+                        if (cost >= 0) {
+                            node.addEdge(other, cost);
+                        }
+                    }
+                }
+                nodes.put(key, node);
+            }
+            return keys;
+        }
+
+        private void addEntrances(Map<Long, BuilderNode> entrances, List<int[]> border, boolean firstSide) {
+            for (int[] crossing : border) {
+                final int own = firstSide ? 0 : 3;
+                final int twin = firstSide ? 3 : 0;
+                final long key = getKey(crossing[own], crossing[own + 1], crossing[own + 2]);
+                entrances.computeIfAbsent(key, k -> new BuilderNode()).addEdge(getKey(crossing[twin], crossing[twin + 1], crossing[twin + 2]), ClusterFlood.BASE_WEIGHT);
+            }
+        }
+
+        /**
+         * Scans the border between the line of cells and the next one, walkable both ways.
+         *
+         * @param vertical : {@code true} when the border is between two columns, {@code false} when it is between two rows
+         * @param line : the column or row before the border
+         * @param from : the first cell along the border
+         * @return the middle crossing of every walkable span, as first cell and second cell triples of geo x, geo y and height
+         */
+        private List<int[]> scanBorder(boolean vertical, int line, int from) {
+            final byte forward = vertical ? GeoStructure.CELL_FLAG_E : GeoStructure.CELL_FLAG_S;
+            final byte backward = vertical ? GeoStructure.CELL_FLAG_W : GeoStructure.CELL_FLAG_N;
+
+            final List<List<int[]>> spans = new ArrayList<>();
+            for (int position = from; position < (from + CLUSTER_SIZE); position++) {
+                final int ax = vertical ? line : position;
+                final int ay = vertical ? position : line;
+                final int bx = vertical ? line + 1 : position;
+                final int by = vertical ? position : line + 1;
+
+                // every layer of the first cell, from top
+                short az = engine.getHeightBelow(ax, ay, Short.MAX_VALUE);
+                while (az != Short.MAX_VALUE) {
+                    final short bz = engine.getHeightNearest(bx, by, az);
+                    if (((engine.getNsweNearest(ax, ay, az) & forward) != 0) && (bz <= (az + (2 * GeoStructure.CELL_HEIGHT)))
+                            && ((engine.getNsweNearest(bx, by, bz) & backward) != 0) && (az <= (bz + (2 * GeoStructure.CELL_HEIGHT)))) {
+                        addToSpan(spans, new int[] { ax, ay, az, bx, by, bz, position });
+                    }
+                    az = engine.getHeightBelow(ax, ay, az);
+                }
+            }
+
+            final List<int[]> crossings = new ArrayList<>(spans.size());
+            for (var span : spans) {
+                crossings.add(span.get(span.size() / 2));
+            }
+            return crossings;
+        }
+
+        private static void addToSpan(List<List<int[]>> spans, int[] crossing) {
+            for (var span : spans) {
+                final int[] last = span.get(span.size() - 1);
+                if ((last[6] == (crossing[6] - 1)) && (Math.abs(last[2] - crossing[2]) <= (2 * GeoStructure.CELL_HEIGHT))) {
+                    span.add(crossing);
+                    return;
+                }
+            }
+            final List<int[]> span = new ArrayList<>();
+            span.add(crossing);
+            spans.add(span);
+        }
+
+        private RegionGraph toGraph() {
+            final long[] keys = new long[nodes.size()];
+            final int[] edgeOffsets = new int[keys.length + 1];
+            int edgeCount = 0;
+            int index = 0;
+            for (var entry : nodes.entrySet()) {
+                keys[index] = entry.getKey();
+                edgeOffsets[index++] = edgeCount;
+                edgeCount += entry.getValue().targets.size();
+            }
+            edgeOffsets[index] = edgeCount;
+
+            final long[] edgeTargets = new long[edgeCount];
+            final int[] edgeCosts = new int[edgeCount];
+            int edge = 0;
+            for (var node : nodes.values()) {
+                for (int i = 0; i < node.targets.size(); i++) {
+                    edgeTargets[edge] = node.targets.get(i);
+                    edgeCosts[edge++] = node.costs.get(i);
+                }
+            }
+
+            final int[] clusterOffsets = new int[REGION_CLUSTERS + 1];
+            final int[] clusterNodes = new int[keys.length];
+            int position = 0;
+            for (int cluster = 0; cluster < REGION_CLUSTERS; cluster++) {
+                clusterOffsets[cluster] = position;
+                for (var key : clusters.get(cluster)) {
+                    clusterNodes[position++] = Arrays.binarySearch(keys, key);
+                }
+            }
+            clusterOffsets[REGION_CLUSTERS] = position;
+            return new RegionGraph(keys, edgeOffsets, edgeTargets, edgeCosts, clusterOffsets, clusterNodes);
+        }
+    }
+
+    private static final class BuilderNode {
+        private final List<Long> targets = new ArrayList<>();
+        private final List<Integer> costs = new ArrayList<>();
+
+        private void addEdge(long target, int cost) {
+            targets.add(target);
+            costs.add(cost);
+        }
+    }
+
+    private static final class SearchNode implements Comparable<SearchNode> {
+        private static final long GOAL = -1;
+
+        private final long key;
+        private final int cost;
+        private final int estimation;
+        private final SearchNode parent;
+        private boolean closed;
+
+        private SearchNode(long key, int cost, int estimation, SearchNode parent) {
+            this.key = key;
+            this.cost = cost;
+            this.estimation = estimation;
+            this.parent = parent;
+        }
+
+        @Override
+        public int compareTo(SearchNode other) {
+            return Integer.compare(estimation, other.estimation);
+        }
+    }
+}
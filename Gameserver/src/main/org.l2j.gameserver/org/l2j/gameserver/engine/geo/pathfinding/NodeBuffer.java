@@ -18,269 +18,389 @@
  */
 package org.l2j.gameserver.engine.geo.pathfinding;
 
+import org.l2j.gameserver.engine.geo.GeoEngine;
 import org.l2j.gameserver.engine.geo.geodata.GeoStructure;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Arrays;
 
 /**
+ * Best first search over a square of geodata cells, centered between origin and target.<br>
+ * <br>
+ * The nodes are kept in primitive arrays indexed by cell and the open set is a binary heap of cell indexes,
+ * ordered by cost and then by opening order, so nodes with the same cost are expanded first in first out.
+ * Instead of clearing the arrays after a search, every search has its own generation and a cell is only valid when stamped with the current one.
+ * The buffer is reused by its owner thread and is not thread safe.
+ *
  * @author DS, Hasha; Credits to Diamond
  * @author JoeAlisson
  */
 public class NodeBuffer {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(NodeBuffer.class);
-
     private static final int BASE_WEIGHT = 10;
     private static final int DIAGONAL_WEIGHT = 14;
     private static final int HEURISTIC_WEIGHT = 20;
     private static final int OBSTACLE_MULTIPLIER = 10;
     private static final int MAX_ITERATIONS = 3500;
 
-    private final ReentrantLock _lock = new ReentrantLock();
-    private final int _size;
-    private final Node[][] _buffer;
-
-    // center coordinates
-    private int _cx = 0;
-    private int _cy = 0;
+    private static final int NOT_OPENED = -1;
+    private static final int CLOSED = -2;
+    private static final int NO_PARENT = -1;
+
+    private final int capacity;
+    private final int[] generations;
+    private final short[] heights;
+    private final byte[] nswes;
+    private final double[] costs;
+    private final int[] openings;
+    private final int[] parents;
+    private final int[] heapPositions;
+    private final int[] heap;
+    private int heapSize;
+    private int generation;
+    private int opened;
+
+    // search square size and origin coordinates
+    private int size;
+    private int cx;
+    private int cy;
 
     // target coordinates
-    private int _gtx = 0;
-    private int _gty = 0;
-    private short _gtz = 0;
+    private int gtx;
+    private int gty;
+    private short gtz;
 
-    private Node _current = null;
+    // path points, as geo x, geo y and z triples
+    private int[] path = new int[3 * 32];
+    private int pathLength;
 
     /**
      * Constructor of NodeBuffer.
      *
-     * @param size : one dimension size of buffer
+     * @param capacity : one dimension size of the biggest search square
      */
-    public NodeBuffer(int size) {
-        // set size
-        _size = size;
-
-        // initialize buffer
-        _buffer = new Node[size][size];
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                _buffer[x][y] = new Node();
-            }
-        }
+    public NodeBuffer(int capacity) {
+        this.capacity = capacity;
+        final int cells = capacity * capacity;
+        generations = new int[cells];
+        heights = new short[cells];
+        nswes = new byte[cells];
+        costs = new double[cells];
+        openings = new int[cells];
+        parents = new int[cells];
+        heapPositions = new int[cells];
+        heap = new int[cells];
+    }
+
+    public int capacity() {
+        return capacity;
     }
 
     /**
-     * Find path consisting of Nodes. Starts at origin coordinates, ends in target coordinates.
+     * Find path consisting of the points where the direction changes. Starts at origin coordinates, ends in target coordinates.
      *
+     * @param size : one dimension size of the search square, not bigger than the capacity
      * @param gox : origin point x
      * @param goy : origin point y
      * @param goz : origin point z
      * @param gtx : target point x
      * @param gty : target point y
      * @param gtz : target point z
-     * @return Node : first node of path
+     * @return int : amount of path points, or -1 when no path is found
      */
-    public final Node findPath(int gox, int goy, short goz, int gtx, int gty, short gtz) {
+    public final int findPath(int size, int gox, int goy, short goz, int gtx, int gty, short gtz) {
+        nextGeneration();
+        this.size = size;
 
         // set coordinates (middle of the line (gox,goy) - (gtx,gty), will be in the center of the buffer)
-        _cx = gox + ((gtx - gox - _size) / 2);
-        _cy = goy + ((gty - goy - _size) / 2);
+        cx = gox + ((gtx - gox - size) / 2);
+        cy = goy + ((gty - goy - size) / 2);
 
-        _gtx = gtx;
-        _gty = gty;
-        _gtz = gtz;
+        this.gtx = gtx;
+        this.gty = gty;
+        this.gtz = gtz;
 
-        _current = getNode(gox, goy, goz);
-        _current.setCost(getCostH(gox, goy, goz));
+        final int origin = getNode(gox, goy, goz);
+        if (origin < 0) {
+            return -1;
+        }
+        costs[origin] = getCostH(gox, goy, heights[origin]);
+        push(origin);
 
         int count = 0;
-        do {
+        while ((heapSize > 0) && (count++ < MAX_ITERATIONS)) {
+            final int current = pop();
+            final int x = cx + (current / size);
+            final int y = cy + (current % size);
+            final short z = heights[current];
+
             // reached target?
-            if ((_current.getLoc().getGeoX() == _gtx) && (_current.getLoc().getGeoY() == _gty) && (Math.abs(_current.getLoc().getZ() - _gtz) < 8)) {
-                return _current;
+            if ((x == gtx) && (y == gty) && (Math.abs(z - gtz) < 8)) {
+                return constructPath(current);
             }
 
-            // expand current node
-            expand();
-
-            // move pointer
-            _current = _current.getChild();
+            expand(current, x, y, z);
         }
-        while ((_current != null) && (++count < MAX_ITERATIONS));
+        return -1;
+    }
 
-        return null;
+    public int getPathX(int point) {
+        return path[point * 3];
     }
 
-    public final boolean isLocked() {
-        return _lock.tryLock();
+    public int getPathY(int point) {
+        return path[(point * 3) + 1];
     }
 
-    public final void free() {
-        _current = null;
+    public short getPathZ(int point) {
+        return (short) path[(point * 3) + 2];
+    }
+
+    private void nextGeneration() {
+        heapSize = 0;
+        pathLength = 0;
+        opened = 0;
+        if (++generation == 0) {
+            // stamps wrapped around, the old ones could be taken as current
+            Arrays.fill(generations, 0);
+            generation = 1;
+        }
+    }
 
-        for (Node[] nodes : _buffer) {
-            for (Node node : nodes) {
-                if (node.getLoc() != null) {
-                    node.free();
-                }
+    /**
+     * Stores the points where the direction changes, from the first one after the origin to the target.
+     */
+    private int constructPath(int target) {
+        int dx = 0;
+        int dy = 0;
+        int parent = parents[target];
+        while (parent != NO_PARENT) {
+            final int nx = (parent / size) - (target / size);
+            final int ny = (parent % size) - (target % size);
+
+            // direction has changed?
+            if ((dx != nx) || (dy != ny)) {
+                addPathPoint(target);
+                dx = nx;
+                dy = ny;
             }
+            target = parent;
+            parent = parents[target];
+        }
+
+        // the points were added from the target back to the origin
+        for (int i = 0, j = pathLength - 1; i < j; i++, j--) {
+            swapPathPoints(i, j);
+        }
+        return pathLength;
+    }
+
+    private void addPathPoint(int node) {
+        if ((pathLength * 3) == path.length) {
+            path = Arrays.copyOf(path, path.length * 2);
         }
+        final int index = pathLength++ * 3;
+        path[index] = cx + (node / size);
+        path[index + 1] = cy + (node % size);
+        path[index + 2] = heights[node];
+    }
 
-        _lock.unlock();
+    private void swapPathPoints(int i, int j) {
+        for (int k = 0; k < 3; k++) {
+            final int temp = path[(i * 3) + k];
+            path[(i * 3) + k] = path[(j * 3) + k];
+            path[(j * 3) + k] = temp;
+        }
     }
 
     /**
-     * Check _current Node and add its neighbors to the buffer.
+     * Check current node and add its neighbors to the open set.
      */
-    private final void expand() {
+    private void expand(int current, int x, int y, short z) {
+        heapPositions[current] = CLOSED;
+
         // can't move anywhere, don't expand
-        byte nswe = _current.getLoc().getNSWE();
+        final byte nswe = nswes[current];
         if (nswe == 0) {
             return;
         }
 
-        // get geo coords of the node to be expanded
-        final int x = _current.getLoc().getGeoX();
-        final int y = _current.getLoc().getGeoY();
-        final short z = (short) _current.getLoc().getZ();
-
         // can move north, expand
         if ((nswe & GeoStructure.CELL_FLAG_N) != 0) {
-            addNode(x, y - 1, z, BASE_WEIGHT);
+            addNode(current, x, y - 1, z, BASE_WEIGHT);
         }
 
         // can move south, expand
         if ((nswe & GeoStructure.CELL_FLAG_S) != 0) {
-            addNode(x, y + 1, z, BASE_WEIGHT);
+            addNode(current, x, y + 1, z, BASE_WEIGHT);
         }
 
         // can move west, expand
         if ((nswe & GeoStructure.CELL_FLAG_W) != 0) {
-            addNode(x - 1, y, z, BASE_WEIGHT);
+            addNode(current, x - 1, y, z, BASE_WEIGHT);
         }
 
         // can move east, expand
         if ((nswe & GeoStructure.CELL_FLAG_E) != 0) {
-            addNode(x + 1, y, z, BASE_WEIGHT);
+            addNode(current, x + 1, y, z, BASE_WEIGHT);
         }
 
         // can move north-west, expand
         if ((nswe & GeoStructure.CELL_FLAG_NW) != 0) {
-            addNode(x - 1, y - 1, z, DIAGONAL_WEIGHT);
+            addNode(current, x - 1, y - 1, z, DIAGONAL_WEIGHT);
         }
 
         // can move north-east, expand
         if ((nswe & GeoStructure.CELL_FLAG_NE) != 0) {
-            addNode(x + 1, y - 1, z, DIAGONAL_WEIGHT);
+            addNode(current, x + 1, y - 1, z, DIAGONAL_WEIGHT);
         }
 
         // can move south-west, expand
         if ((nswe & GeoStructure.CELL_FLAG_SW) != 0) {
-            addNode(x - 1, y + 1, z, DIAGONAL_WEIGHT);
+            addNode(current, x - 1, y + 1, z, DIAGONAL_WEIGHT);
         }
 
         // can move south-east, expand
         if ((nswe & GeoStructure.CELL_FLAG_SE) != 0) {
-            addNode(x + 1, y + 1, z, DIAGONAL_WEIGHT);
+            addNode(current, x + 1, y + 1, z, DIAGONAL_WEIGHT);
         }
     }
 
     /**
-     * Returns node, if it exists in buffer.
+     * Returns the node index, initializing the node when it was not touched by the current search.
      *
      * @param x : node X coord
      * @param y : node Y coord
-     * @param z : node Z coord
-     * @return Node : node, if exits in buffer
+     * @param z : Z coord of the node reaching it
+     * @return int : node index, -1 if it is out of the search square
      */
-    private final Node getNode(int x, int y, short z) {
+    private int getNode(int x, int y, short z) {
         // check node X out of coordinates
-        final int ix = x - _cx;
-        if ((ix < 0) || (ix >= _size)) {
-            return null;
+        final int ix = x - cx;
+        if ((ix < 0) || (ix >= size)) {
+            return -1;
         }
 
         // check node Y out of coordinates
-        final int iy = y - _cy;
-        if ((iy < 0) || (iy >= _size)) {
-            return null;
+        final int iy = y - cy;
+        if ((iy < 0) || (iy >= size)) {
+            return -1;
         }
 
-        // get node
-        Node result = _buffer[ix][iy];
-
-        // check and update
-        if (result.getLoc() == null) {
-            result.setLoc(x, y, z);
+        final int node = (ix * size) + iy;
+        if (generations[node] != generation) {
+            final var engine = GeoEngine.getInstance();
+            generations[node] = generation;
+            heights[node] = engine.getHeightNearest(x, y, z);
+            nswes[node] = engine.getNsweNearest(x, y, z);
+            parents[node] = NO_PARENT;
+            heapPositions[node] = NOT_OPENED;
         }
-
-        // return node
-        return result;
+        return node;
     }
 
     /**
-     * Add node given by coordinates to the buffer.
+     * Opens the node given by coordinates, when it was not opened yet.
      *
+     * @param current : the node being expanded
      * @param x      : geo X coord
      * @param y      : geo Y coord
      * @param z      : geo Z coord
      * @param weight : weight of movement to new node
      */
-    private final void addNode(int x, int y, short z, int weight) {
-        // get node to be expanded
-        Node node = getNode(x, y, z);
-        if (node == null) {
+    private void addNode(int current, int x, int y, short z, int weight) {
+        final int node = getNode(x, y, z);
+        if (node < 0) {
             return;
         }
 
         // Z distance between nearby cells is higher than cell size
-        if (node.getLoc().getZ() > (z + (2 * GeoStructure.CELL_HEIGHT))) {
+        if (heights[node] > (z + (2 * GeoStructure.CELL_HEIGHT))) {
             return;
         }
 
-        // node was already expanded, return
-        if (node.getCost() >= 0) {
+        // node was already opened or expanded, return
+        if (heapPositions[node] != NOT_OPENED) {
             return;
         }
 
-        node.setParent(_current);
-        if (node.getLoc().getNSWE() != (byte) 0xFF) {
-            node.setCost(getCostH(x, y, node.getLoc().getZ()) + (weight * OBSTACLE_MULTIPLIER));
+        parents[node] = current;
+        if (nswes[node] != (byte) 0xFF) {
+            costs[node] = getCostH(x, y, heights[node]) + (weight * OBSTACLE_MULTIPLIER);
         } else {
-            node.setCost(getCostH(x, y, node.getLoc().getZ()) + weight);
-        }
-
-        Node current = _current;
-        int count = 0;
-        while ((current.getChild() != null) && (count < (MAX_ITERATIONS * 4))) {
-            count++;
-            if (current.getChild().getCost() > node.getCost()) {
-                node.setChild(current.getChild());
-                break;
-            }
-            current = current.getChild();
-        }
-
-        if (count >= (MAX_ITERATIONS * 4)) {
-            LOGGER.warn("Too long loop detected, cost: {}", node.getCost());
+            costs[node] = getCostH(x, y, heights[node]) + weight;
         }
-
-        current.setChild(node);
+        push(node);
     }
 
     /**
      * @param x : node X coord
      * @param y : node Y coord
-     * @param i : node Z coord
+     * @param z : node Z coord
      * @return double : node cost
      */
-    private final double getCostH(int x, int y, int i) {
-        final int dX = x - _gtx;
-        final int dY = y - _gty;
-        final int dZ = (i - _gtz) / GeoStructure.CELL_HEIGHT;
+    private double getCostH(int x, int y, int z) {
+        final int dX = x - gtx;
+        final int dY = y - gty;
+        final int dZ = (z - gtz) / GeoStructure.CELL_HEIGHT;
 
         return Math.sqrt((dX * dX) + (dY * dY) + (dZ * dZ)) * HEURISTIC_WEIGHT; // Direct distance
     }
-}
\ No newline at end of file
+
+    private boolean isBefore(int node, int other) {
+        return (costs[node] < costs[other]) || ((costs[node] == costs[other]) && (openings[node] < openings[other]));
+    }
+
+    private void push(int node) {
+        openings[node] = opened++;
+        heap[heapSize] = node;
+        heapPositions[node] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int pop() {
+        final int node = heap[0];
+        final int last = heap[--heapSize];
+        if (heapSize > 0) {
+            heap[0] = last;
+            heapPositions[last] = 0;
+            siftDown(0);
+        }
+        return node;
+    }
+
+    private void siftUp(int position) {
+        final int node = heap[position];
+        while (position > 0) {
+            final int parentPosition = (position - 1) >>> 1;
+            final int parent = heap[parentPosition];
+            if (!isBefore(node, parent)) {
+                break;
+            }
+            heap[position] = parent;
+            heapPositions[parent] = position;
+            position = parentPosition;
+        }
+        heap[position] = node;
+        heapPositions[node] = position;
+    }
+
+    private void siftDown(int position) {
+        final int node = heap[position];
+        final int half = heapSize >>> 1;
+        while (position < half) {
+            int child = (position << 1) + 1;
+            final int right = child + 1;
+            if ((right < heapSize) && isBefore(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!isBefore(heap[child], node)) {
+                break;
+            }
+            heap[position] = heap[child];
+            heapPositions[heap[child]] = position;
+            position = child;
+        }
+        heap[position] = node;
+        heapPositions[node] = position;
+    }
+}
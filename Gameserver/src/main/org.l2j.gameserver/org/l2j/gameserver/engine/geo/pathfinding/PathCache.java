@@ -0,0 +1,337 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.engine.geo.pathfinding;
+
+import org.l2j.gameserver.model.Location;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Bounded cache of path finding results, keyed by origin cell, target cell and instance.<br>
+ * <br>
+ * Entries are evicted by least recent use when the cache is full and expire after a fixed time to live.
+ * Every entry remembers the geodata square its search covered, so a door or fence changing inside that square drops it.
+ * Searches that found no path are cached as well, since monsters keep asking for the same unreachable targets,
+ * but the searches that did not finish, for lack of a buffer or an error, must not be stored.<br>
+ * <br>
+ * The entries are spread over stripes, each one with its own lock and its own share of the capacity,
+ * and indexed by the areas their square covers, so an invalidation only visits the entries of the changed area.
+ *
+ * @author JoeAlisson
+ */
+public final class PathCache {
+
+    private static final int[] NO_PATH = new int[0];
+    private static final int STRIPES = 16;
+    private static final int AREA_SHIFT = 8;
+
+    private final int capacity;
+    private final long timeToLive;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<Long, Set<PathKey>> areas = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param capacity : the maximum amount of cached paths
+     * @param timeToLive : time in milliseconds a path stays valid
+     */
+    public PathCache(int capacity, long timeToLive) {
+        this.capacity = capacity;
+        this.timeToLive = timeToLive;
+        final int stripeCapacity = Math.max(1, (capacity + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    /**
+     * @param key : the search key
+     * @return the cached path as a new list, an empty list when it is known there is no path or {@code null} when nothing is cached
+     */
+    public List<Location> get(PathKey key) {
+        final var stripe = stripeOf(key);
+        final CachedPath cached;
+        synchronized (stripe) {
+            cached = stripe.get(key);
+            if (isNull(cached)) {
+                misses.increment();
+                return null;
+            }
+
+            if (cached.expiration < System.currentTimeMillis()) {
+                stripe.remove(key);
+                unindex(key, cached);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+        }
+        hits.increment();
+        return cached.toLocations();
+    }
+
+    /**
+     * Stores the result of a search.
+     *
+     * @param key : the search key
+     * @param path : the path found or {@code null} when there is no path
+     * @param minX : lowest geo x of the search square
+     * @param minY : lowest geo y of the search square
+     * @param size : one dimension size of the search square
+     */
+    public void put(PathKey key, List<Location> path, int minX, int minY, int size) {
+        put(key, path, minX, minY, minX + size - 1, minY + size - 1);
+    }
+
+    /**
+     * Stores the result of a search.
+     *
+     * @param key : the search key
+     * @param path : the path found or {@code null} when there is no path
+     * @param minX : lowest geo x the search depends on
+     * @param minY : lowest geo y the search depends on
+     * @param maxX : highest geo x the search depends on
+     * @param maxY : highest geo y the search depends on
+     */
+    public void put(PathKey key, List<Location> path, int minX, int minY, int maxX, int maxY) {
+        final var cached = new CachedPath(path, minX, minY, maxX, maxY, System.currentTimeMillis() + timeToLive);
+        final var stripe = stripeOf(key);
+        synchronized (stripe) {
+            final var replaced = stripe.put(key, cached);
+            if (nonNull(replaced)) {
+                unindex(key, replaced);
+            }
+            index(key, cached);
+        }
+    }
+
+    /**
+     * Drops every path of the instance whose search square intersects the given geo area.
+     *
+     * @param instanceId : the instance of the changed object
+     * @param minX : lowest geo x of the changed area
+     * @param minY : lowest geo y of the changed area
+     * @param maxX : highest geo x of the changed area
+     * @param maxY : highest geo y of the changed area
+     */
+    public void invalidate(int instanceId, int minX, int minY, int maxX, int maxY) {
+        for (int x = minX >> AREA_SHIFT; x <= maxX >> AREA_SHIFT; x++) {
+            for (int y = minY >> AREA_SHIFT; y <= maxY >> AREA_SHIFT; y++) {
+                final var keys = areas.get(areaKey(instanceId, x, y));
+                if (isNull(keys)) {
+                    continue;
+                }
+
+                for (PathKey key : keys.toArray(PathKey[]::new)) {
+                    final var stripe = stripeOf(key);
+                    synchronized (stripe) {
+                        final var cached = stripe.get(key);
+                        if (nonNull(cached) && cached.intersects(minX, minY, maxX, maxY)) {
+                            stripe.remove(key);
+                            unindex(key, cached);
+                            invalidations.increment();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.forEach((key, cached) -> unindex(key, cached));
+                stripe.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeOf(PathKey key) {
+        final int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private void index(PathKey key, CachedPath cached) {
+        for (int x = cached.minX >> AREA_SHIFT; x <= cached.maxX >> AREA_SHIFT; x++) {
+            for (int y = cached.minY >> AREA_SHIFT; y <= cached.maxY >> AREA_SHIFT; y++) {
+                areas.compute(areaKey(key.instanceId, x, y), (area, keys) -> {
+                    if (isNull(keys)) {
+                        keys = ConcurrentHashMap.newKeySet();
+                    }
+                    keys.add(key);
+                    return keys;
+                });
+            }
+        }
+    }
+
+    private void unindex(PathKey key, CachedPath cached) {
+        for (int x = cached.minX >> AREA_SHIFT; x <= cached.maxX >> AREA_SHIFT; x++) {
+            for (int y = cached.minY >> AREA_SHIFT; y <= cached.maxY >> AREA_SHIFT; y++) {
+                areas.computeIfPresent(areaKey(key.instanceId, x, y), (area, keys) -> {
+                    keys.remove(key);
+                    return keys.isEmpty() ? null : keys;
+                });
+            }
+        }
+    }
+
+    private static long areaKey(int instanceId, int areaX, int areaY) {
+        return ((long) instanceId << 32) | ((long) (areaX & 0xFFFF) << 16) | (areaY & 0xFFFF);
+    }
+
+    public CharSequence getStats() {
+        final long hitCount = hits.sum();
+        final long requests = hitCount + misses.sum();
+        final StringBuilder stats = new StringBuilder();
+        stats.append("\tcacheSize: ........... ").append(size()).append('/').append(capacity).append('\n');
+        stats.append("\tcacheHits: ........... ").append(hitCount).append('\n');
+        stats.append("\tcacheMisses: ......... ").append(requests - hitCount).append('\n');
+        stats.append("\tcacheHitRatio: ....... ").append(requests > 0 ? (hitCount * 100 / requests) : 0).append(" %\n");
+        stats.append("\tcacheEvictions: ...... ").append(evictions.sum()).append('\n');
+        stats.append("\tcacheExpirations: .... ").append(expirations.sum()).append('\n');
+        stats.append("\tcacheInvalidations: .. ").append(invalidations.sum()).append('\n');
+        return stats;
+    }
+
+    /**
+     * Identifies a search by its origin and target cells, including the layer height, and the instance it runs on.
+     */
+    public static final class PathKey {
+        private final long origin;
+        private final long target;
+        private final int instanceId;
+
+        public PathKey(int gox, int goy, short goz, int gtx, int gty, short gtz, int instanceId) {
+            origin = cell(gox, goy, goz);
+            target = cell(gtx, gty, gtz);
+            this.instanceId = instanceId;
+        }
+
+        private static long cell(int geoX, int geoY, short geoZ) {
+            return ((long) geoX << 40) | ((long) (geoY & 0xFFFFFF) << 16) | (geoZ & 0xFFFF);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PathKey)) {
+                return false;
+            }
+            final var other = (PathKey) o;
+            return origin == other.origin && target == other.target && instanceId == other.instanceId;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Long.hashCode(origin);
+            result = 31 * result + Long.hashCode(target);
+            return 31 * result + instanceId;
+        }
+    }
+
+    /**
+     * A share of the cache, evicting its least recently used entry when full. Guarded by its own monitor.
+     */
+    private final class Stripe extends LinkedHashMap<PathKey, CachedPath> {
+        private final int stripeCapacity;
+
+        private Stripe(int stripeCapacity) {
+            super(stripeCapacity, 0.75f, true);
+            this.stripeCapacity = stripeCapacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PathKey, CachedPath> eldest) {
+            if (size() > stripeCapacity) {
+                unindex(eldest.getKey(), eldest.getValue());
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class CachedPath {
+        // path points, as world x, world y and z triples
+        private final int[] points;
+        private final int minX;
+        private final int minY;
+        private final int maxX;
+        private final int maxY;
+        private final long expiration;
+
+        private CachedPath(List<Location> path, int minX, int minY, int maxX, int maxY, long expiration) {
+            if (isNull(path)) {
+                points = NO_PATH;
+            } else {
+                points = new int[path.size() * 3];
+                int i = 0;
+                for (var location : path) {
+                    points[i++] = location.getX();
+                    points[i++] = location.getY();
+                    points[i++] = location.getZ();
+                }
+            }
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.expiration = expiration;
+        }
+
+        private boolean intersects(int minX, int minY, int maxX, int maxY) {
+            return minX <= this.maxX && maxX >= this.minX && minY <= this.maxY && maxY >= this.minY;
+        }
+
+        private List<Location> toLocations() {
+            final List<Location> path = new ArrayList<>(points.length / 3);
+            for (int i = 0; i < points.length; i += 3) {
+                path.add(new Location(points[i], points[i + 1], points[i + 2]));
+            }
+            return path;
+        }
+    }
+}
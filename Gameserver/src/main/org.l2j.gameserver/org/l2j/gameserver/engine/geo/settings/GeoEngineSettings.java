@@ -20,6 +20,7 @@ package org.l2j.gameserver.engine.geo.settings;
 
 import org.l2j.commons.configuration.Settings;
 import org.l2j.commons.configuration.SettingsFile;
+import org.l2j.gameserver.engine.geo.GeoStorage;
 import org.l2j.gameserver.engine.geo.SyncMode;
 
 /**
@@ -29,11 +30,35 @@ public class GeoEngineSettings implements Settings {
 
     private SyncMode syncMode;
     private boolean enabledPathFinding;
+    private GeoStorage storage;
+    private int pathCacheSize;
+    private long pathCacheTimeToLive;
+    private boolean hierarchicalPathFinding;
 
     @Override
     public void load(SettingsFile settingsFile) {
         syncMode = settingsFile.getEnum("SyncMode", SyncMode.class, SyncMode.Z_ONLY);
         enabledPathFinding = settingsFile.getBoolean("EnablePathFinding", true);
+        storage = settingsFile.getEnum("GeodataStorage", GeoStorage.class, GeoStorage.HEAP);
+        pathCacheSize = settingsFile.getInteger("PathCacheSize", 4096);
+        pathCacheTimeToLive = settingsFile.getLong("PathCacheTimeToLive", 30000);
+        hierarchicalPathFinding = settingsFile.getBoolean("HierarchicalPathFinding", true);
+    }
+
+    public GeoStorage storage() {
+        return storage;
+    }
+
+    public int pathCacheSize() {
+        return pathCacheSize;
+    }
+
+    public long pathCacheTimeToLive() {
+        return pathCacheTimeToLive;
+    }
+
+    public boolean isHierarchicalPathFinding() {
+        return hierarchicalPathFinding;
     }
 
     public boolean isEnabledPathFinding() {
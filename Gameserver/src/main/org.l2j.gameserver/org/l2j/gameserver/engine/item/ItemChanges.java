@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.engine.item;
+
+import org.l2j.gameserver.enums.ItemLocation;
+import org.l2j.gameserver.model.item.enchant.attribute.AttributeHolder;
+import org.l2j.gameserver.model.item.instance.Item;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Snapshot of the item rows to be written by one flush of the {@link ItemPersistenceEngine}.<br>
+ * <br>
+ * The items fill it with their state when the flush starts, then all rows are written in JDBC batches in a single transaction:
+ * deletes first, so an object id released by a deleted item can be inserted again by a new item on the same flush.
+ *
+ * @author JoeAlisson
+ */
+public final class ItemChanges {
+
+    private static final String DELETE_ITEM = "DELETE FROM items WHERE object_id = ?";
+    private static final String DELETE_VARIATION = "DELETE FROM item_variations WHERE itemId = ?";
+    private static final String DELETE_ATTRIBUTES = "DELETE FROM item_elementals WHERE itemId = ?";
+    private static final String DELETE_SPECIAL_ABILITIES = "DELETE FROM item_special_abilities WHERE objectId = ?";
+    private static final String INSERT_ITEM = "INSERT INTO items (owner_id,item_id,count,loc,loc_data,enchant_level,object_id,time) VALUES (?,?,?,?,?,?,?,?)";
+    private static final String UPDATE_ITEM = "UPDATE items SET owner_id=?,count=?,loc=?,loc_data=?,enchant_level=?,time=? WHERE object_id = ?";
+    private static final String REPLACE_VARIATION = "REPLACE INTO item_variations VALUES(?,?,?,?)";
+    private static final String INSERT_ATTRIBUTE = "INSERT INTO item_elementals VALUES(?,?,?)";
+    private static final String UPSERT_SPECIAL_ABILITY = "INSERT INTO item_special_abilities (`objectId`, `type`, `optionId`, `position`) VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE type = ?, optionId = ?, position = ?";
+
+    private final List<Item> items = new ArrayList<>();
+    private final List<Boolean> existedInDb = new ArrayList<>();
+
+    private final List<Integer> deletes = new ArrayList<>();
+    private final List<Object[]> inserts = new ArrayList<>();
+    private final List<Object[]> updates = new ArrayList<>();
+    private final List<int[]> variations = new ArrayList<>();
+    private final List<Integer> attributeOwners = new ArrayList<>();
+    private final List<int[]> attributes = new ArrayList<>();
+    private final List<int[]> specialAbilities = new ArrayList<>();
+
+    ItemChanges() {
+    }
+
+    /**
+     * Remembers the item written by this flush and whether it had a row before, so it can be queued again when the flush fails.
+     */
+    public void track(Item item, boolean existedInDb) {
+        items.add(item);
+        this.existedInDb.add(existedInDb);
+    }
+
+    public void deleteItem(int objectId) {
+        deletes.add(objectId);
+    }
+
+    public void insertItem(int ownerId, int itemId, long count, ItemLocation loc, int locData, int enchantLevel, int objectId, long time) {
+        inserts.add(new Object[] { ownerId, itemId, count, loc.name(), locData, enchantLevel, objectId, time });
+    }
+
+    public void updateItem(int ownerId, long count, ItemLocation loc, int locData, int enchantLevel, long time, int objectId) {
+        updates.add(new Object[] { ownerId, count, loc.name(), locData, enchantLevel, time, objectId });
+    }
+
+    public void replaceVariation(int objectId, int mineralId, int option1, int option2) {
+        variations.add(new int[] { objectId, mineralId, option1, option2 });
+    }
+
+    public void replaceAttributes(int objectId, Collection<AttributeHolder> holders) {
+        attributeOwners.add(objectId);
+        for (AttributeHolder attribute : holders) {
+            attributes.add(new int[] { objectId, attribute.getType().getClientId(), attribute.getValue() });
+        }
+    }
+
+    public void upsertSpecialAbility(int objectId, int type, int optionId, int position) {
+        specialAbilities.add(new int[] { objectId, type, optionId, position });
+    }
+
+    boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    List<Item> getItems() {
+        return items;
+    }
+
+    boolean existedInDb(int index) {
+        return existedInDb.get(index);
+    }
+
+    /**
+     * Writes all rows using the connection, which must not be in auto commit mode.
+     *
+     * @return the amount of statements sent
+     */
+    int write(Connection con) throws SQLException {
+        int statements = 0;
+        statements += executeIds(con, DELETE_ITEM, deletes);
+        statements += executeIds(con, DELETE_VARIATION, deletes);
+        statements += executeIds(con, DELETE_ATTRIBUTES, deletes);
+        statements += executeIds(con, DELETE_SPECIAL_ABILITIES, deletes);
+        statements += executeRows(con, INSERT_ITEM, inserts);
+        statements += executeRows(con, UPDATE_ITEM, updates);
+
+        if (!variations.isEmpty()) {
+            try (PreparedStatement ps = con.prepareStatement(REPLACE_VARIATION)) {
+                for (int[] variation : variations) {
+                    for (int i = 0; i < variation.length; i++) {
+                        ps.setInt(i + 1, variation[i]);
+                    }
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            statements += variations.size();
+        }
+
+        statements += executeIds(con, DELETE_ATTRIBUTES, attributeOwners);
+        if (!attributes.isEmpty()) {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_ATTRIBUTE)) {
+                for (int[] attribute : attributes) {
+                    ps.setInt(1, attribute[0]);
+                    ps.setByte(2, (byte) attribute[1]);
+                    ps.setInt(3, attribute[2]);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            statements += attributes.size();
+        }
+
+        if (!specialAbilities.isEmpty()) {
+            try (PreparedStatement ps = con.prepareStatement(UPSERT_SPECIAL_ABILITY)) {
+                for (int[] ability : specialAbilities) {
+                    ps.setInt(1, ability[0]);
+                    ps.setInt(2, ability[1]);
+                    ps.setInt(3, ability[2]);
+                    ps.setInt(4, ability[3]);
+                    ps.setInt(5, ability[1]);
+                    ps.setInt(6, ability[2]);
+                    ps.setInt(7, ability[3]);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            statements += specialAbilities.size();
+        }
+        return statements;
+    }
+
+    private static int executeIds(Connection con, String query, List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        try (PreparedStatement ps = con.prepareStatement(query)) {
+            for (int id : ids) {
+                ps.setInt(1, id);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        return ids.size();
+    }
+
+    private static int executeRows(Connection con, String query, List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        try (PreparedStatement ps = con.prepareStatement(query)) {
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    ps.setObject(i + 1, row[i]);
+                }
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        return rows.size();
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.engine.item;
+
+import org.l2j.commons.database.DatabaseFactory;
+import org.l2j.commons.metrics.Counter;
+import org.l2j.commons.metrics.MetricsRegistry;
+import org.l2j.commons.metrics.Timer;
+import org.l2j.commons.threading.ExecutorGroup;
+import org.l2j.commons.threading.ThreadPool;
+import org.l2j.gameserver.model.item.instance.Item;
+import org.l2j.gameserver.settings.GeneralSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.l2j.commons.configuration.Configurator.getSettings;
+
+/**
+ * Write-behind queue of the item database updates.<br>
+ * <br>
+ * An item is queued once no matter how many times it changes, and its state is only read when the queue is flushed, so the last state wins.
+ * The queue is flushed periodically on the persistence executor, writing every pending item in JDBC batches in a single transaction.
+ * When a flush fails the items are queued again and retried on the next flush.<br>
+ * <br>
+ * Code reading the items of an owner from the database must {@link #flush(int)} them first, the items moved from that owner included.
+ * The global {@link #flush()} is kept for the shutdown, which makes a last synchronous flush, and for the character deletion.
+ * After the shutdown or when the write-behind is disabled, the items are written synchronously by the caller.
+ *
+ * @author JoeAlisson
+ */
+public final class ItemPersistenceEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ItemPersistenceEngine.class);
+
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    /**
+     * The pending items with the owner of their database record, which differs from the current owner when the item was given away.
+     */
+    private Map<Item, Integer> pending = newPendingMap();
+
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private ScheduledFuture<?> flushTask;
+    private volatile boolean enabled;
+
+    private final LongAdder queued = new LongAdder();
+    private final Counter failures;
+    private final Counter written;
+    private final LongAdder statements = new LongAdder();
+    private final Timer flushTimer;
+    private volatile long lastFlushTime;
+    private volatile int lastFlushSize;
+
+    private ItemPersistenceEngine() {
+        final var metrics = MetricsRegistry.getInstance();
+        flushTimer = metrics.timer("l2j_persistence_flush_seconds", "queue", "items");
+        failures = metrics.counter("l2j_persistence_flush_failures_total", "queue", "items");
+        written = metrics.counter("l2j_persistence_written_total", "queue", "items");
+        metrics.gauge("l2j_persistence_queue_size", "queue", "items", this::getQueueDepth);
+
+        final long interval = getSettings(GeneralSettings.class).itemWriteBehindInterval().toMillis();
+        if (interval > 0) {
+            flushTask = ThreadPool.scheduleAtFixedDelay(this::queueFlush, interval, interval);
+            enabled = true;
+        }
+    }
+
+    /**
+     * @return true if the item updates should be queued instead of written by the caller
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the item to be written on the next flush.
+     *
+     * @param item : the changed item
+     */
+    public void enqueue(Item item) {
+        enqueue(item, item.getOwnerId());
+    }
+
+    /**
+     * Queues the item to be written on the next flush, a flush of the stored owner writes it too.
+     *
+     * @param item : the changed item
+     * @param storedOwnerId : the owner of the item in the database, kept when the item is already queued
+     */
+    public void enqueue(Item item, int storedOwnerId) {
+        queueLock.lock();
+        try {
+            if (pending.putIfAbsent(item, storedOwnerId) == null) {
+                queued.increment();
+            }
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * @return the amount of items waiting to be written
+     */
+    public int getQueueDepth() {
+        queueLock.lock();
+        try {
+            return pending.size();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every pending item in the caller thread, waiting for a running flush to finish.
+     *
+     * @return true if all pending items were written
+     */
+    public boolean flush() {
+        flushLock.lock();
+        try {
+            final Map<Item, Integer> items;
+            queueLock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return true;
+                }
+                items = pending;
+                pending = newPendingMap();
+            } finally {
+                queueLock.unlock();
+            }
+            return write(items);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the pending items owned by the owner or whose database record still belongs to it, in the caller thread.<br>
+     * A running flush may be writing them, so it is waited for.
+     *
+     * @param ownerId : the owner whose items are going to be read
+     * @return true if the items were written
+     */
+    public boolean flush(int ownerId) {
+        flushLock.lock();
+        try {
+            final Map<Item, Integer> items = newPendingMap();
+            queueLock.lock();
+            try {
+                final var iterator = pending.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    final var entry = iterator.next();
+                    if (entry.getValue() == ownerId || entry.getKey().getOwnerId() == ownerId) {
+                        items.put(entry.getKey(), entry.getValue());
+                        iterator.remove();
+                    }
+                }
+            } finally {
+                queueLock.unlock();
+            }
+            return items.isEmpty() || write(items);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * The scheduler only hands the flush to the persistence executor, a flush still running or waiting is not queued again.
+     */
+    private void queueFlush() {
+        if (flushQueued.compareAndSet(false, true)) {
+            ThreadPool.execute(ExecutorGroup.PERSISTENCE, this::flushSafely);
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            LOGGER.error("Could not flush the item updates", e);
+        } finally {
+            flushQueued.set(false);
+        }
+    }
+
+    private boolean write(Map<Item, Integer> items) {
+        final long start = System.nanoTime();
+        final var changes = new ItemChanges();
+        items.keySet().forEach(item -> item.storeChanges(changes));
+        if (changes.isEmpty()) {
+            return true;
+        }
+
+        boolean success = false;
+        try (Connection con = DatabaseFactory.getInstance().getConnection()) {
+            final boolean autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            try {
+                statements.add(changes.write(con));
+                con.commit();
+                success = true;
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Could not write {} items, they will be retried on next flush", changes.size(), e);
+        }
+
+        if (success) {
+            written.add(changes.size());
+        } else {
+            failures.increment();
+            final var stored = changes.getItems();
+            for (int i = 0; i < stored.size(); i++) {
+                final var item = stored.get(i);
+                item.onStoreFailed(changes.existedInDb(i));
+                enqueue(item, items.get(item));
+            }
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        flushTimer.record(elapsed);
+        lastFlushTime = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        lastFlushSize = changes.size();
+        return success;
+    }
+
+    /**
+     * Stops the periodic flush and writes every pending item. Any later item update is written synchronously.
+     */
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+
+        enabled = false;
+        flushTask.cancel(false);
+
+        // waits for a running flush
+        if (!flush()) {
+            // one retry, the failed items are back on the queue
+            if (!flush()) {
+                LOGGER.error("Could not write {} pending items on shutdown", getQueueDepth());
+                return;
+            }
+        }
+        LOGGER.info("Item updates flushed");
+    }
+
+    public CharSequence getStats() {
+        final long flushCount = flushTimer.count();
+        final StringBuilder stats = new StringBuilder();
+        stats.append("ItemPersistence\n");
+        stats.append("=================================================\n");
+        stats.append("\tenabled: ............ ").append(enabled).append('\n');
+        stats.append("\tqueueDepth: ......... ").append(getQueueDepth()).append('\n');
+        stats.append("\tqueued: ............. ").append(queued.sum()).append('\n');
+        stats.append("\twritten: ............ ").append(written.count()).append('\n');
+        stats.append("\tstatements: ......... ").append(statements.sum()).append('\n');
+        stats.append("\tflushes: ............ ").append(flushCount).append('\n');
+        stats.append("\tfailedFlushes: ...... ").append(failures.count()).append('\n');
+        stats.append("\tlastFlushSize: ...... ").append(lastFlushSize).append('\n');
+        stats.append("\tlastFlushTime: ...... ").append(lastFlushTime).append(" ms\n");
+        stats.append("\tmaxFlushTime: ....... ").append(flushTimer.max(TimeUnit.MILLISECONDS)).append(" ms\n");
+        stats.append("\tavgFlushTime: ....... ").append(flushTimer.mean(TimeUnit.MILLISECONDS)).append(" ms\n");
+        return stats;
+    }
+
+    private static Map<Item, Integer> newPendingMap() {
+        // items equality is based on object id, the queue must hold the instances
+        return new IdentityHashMap<>();
+    }
+
+    public static ItemPersistenceEngine getInstance() {
+        return Singleton.INSTANCE;
+    }
+
+    private static final class Singleton {
+        private static final ItemPersistenceEngine INSTANCE = new ItemPersistenceEngine();
+    }
+}
@@ -165,9 +165,9 @@ public final class MailEngine {
     }
 
     public final void deleteMailInDb(int mailId) {
-        getDAO(MailDAO.class).deleteById(mailId);
         mails.remove(mailId);
-        IdFactory.getInstance().releaseId(mailId);
+        // the id can only be reused after the row is gone
+        getDAO(MailDAO.class).deleteById(mailId).thenRun(() -> IdFactory.getInstance().releaseId(mailId));
     }
 
     public boolean sendMail(Player sender, int receiverId, boolean isCod, String subject, String content, long reqAdena, List<ItemHolder> items) {
@@ -18,6 +18,7 @@
  */
 package org.l2j.gameserver.handler;
 
+import org.l2j.commons.threading.ExecutorGroup;
 import org.l2j.commons.threading.ThreadPool;
 import org.l2j.commons.util.TimeInterpreter;
 import org.l2j.gameserver.data.xml.impl.AdminData;
@@ -97,7 +98,7 @@ public class AdminCommandHandler implements IHandler<IAdminCommandHandler, Strin
             player.sendPacket(dlg);
         } else {
             // Admin Commands must run through a long running task, otherwise a command that takes too much time will freeze the server, this way you'll feel only a minor spike.
-            ThreadPool.execute(() ->
+            ThreadPool.execute(ExecutorGroup.SCRIPTS, () ->
             {
                 final long begin = System.currentTimeMillis();
                 try {
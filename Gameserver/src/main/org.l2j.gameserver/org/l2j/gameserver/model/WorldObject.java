@@ -41,6 +41,7 @@ import org.l2j.gameserver.world.zone.ZoneType;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import static java.util.Objects.nonNull;
 import static org.l2j.commons.util.Util.zeroIfNullOrElse;
@@ -50,11 +51,14 @@ import static org.l2j.commons.util.Util.zeroIfNullOrElse;
  */
 public abstract class WorldObject extends ListenersContainer implements IIdentifiable, INamable, ISpawnable, IUniqueId, IDecayable, IPositionable {
 
+    private static final AtomicIntegerFieldUpdater<WorldObject> WORLD_REGION_CELL = AtomicIntegerFieldUpdater.newUpdater(WorldObject.class, "worldRegionCell");
+
     private String name;
 
     protected int objectId;
 
     private WorldRegion worldRegion;
+    private volatile int worldRegionCell = -1;
 
     private InstanceType instanceType;
 
@@ -335,6 +339,34 @@ public abstract class WorldObject extends ListenersContainer implements IIdentif
         worldRegion = value;
     }
 
+    /**
+     * @return the index of the cell of the world region where this object is indexed or -1 if it is not indexed
+     */
+    public final int getWorldRegionCell() {
+        return worldRegionCell;
+    }
+
+    public final void setWorldRegionCell(int cell) {
+        worldRegionCell = cell;
+    }
+
+    /**
+     * @param expected the cell the object must be indexed in
+     * @param cell the new cell
+     * @return true if the object was still indexed in the expected cell and now is in the new one
+     */
+    public final boolean compareAndSetWorldRegionCell(int expected, int cell) {
+        return WORLD_REGION_CELL.compareAndSet(this, expected, cell);
+    }
+
+    /**
+     * @param cell the new cell
+     * @return the previous cell
+     */
+    public final int getAndSetWorldRegionCell(int cell) {
+        return WORLD_REGION_CELL.getAndSet(this, cell);
+    }
+
     /**
      * Gets the X coordinate.
      *
@@ -18,8 +18,8 @@
  */
 package org.l2j.gameserver.model.actor;
 
+import org.l2j.commons.threading.ExecutorGroup;
 import org.l2j.commons.threading.ThreadPool;
-import org.l2j.commons.util.EmptyQueue;
 import org.l2j.commons.util.Rnd;
 import org.l2j.gameserver.Config;
 import org.l2j.gameserver.ai.AttackableAI;
@@ -52,6 +52,7 @@ import org.l2j.gameserver.model.effects.EffectFlag;
 import org.l2j.gameserver.model.events.EventDispatcher;
 import org.l2j.gameserver.model.events.EventType;
 import org.l2j.gameserver.model.events.Listeners;
+import org.l2j.gameserver.model.events.ListenersContainer;
 import org.l2j.gameserver.model.events.impl.character.*;
 import org.l2j.gameserver.model.events.listeners.AbstractEventListener;
 import org.l2j.gameserver.model.events.returns.DamageReturn;
@@ -170,6 +171,10 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
     private volatile Map<Integer, AtomicInteger> _blockActionsAllowedSkills = new ConcurrentHashMap<>();
     private CreatureStats stats;
     private CreatureStatus _status;
+    /**
+     * The object, template and global listeners merged by event type, dropped on any listener registration change.
+     */
+    private volatile MergedListeners mergedListeners;
     private CreatureTemplate _template; // The link on the CreatureTemplate object containing generic and static properties of this Creature type (ex : Max HP, Speed...)
     private String _title;
     private double _hpUpdateIncCheck = .0;
@@ -1245,7 +1250,7 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
                 return false;
             }
 
-            final TerminateReturn returnBack = EventDispatcher.getInstance().notifyEvent(new OnCreatureDeath(killer, this), this, TerminateReturn.class);
+            final TerminateReturn returnBack = EventDispatcher.getInstance().notifyEvent(EventType.ON_CREATURE_DEATH, () -> new OnCreatureDeath(killer, this), this, TerminateReturn.class);
             if (nonNull(returnBack) && returnBack.terminate()) {
                 return false;
             }
@@ -1263,7 +1268,7 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
             getAI().notifyEvent(CtrlEvent.EVT_DEAD);
         }
 
-        EventDispatcher.getInstance().notifyEvent(new OnCreatureKilled(killer, this), killer);
+        EventDispatcher.getInstance().notifyEvent(EventType.ON_CREATURE_KILLED, () -> new OnCreatureKilled(killer, this), killer);
 
         // Stop HP/MP/CP Regeneration task
         _status.stopHpMpRegeneration();
@@ -1760,6 +1765,7 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
      */
     protected final void setTemplate(CreatureTemplate template) {
         _template = template;
+        mergedListeners = null;
     }
 
     /**
@@ -2424,7 +2430,7 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
         broadcastPacket(new MoveToLocation(this));
 
         if (distFraction > 1) {
-            ThreadPool.execute(() -> getAI().notifyEvent(CtrlEvent.EVT_ARRIVED));
+            ThreadPool.execute(ExecutorGroup.AI, () -> getAI().notifyEvent(CtrlEvent.EVT_ARRIVED));
             return true;
         }
 
@@ -2444,6 +2450,10 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
             }
         }
 
+        World.getInstance().updateZones(this, this::revalidateZoneRegion);
+    }
+
+    private void revalidateZoneRegion() {
         final ZoneRegion region = ZoneManager.getInstance().getRegion(this);
         if (region != null) {
             region.revalidateZones(this);
@@ -3013,8 +3023,8 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
         doAttack(hit.getDamage(), target, null, false, false, hit.isCritical(), false);
 
         // Notify to scripts when the attack has been done.
-        EventDispatcher.getInstance().notifyEvent(new OnCreatureAttack(this, target, null), this);
-        EventDispatcher.getInstance().notifyEvent(new OnCreatureAttacked(this, target, null), target);
+        EventDispatcher.getInstance().notifyEvent(EventType.ON_CREATURE_ATTACK, () -> new OnCreatureAttack(this, target, null), this);
+        EventDispatcher.getInstance().notifyEvent(EventType.ON_CREATURE_ATTACKED, () -> new OnCreatureAttacked(this, target, null), target);
 
         if (_triggerSkills != null) {
             for (OptionsSkillHolder holder : _triggerSkills.values()) {
@@ -3652,7 +3662,8 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
 
         if (nonNull(attacker)) {
             attacker.sendDamageMessage(this, skill, (int) value, elementalDamage, critical, false);
-            EventDispatcher.getInstance().notifyEventAsync(new OnCreatureDamageDealt(attacker, this, value, skill, critical, isDOT, reflect), attacker);
+            final double damage = value;
+            EventDispatcher.getInstance().notifyEventAsync(EventType.ON_CREATURE_DAMAGE_DEALT, () -> new OnCreatureDamageDealt(attacker, this, damage, skill, critical, isDOT, reflect), attacker);
         }
     }
 
@@ -3963,7 +3974,7 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
      * @param isDot
      */
     public void notifyAttackAvoid(Creature target, boolean isDot) {
-        EventDispatcher.getInstance().notifyEventAsync(new OnCreatureAttackAvoid(this, target, isDot), target);
+        EventDispatcher.getInstance().notifyEventAsync(EventType.ON_CREATURE_ATTACK_AVOID, () -> new OnCreatureAttackAvoid(this, target, isDot), target);
     }
 
     /**
@@ -4170,27 +4181,45 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
     }
 
     @Override
-    public Queue<AbstractEventListener> getListeners(EventType type) {
-        final Queue<AbstractEventListener> objectListenres = super.getListeners(type);
-        final Queue<AbstractEventListener> templateListeners = _template.getListeners(type);
-        final Queue<AbstractEventListener> globalListeners = GameUtils.isNpc(this) && !isMonster(this) ? Listeners.Npcs().getListeners(type) : isMonster(this) ? Listeners.Monsters().getListeners(type) : isPlayer(this) ? Listeners.players().getListeners(type) : EmptyQueue.emptyQueue();
+    public AbstractEventListener[] getSortedListeners(EventType type) {
+        // the versions are read before the listeners, a change in between only makes the next call merge again
+        final var global = getGlobalListeners();
+        final int ownVersion = getRegistrationVersion();
+        final int templateVersion = _template.getRegistrationVersion();
+        final int globalVersion = isNull(global) ? 0 : global.getRegistrationVersion();
+
+        var merged = mergedListeners;
+        if (isNull(merged) || !merged.isVersion(ownVersion, templateVersion, globalVersion)) {
+            merged = new MergedListeners(ownVersion, templateVersion, globalVersion);
+            mergedListeners = merged;
+        }
 
-        // Attempt to do not create collection
-        if (objectListenres.isEmpty() && templateListeners.isEmpty() && globalListeners.isEmpty()) {
-            return EmptyQueue.emptyQueue();
-        } else if (!objectListenres.isEmpty() && templateListeners.isEmpty() && globalListeners.isEmpty()) {
-            return objectListenres;
-        } else if (!templateListeners.isEmpty() && objectListenres.isEmpty() && globalListeners.isEmpty()) {
-            return templateListeners;
-        } else if (!globalListeners.isEmpty() && objectListenres.isEmpty() && templateListeners.isEmpty()) {
-            return globalListeners;
+        var listeners = merged.listeners.get(type);
+        if (isNull(listeners)) {
+            listeners = merge(super.getSortedListeners(type), _template.getSortedListeners(type), isNull(global) ? EMPTY_LISTENERS : global.getSortedListeners(type));
+            merged.listeners.put(type, listeners);
         }
+        return listeners;
+    }
+
+    @Override
+    public boolean hasListener(EventType type) {
+        if (super.hasListener(type) || _template.hasListener(type)) {
+            return true;
+        }
+        final var global = getGlobalListeners();
+        return nonNull(global) && global.hasListener(type);
+    }
 
-        final Queue<AbstractEventListener> both = new LinkedBlockingDeque<>(objectListenres.size() + templateListeners.size() + globalListeners.size());
-        both.addAll(objectListenres);
-        both.addAll(templateListeners);
-        both.addAll(globalListeners);
-        return both;
+    private ListenersContainer getGlobalListeners() {
+        if (isMonster(this)) {
+            return Listeners.Monsters();
+        } else if (GameUtils.isNpc(this)) {
+            return Listeners.Npcs();
+        } else if (isPlayer(this)) {
+            return Listeners.players();
+        }
+        return null;
     }
 
     public Race getRace() {
@@ -4208,8 +4237,10 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
         }
 
         if (oldZoneRegion != newZoneRegion) {
-            oldZoneRegion.removeFromZones(this);
-            newZoneRegion.revalidateZones(this);
+            World.getInstance().updateZones(this, () -> {
+                oldZoneRegion.removeFromZones(this);
+                newZoneRegion.revalidateZones(this);
+            });
         }
 
         super.setXYZ(newX, newY, newZ);
@@ -4480,4 +4511,24 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
         public int geoPathGtx;
         public int geoPathGty;
     }
+
+    /**
+     * The listeners of the creature, its template and its global container merged by type, valid while none of them changes.
+     */
+    private static final class MergedListeners {
+        private final int ownVersion;
+        private final int templateVersion;
+        private final int globalVersion;
+        private final Map<EventType, AbstractEventListener[]> listeners = new ConcurrentHashMap<>();
+
+        private MergedListeners(int ownVersion, int templateVersion, int globalVersion) {
+            this.ownVersion = ownVersion;
+            this.templateVersion = templateVersion;
+            this.globalVersion = globalVersion;
+        }
+
+        private boolean isVersion(int ownVersion, int templateVersion, int globalVersion) {
+            return this.ownVersion == ownVersion && this.templateVersion == templateVersion && this.globalVersion == globalVersion;
+        }
+    }
 }
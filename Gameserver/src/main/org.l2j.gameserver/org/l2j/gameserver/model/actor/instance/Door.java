@@ -23,6 +23,7 @@ import org.l2j.commons.util.Rnd;
 import org.l2j.gameserver.ai.CreatureAI;
 import org.l2j.gameserver.ai.DoorAI;
 import org.l2j.gameserver.data.xml.DoorDataManager;
+import org.l2j.gameserver.engine.geo.GeoEngine;
 import org.l2j.gameserver.engine.skill.api.Skill;
 import org.l2j.gameserver.enums.DoorOpenType;
 import org.l2j.gameserver.enums.InstanceType;
@@ -185,6 +186,7 @@ public final class Door extends Creature {
 
     public void setOpen(boolean open) {
         this.open = open;
+        onGeoStateChanged();
         if (getChildId() > 0) {
             final Door sibling = getSiblingDoor(getChildId());
             if (sibling != null) {
@@ -195,6 +197,24 @@ public final class Door extends Creature {
         }
     }
 
+    private void onGeoStateChanged() {
+        final int[] nodeX = getTemplate().getNodeX();
+        final int[] nodeY = getTemplate().getNodeY();
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < nodeX.length; i++) {
+            minX = Math.min(minX, nodeX[i]);
+            maxX = Math.max(maxX, nodeX[i]);
+            minY = Math.min(minY, nodeY[i]);
+            maxY = Math.max(maxY, nodeY[i]);
+        }
+        if (nodeX.length > 0) {
+            GeoEngine.getInstance().onGeoObjectChanged(getInstanceId(), minX, minY, maxX, maxY);
+        }
+    }
+
     public boolean getIsAttackableDoor() {
         return _isAttackableDoor;
     }
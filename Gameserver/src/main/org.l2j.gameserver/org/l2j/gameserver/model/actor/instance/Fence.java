@@ -19,6 +19,7 @@
 package org.l2j.gameserver.model.actor.instance;
 
 import org.l2j.gameserver.data.xml.FenceDataManager;
+import org.l2j.gameserver.engine.geo.GeoEngine;
 import org.l2j.gameserver.enums.FenceState;
 import org.l2j.gameserver.idfactory.IdFactory;
 import org.l2j.gameserver.model.WorldObject;
@@ -118,6 +119,7 @@ public final class Fence extends WorldObject {
 
     public void setState(FenceState type) {
         _state = type;
+        GeoEngine.getInstance().onGeoObjectChanged(getInstanceId(), _xMin, _yMin, _xMax, _yMax);
 
         broadcastInfo();
     }
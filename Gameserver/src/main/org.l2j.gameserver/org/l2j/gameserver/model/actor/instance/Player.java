@@ -19,6 +19,7 @@
 package org.l2j.gameserver.model.actor.instance;
 
 import io.github.joealisson.primitive.*;
+import org.l2j.commons.database.DatabaseAccess;
 import org.l2j.commons.database.DatabaseFactory;
 import org.l2j.commons.threading.ThreadPool;
 import org.l2j.commons.util.Rnd;
@@ -177,6 +178,11 @@ public final class Player extends Playable {
     private CostumeCollectionData activeCostumesCollection = CostumeCollectionData.DEFAULT;
     private IntSet teleportFavorites;
 
+    // changes since the last committed store, counted so the changes made while storing are kept for the next store
+    private final AtomicInteger teleportFavoritesChanges = new AtomicInteger();
+    private final AtomicInteger costumeCollectionChanges = new AtomicInteger();
+    private final AtomicInteger recommendationsChanges = new AtomicInteger();
+
     private byte vipTier;
     private int rank;
     private int rankRace;
@@ -612,6 +618,7 @@ public final class Player extends Playable {
         if(nonNull(collection)) {
             this.activeCostumesCollection = collection;
             activeCostumesCollection.updateReuseTime();
+            costumeCollectionChanges.incrementAndGet();
             return true;
         }
         return false;
@@ -635,6 +642,7 @@ public final class Player extends Playable {
         var collection = costumesCollections.remove(collectionId);
         if(activeCostumesCollection.equals(collection)) {
             activeCostumesCollection = CostumeCollectionData.DEFAULT;
+            costumeCollectionChanges.incrementAndGet();
         }
     }
     
@@ -644,10 +652,12 @@ public final class Player extends Playable {
 
     public void addTeleportFavorite(int teleportId) {
         teleportFavorites.add(teleportId);
+        teleportFavoritesChanges.incrementAndGet();
     }
 
     public void removeTeleportFavorite(int teleportId) {
         teleportFavorites.remove(teleportId);
+        teleportFavoritesChanges.incrementAndGet();
     }
 
     public IntSet getTeleportFavorites() {
@@ -2139,6 +2149,7 @@ public final class Player extends Playable {
      */
     public void setRecomHave(int value) {
         _recomHave = min(Math.max(value, 0), 255);
+        recommendationsChanges.incrementAndGet();
     }
 
     /**
@@ -2147,6 +2158,7 @@ public final class Player extends Playable {
     protected void incRecomHave() {
         if (_recomHave < 255) {
             _recomHave++;
+            recommendationsChanges.incrementAndGet();
         }
     }
 
@@ -2164,6 +2176,7 @@ public final class Player extends Playable {
      */
     public void setRecomLeft(int value) {
         _recomLeft = min(Math.max(value, 0), 255);
+        recommendationsChanges.incrementAndGet();
     }
 
     /**
@@ -2172,6 +2185,7 @@ public final class Player extends Playable {
     protected void decRecomLeft() {
         if (_recomLeft > 0) {
             _recomLeft--;
+            recommendationsChanges.incrementAndGet();
         }
     }
 
@@ -5727,6 +5741,22 @@ public final class Player extends Playable {
      * @param storeActiveEffects
      */
     public synchronized void store(boolean storeActiveEffects) {
+        final int costumeCollection = costumeCollectionChanges.get();
+        final int favorites = teleportFavoritesChanges.get();
+        final int recommendations = recommendationsChanges.get();
+
+        if(DatabaseAccess.inTransaction(() -> storeData(storeActiveEffects, costumeCollection > 0, favorites > 0, recommendations > 0))) {
+            // only the written changes are cleared, a rolled back store keeps them for the next one
+            costumeCollectionChanges.addAndGet(-costumeCollection);
+            teleportFavoritesChanges.addAndGet(-favorites);
+            recommendationsChanges.addAndGet(-recommendations);
+        }
+    }
+
+    /**
+     * Stores the player data, the sections without changes since the last store are skipped.
+     */
+    private void storeData(boolean storeActiveEffects, boolean costumeCollectionChanged, boolean teleportFavoritesChanged, boolean recommendationsChanged) {
         storeCharBase();
         storeCharSub();
         storeEffect(storeActiveEffects);
@@ -5767,18 +5797,24 @@ public final class Player extends Playable {
             playerDAO.save(costumes.values());
         }
 
-        if(CostumeCollectionData.DEFAULT.equals(activeCostumesCollection)) {
-            playerDAO.deleteCostumeCollection(objectId);
-        } else {
-            playerDAO.save(activeCostumesCollection);
+        if(costumeCollectionChanged) {
+            if(CostumeCollectionData.DEFAULT.equals(activeCostumesCollection)) {
+                playerDAO.deleteCostumeCollection(objectId);
+            } else {
+                playerDAO.save(activeCostumesCollection);
+            }
         }
 
-        playerDAO.removeTeleportFavorites(objectId);
-        if(Util.isNotEmpty(teleportFavorites)) {
-            playerDAO.saveTeleportFavorites(objectId, teleportFavorites);
+        if(teleportFavoritesChanged) {
+            playerDAO.removeTeleportFavorites(objectId);
+            if(Util.isNotEmpty(teleportFavorites)) {
+                playerDAO.saveTeleportFavorites(objectId, teleportFavorites);
+            }
         }
 
-        storeRecommendations();
+        if(recommendationsChanged) {
+            storeRecommendations();
+        }
         if (Config.UPDATE_ITEMS_ON_CHAR_STORE) {
             inventory.updateDatabase();
             getWarehouse().updateDatabase();
@@ -5953,7 +5989,6 @@ public final class Player extends Playable {
                         statement.setInt(10, ++buff_index);
                         statement.addBatch();
                     }
-                    statement.executeBatch();
                 }
 
                 // Skills under reuse.
@@ -5980,6 +6015,7 @@ public final class Player extends Playable {
                         statement.addBatch();
                     }
                 }
+                statement.executeBatch();
             }
         } catch (Exception e) {
             LOGGER.warn("Could not store char effect data: ", e);
@@ -10137,6 +10173,7 @@ public final class Player extends Playable {
                     setRecomLeft(rset.getInt("rec_left"));
                 }
             }
+            recommendationsChanges.set(0);
         } catch (Exception e) {
             LOGGER.error("Could not restore Recommendations for player: " + getObjectId(), e);
         }
@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.model.events;
+
+import org.l2j.commons.metrics.Counter;
+import org.l2j.commons.metrics.MetricsRegistry;
+import org.l2j.commons.metrics.Timer;
+import org.l2j.commons.threading.PriorityThreadFactory;
+import org.l2j.gameserver.settings.ServerSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.l2j.commons.configuration.Configurator.getSettings;
+
+/**
+ * Delivers the asynchronous events on its own threads, apart from the general thread pool used by the packets.<br>
+ * <br>
+ * Each thread has its own queue and the events of a target are always queued on the same thread, so they are delivered in order.
+ * The amount of pending events of each type is bounded: when the limit is reached the events repeated often are dropped,
+ * since a next one will come soon, and the others are rejected and counted as overflow.
+ * The thread raising an event never waits for room nor delivers it, since it can be a network, AI or scheduler thread holding game locks.
+ * The lanes are measured in the {@link MetricsRegistry}, as the executor named async_event.
+ *
+ * @author JoeAlisson
+ */
+final class AsyncEventExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncEventExecutor.class);
+    private static final String EXECUTOR_NAME = "async_event";
+    private static final long OVERFLOW_WARNING_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+    private static final Set<EventType> DROPPABLE = EnumSet.of(EventType.ON_NPC_CREATURE_SEE, EventType.ON_NPC_SKILL_SEE, EventType.ON_CREATURE_ATTACK_AVOID);
+
+    private final ThreadPoolExecutor[] lanes;
+    private final int queueSize;
+    private final Semaphore[] pending = new Semaphore[EventType.values().length];
+    private final Counter[] dropped = new Counter[EventType.values().length];
+    private final Counter overflow;
+    private final Counter rejected;
+    private final Timer waitTimer;
+    private final Timer runTimer;
+    private volatile long lastOverflowWarning;
+
+    AsyncEventExecutor() {
+        final var settings = getSettings(ServerSettings.class);
+        queueSize = settings.asyncEventQueueSize();
+        lanes = new ThreadPoolExecutor[settings.asyncEventPoolSize()];
+        final var threadFactory = new PriorityThreadFactory("AsyncEvent", Thread.NORM_PRIORITY);
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        }
+
+        final var metrics = MetricsRegistry.getInstance();
+        for (EventType type : EventType.values()) {
+            pending[type.ordinal()] = new Semaphore(queueSize);
+            dropped[type.ordinal()] = metrics.counter("l2j_events_dropped_total", "type", type.name());
+        }
+        overflow = metrics.counter("l2j_events_overflow_total", "executor", EXECUTOR_NAME);
+        rejected = metrics.counter("l2j_threadpool_rejected_total", "executor", EXECUTOR_NAME);
+        waitTimer = metrics.timer("l2j_threadpool_queue_wait_seconds", "executor", EXECUTOR_NAME);
+        runTimer = metrics.timer("l2j_threadpool_run_seconds", "executor", EXECUTOR_NAME);
+        metrics.gauge("l2j_threadpool_queue_size", "executor", EXECUTOR_NAME, this::getQueueDepth);
+        metrics.gauge("l2j_threadpool_active_threads", "executor", EXECUTOR_NAME, this::getActiveCount);
+    }
+
+    /**
+     * Queues the notification on the thread of the target.
+     * When the limit of pending events of the type is reached, the droppable events are discarded and the others are rejected.
+     * The caller is never blocked.
+     *
+     * @param type the type of the event
+     * @param target the container receiving the event, the events of the same target are delivered in order
+     * @param notification the notification of the listeners
+     */
+    void execute(EventType type, ListenersContainer target, Runnable notification) {
+        final var permits = pending[type.ordinal()];
+        if (!permits.tryAcquire()) {
+            if (DROPPABLE.contains(type)) {
+                dropped[type.ordinal()].increment();
+            } else {
+                onOverflow(type);
+            }
+            return;
+        }
+
+        final long submitTime = System.nanoTime();
+        try {
+            lanes[Math.floorMod(System.identityHashCode(target), lanes.length)].execute(() -> {
+                permits.release();
+                final long start = System.nanoTime();
+                waitTimer.record(start - submitTime);
+                try {
+                    notification.run();
+                } finally {
+                    runTimer.record(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            rejected.increment();
+            LOGGER.warn("Discarding event {} raised after the async event executor was shut down", type);
+        }
+    }
+
+    /**
+     * Counts the rejected event. The warning is logged at most once each interval, since an overflow comes in bursts.
+     */
+    private void onOverflow(EventType type) {
+        overflow.increment();
+        final long now = System.nanoTime();
+        if (now - lastOverflowWarning > OVERFLOW_WARNING_INTERVAL) {
+            lastOverflowWarning = now;
+            LOGGER.warn("Rejecting event {}, the limit of {} pending events was reached. {} events rejected so far", type, queueSize, overflow.count());
+        }
+    }
+
+    void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ThreadPoolExecutor lane : lanes) {
+                lane.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int getQueueDepth() {
+        int queueDepth = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queueDepth += lane.getQueue().size();
+        }
+        return queueDepth;
+    }
+
+    private int getActiveCount() {
+        int active = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            active += lane.getActiveCount();
+        }
+        return active;
+    }
+
+    void appendStats(StringBuilder stats) {
+        long droppedCount = 0;
+        for (Counter typeDropped : dropped) {
+            droppedCount += typeDropped.count();
+        }
+
+        stats.append("\tasyncThreads: ....... ").append(lanes.length).append('\n');
+        stats.append("\tasyncQueueDepth: .... ").append(getQueueDepth()).append('\n');
+        stats.append("\tasyncDelivered: ..... ").append(waitTimer.count()).append('\n');
+        stats.append("\tasyncDropped: ....... ").append(droppedCount).append('\n');
+        stats.append("\tasyncOverflow: ...... ").append(overflow.count()).append('\n');
+        stats.append("\tasyncRejected: ...... ").append(rejected.count()).append('\n');
+        stats.append("\tavgQueueTime: ....... ").append(waitTimer.mean(TimeUnit.MICROSECONDS)).append(" us\n");
+        stats.append("\tmaxQueueTime: ....... ").append(waitTimer.max(TimeUnit.MICROSECONDS)).append(" us\n");
+        stats.append("\tavgRunTime: ......... ").append(runTimer.mean(TimeUnit.MICROSECONDS)).append(" us\n");
+        for (EventType type : EventType.values()) {
+            final int typePending = queueSize - pending[type.ordinal()].availablePermits();
+            if (typePending > 0) {
+                stats.append("\t\t").append(type).append(" pending: ").append(typePending).append('\n');
+            }
+        }
+    }
+}
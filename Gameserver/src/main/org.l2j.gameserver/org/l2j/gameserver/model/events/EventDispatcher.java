@@ -25,7 +25,12 @@ import org.l2j.gameserver.model.events.returns.AbstractEventReturn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Queue;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * @author UnAfraid
@@ -33,7 +38,67 @@ import java.util.Queue;
 public final class EventDispatcher {
     private static final Logger LOGGER = LoggerFactory.getLogger(EventDispatcher.class);
 
+    private final EventMetrics[] metrics = new EventMetrics[EventType.values().length];
+    private final AsyncEventExecutor asyncExecutor = new AsyncEventExecutor();
+
     private EventDispatcher() {
+        for (EventType type : EventType.values()) {
+            metrics[type.ordinal()] = new EventMetrics(type);
+        }
+    }
+
+    /**
+     * @param type
+     * @param container
+     * @return true if the container or the global container has listeners of the event type
+     */
+    public boolean hasListener(EventType type, ListenersContainer container) {
+        return Listeners.Global().hasListener(type) || ((container != null) && container.hasListener(type));
+    }
+
+    /**
+     * Builds the event only when there are listeners of its type.
+     *
+     * @param <T>
+     * @param type
+     * @param event
+     * @param container
+     * @param callbackClass
+     * @return
+     */
+    public <T extends AbstractEventReturn> T notifyEvent(EventType type, Supplier<? extends IBaseEvent> event, ListenersContainer container, Class<T> callbackClass) {
+        if (!hasListener(type, container)) {
+            metrics[type.ordinal()].skipped.increment();
+            return null;
+        }
+        return notifyEvent(event.get(), container, callbackClass);
+    }
+
+    /**
+     * Builds the event only when there are listeners of its type.
+     *
+     * @param type
+     * @param event
+     * @param container
+     */
+    public void notifyEvent(EventType type, Supplier<? extends IBaseEvent> event, ListenersContainer container) {
+        notifyEvent(type, event, container, null);
+    }
+
+    /**
+     * Executing the listener notification asynchronously, building the event only when there are listeners of its type.
+     *
+     * @param type
+     * @param event
+     * @param container
+     */
+    public void notifyEventAsync(EventType type, Supplier<? extends IBaseEvent> event, ListenersContainer container) {
+        if (!hasListener(type, container)) {
+            metrics[type.ordinal()].skipped.increment();
+            return;
+        }
+        final var notification = event.get();
+        asyncExecutor.execute(type, container, () -> notifyEvent(notification, container, null));
     }
 
     /**
@@ -74,7 +139,10 @@ public final class EventDispatcher {
      */
     public <T extends AbstractEventReturn> T notifyEvent(IBaseEvent event, ListenersContainer container, Class<T> callbackClass) {
         try {
-            return Listeners.Global().hasListener(event.getType()) || ((container != null) && container.hasListener(event.getType())) ? notifyEventImpl(event, container, callbackClass) : null;
+            if (hasListener(event.getType(), container)) {
+                return notifyEventImpl(event, container, callbackClass);
+            }
+            metrics[event.getType().ordinal()].skipped.increment();
         } catch (Exception e) {
             LOGGER.warn(getClass().getSimpleName() + ": Couldn't notify event " + event.getClass().getSimpleName(), e);
         }
@@ -103,7 +171,9 @@ public final class EventDispatcher {
         }
 
         if (hasListeners) {
-            ThreadPool.execute(() -> notifyEventToMultipleContainers(event, containers, null));
+            asyncExecutor.execute(event.getType(), containers.length > 0 ? containers[0] : null, () -> notifyEventToMultipleContainers(event, containers, null));
+        } else {
+            metrics[event.getType().ordinal()].skipped.increment();
         }
     }
 
@@ -116,7 +186,7 @@ public final class EventDispatcher {
      */
     public void notifyEventAsyncDelayed(IBaseEvent event, ListenersContainer container, long delay) {
         if (Listeners.Global().hasListener(event.getType()) || container.hasListener(event.getType())) {
-            ThreadPool.schedule(() -> notifyEvent(event, container, null), delay);
+            ThreadPool.schedule(() -> asyncExecutor.execute(event.getType(), container, () -> notifyEvent(event, container, null)), delay);
         }
     }
 
@@ -128,6 +198,7 @@ public final class EventDispatcher {
      * @return
      */
     private <T extends AbstractEventReturn> T notifyEventToMultipleContainers(IBaseEvent event, ListenersContainer[] containers, Class<T> callbackClass) {
+        final long start = System.nanoTime();
         try {
             if (event == null) {
                 throw new NullPointerException("Event cannot be null!");
@@ -138,19 +209,23 @@ public final class EventDispatcher {
                 // Local listeners container first.
                 for (ListenersContainer container : containers) {
                     if ((callback == null) || !callback.abort()) {
-                        callback = notifyToListeners(container.getListeners(event.getType()), event, callbackClass, callback);
+                        callback = notifyToListeners(container.getSortedListeners(event.getType()), event, callbackClass, callback);
                     }
                 }
             }
 
             // Global listener container.
             if ((callback == null) || !callback.abort()) {
-                callback = notifyToListeners(Listeners.Global().getListeners(event.getType()), event, callbackClass, callback);
+                callback = notifyToListeners(Listeners.Global().getSortedListeners(event.getType()), event, callbackClass, callback);
             }
 
             return callback;
         } catch (Exception e) {
             LOGGER.warn(getClass().getSimpleName() + ": Couldn't notify event " + event.getClass().getSimpleName(), e);
+        } finally {
+            if (event != null) {
+                metrics[event.getType().ordinal()].record(System.nanoTime() - start);
+            }
         }
         return null;
     }
@@ -167,17 +242,19 @@ public final class EventDispatcher {
             throw new NullPointerException("Event cannot be null!");
         }
 
+        final long start = System.nanoTime();
         T callback = null;
         // Local listener container first.
         if (container != null) {
-            callback = notifyToListeners(container.getListeners(event.getType()), event, callbackClass, callback);
+            callback = notifyToListeners(container.getSortedListeners(event.getType()), event, callbackClass, callback);
         }
 
         // Global listener container.
         if ((callback == null) || !callback.abort()) {
-            callback = notifyToListeners(Listeners.Global().getListeners(event.getType()), event, callbackClass, callback);
+            callback = notifyToListeners(Listeners.Global().getSortedListeners(event.getType()), event, callbackClass, callback);
         }
 
+        metrics[event.getType().ordinal()].record(System.nanoTime() - start);
         return callback;
     }
 
@@ -189,7 +266,7 @@ public final class EventDispatcher {
      * @param callback
      * @return
      */
-    private <T extends AbstractEventReturn> T notifyToListeners(Queue<AbstractEventListener> listeners, IBaseEvent event, Class<T> returnBackClass, T callback) {
+    private <T extends AbstractEventReturn> T notifyToListeners(AbstractEventListener[] listeners, IBaseEvent event, Class<T> returnBackClass, T callback) {
         for (AbstractEventListener listener : listeners) {
             try {
                 final T rb = listener.executeEvent(event, returnBackClass);
@@ -211,6 +288,27 @@ public final class EventDispatcher {
         return callback;
     }
 
+    public CharSequence getStats() {
+        final StringBuilder stats = new StringBuilder();
+        stats.append("Events\n");
+        stats.append("=================================================\n");
+        stats.append("\tdispatched: ......... ").append(Arrays.stream(metrics).mapToLong(m -> m.count.sum()).sum()).append('\n');
+        stats.append("\tskipped: ............ ").append(Arrays.stream(metrics).mapToLong(m -> m.skipped.sum()).sum()).append('\n');
+        asyncExecutor.appendStats(stats);
+        stats.append("\tmost dispatched (calls / avg us / max us / skipped):\n");
+        Arrays.stream(metrics).filter(m -> m.count.sum() > 0).sorted(Comparator.comparingLong((EventMetrics m) -> m.count.sum()).reversed()).limit(10).forEach(m ->
+            stats.append("\t\t").append(m.type).append(": ").append(m.count.sum()).append(" / ").append(TimeUnit.NANOSECONDS.toMicros(m.average()))
+                 .append(" / ").append(TimeUnit.NANOSECONDS.toMicros(m.max.get())).append(" / ").append(m.skipped.sum()).append('\n'));
+        return stats;
+    }
+
+    /**
+     * Stops the asynchronous event threads, waiting for the pending events. Later events are discarded.
+     */
+    public void shutdown() {
+        asyncExecutor.shutdown();
+    }
+
     public static EventDispatcher getInstance() {
         return Singleton.INSTANCE;
     }
@@ -218,4 +316,27 @@ public final class EventDispatcher {
     private static class Singleton {
         private static final EventDispatcher INSTANCE = new EventDispatcher();
     }
+
+    private static final class EventMetrics {
+        private final EventType type;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private EventMetrics(EventType type) {
+            this.type = type;
+        }
+
+        private void record(long nanos) {
+            count.increment();
+            total.add(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        private long average() {
+            final long calls = count.sum();
+            return calls > 0 ? total.sum() / calls : 0;
+        }
+    }
 }
@@ -18,20 +18,30 @@
  */
 package org.l2j.gameserver.model.events;
 
-import org.l2j.commons.util.EmptyQueue;
 import org.l2j.gameserver.model.events.listeners.AbstractEventListener;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.function.Predicate;
 
 /**
+ * The listeners of each event type are kept in an immutable array sorted by priority, which is replaced on every registration change.
+ * The notification only walks the current array, without locks or allocation.<br>
+ * <br>
+ * The event types having listeners are also kept in a bitmask, so checking for listeners before building an event costs a single array read.
+ *
  * @author UnAfraid
  */
 public class ListenersContainer {
-    private volatile Map<EventType, Queue<AbstractEventListener>> _listeners = null;
+    protected static final AbstractEventListener[] EMPTY_LISTENERS = new AbstractEventListener[0];
+    private static final long[] NO_TYPES = new long[(EventType.values().length + 63) >>> 6];
+
+    private volatile Map<EventType, AbstractEventListener[]> _listeners = null;
+    private volatile long[] registeredTypes = NO_TYPES;
+    private volatile int registrationVersion;
 
     /**
      * Registers listener for a callback when specified event is executed.
@@ -43,7 +53,17 @@ public class ListenersContainer {
         if ((listener == null)) {
             throw new NullPointerException("Listener cannot be null!");
         }
-        getListeners().computeIfAbsent(listener.getType(), k -> new PriorityBlockingQueue<>()).add(listener);
+        getListeners().compute(listener.getType(), (type, listeners) -> {
+            if (listeners == null) {
+                return new AbstractEventListener[] { listener };
+            }
+            final var added = Arrays.copyOf(listeners, listeners.length + 1);
+            added[listeners.length] = listener;
+            // stable sort, listeners with same priority keep the registration order
+            Arrays.sort(added);
+            return added;
+        });
+        onRegistrationChange(listener.getType());
         return listener;
     }
 
@@ -62,30 +82,59 @@ public class ListenersContainer {
             throw new IllegalAccessError("Listeners container doesn't had " + listener.getType() + " event type added!");
         }
 
-        _listeners.get(listener.getType()).remove(listener);
+        _listeners.computeIfPresent(listener.getType(), (type, listeners) -> {
+            for (int i = 0; i < listeners.length; i++) {
+                if (listeners[i] == listener) {
+                    if (listeners.length == 1) {
+                        return null;
+                    }
+                    final var removed = new AbstractEventListener[listeners.length - 1];
+                    System.arraycopy(listeners, 0, removed, 0, i);
+                    System.arraycopy(listeners, i + 1, removed, i, removed.length - i);
+                    return removed;
+                }
+            }
+            return listeners;
+        });
+        onRegistrationChange(listener.getType());
         return listener;
     }
 
     /**
      * @param type
-     * @return {@code List} of {@link AbstractEventListener} by the specified type
+     * @return {@code List} of {@link AbstractEventListener} by the specified type, sorted by priority
      */
-    public Queue<AbstractEventListener> getListeners(EventType type) {
-        return (_listeners != null) && _listeners.containsKey(type) ? _listeners.get(type) : EmptyQueue.emptyQueue();
+    public List<AbstractEventListener> getListeners(EventType type) {
+        final var listeners = getSortedListeners(type);
+        return listeners.length == 0 ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(listeners));
+    }
+
+    /**
+     * @param type
+     * @return the listeners of the specified type sorted by priority. The array is shared and must not be modified.
+     */
+    public AbstractEventListener[] getSortedListeners(EventType type) {
+        final var listeners = _listeners;
+        AbstractEventListener[] typeListeners;
+        return (listeners != null) && (typeListeners = listeners.get(type)) != null ? typeListeners : EMPTY_LISTENERS;
     }
 
     public void removeListenerIf(EventType type, Predicate<? super AbstractEventListener> filter) {
-        getListeners(type).stream().filter(filter).forEach(AbstractEventListener::unregisterMe);
+        for (AbstractEventListener listener : getSortedListeners(type)) {
+            if (filter.test(listener)) {
+                listener.unregisterMe();
+            }
+        }
     }
 
     public void removeListenerIf(Predicate<? super AbstractEventListener> filter) {
         if (_listeners != null) {
-            getListeners().values().forEach(queue -> queue.stream().filter(filter).forEach(AbstractEventListener::unregisterMe));
+            getListeners().values().forEach(listeners -> Arrays.stream(listeners).filter(filter).forEach(AbstractEventListener::unregisterMe));
         }
     }
 
     public boolean hasListener(EventType type) {
-        return !getListeners(type).isEmpty();
+        return (registeredTypes[type.ordinal() >>> 6] & (1L << type.ordinal())) != 0;
     }
 
     /**
@@ -93,7 +142,7 @@ public class ListenersContainer {
      *
      * @return the listeners container map.
      */
-    private Map<EventType, Queue<AbstractEventListener>> getListeners() {
+    private Map<EventType, AbstractEventListener[]> getListeners() {
         if (_listeners == null) {
             synchronized (this) {
                 if (_listeners == null) {
@@ -103,4 +152,52 @@ public class ListenersContainer {
         }
         return _listeners;
     }
+
+    private void onRegistrationChange(EventType type) {
+        synchronized (this) {
+            // the map is read after the change, the last registration of the type always publishes its final state
+            final var types = registeredTypes.clone();
+            if (_listeners.containsKey(type)) {
+                types[type.ordinal() >>> 6] |= 1L << type.ordinal();
+            } else {
+                types[type.ordinal() >>> 6] &= ~(1L << type.ordinal());
+            }
+            registeredTypes = types;
+            registrationVersion++;
+        }
+    }
+
+    /**
+     * @return a number changed on every listener registration change of this container, used to invalidate views merging listeners of many containers.
+     */
+    public int getRegistrationVersion() {
+        return registrationVersion;
+    }
+
+    /**
+     * Merges the listeners of many containers, sorted by priority. Listeners with same priority keep the containers order.
+     */
+    protected static AbstractEventListener[] merge(AbstractEventListener[]... listeners) {
+        int size = 0;
+        AbstractEventListener[] single = EMPTY_LISTENERS;
+        for (AbstractEventListener[] containerListeners : listeners) {
+            if (containerListeners.length > 0) {
+                single = size == 0 ? containerListeners : null;
+                size += containerListeners.length;
+            }
+        }
+
+        if (single != null) {
+            return single;
+        }
+
+        final var merged = new AbstractEventListener[size];
+        int index = 0;
+        for (AbstractEventListener[] containerListeners : listeners) {
+            System.arraycopy(containerListeners, 0, merged, index, containerListeners.length);
+            index += containerListeners.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
 }
@@ -19,6 +19,7 @@
 package org.l2j.gameserver.model.item.container;
 
 import org.l2j.commons.database.DatabaseFactory;
+import org.l2j.gameserver.engine.item.ItemPersistenceEngine;
 import org.l2j.gameserver.enums.ItemLocation;
 import org.l2j.gameserver.model.actor.instance.Player;
 import org.l2j.gameserver.model.item.instance.Item;
@@ -93,6 +94,7 @@ public class Attachment extends ItemContainer {
 
     @Override
     public void restore() {
+        ItemPersistenceEngine.getInstance().flush(_ownerId);
         try (Connection con = DatabaseFactory.getInstance().getConnection();
              PreparedStatement statement = con.prepareStatement("SELECT * FROM items WHERE owner_id=? AND loc=? AND loc_data=?")) {
             statement.setInt(1, _ownerId);
@@ -23,6 +23,7 @@ import org.l2j.gameserver.Config;
 import org.l2j.gameserver.api.item.InventoryListener;
 import org.l2j.gameserver.data.xml.impl.ArmorSetsData;
 import org.l2j.gameserver.engine.item.ItemEngine;
+import org.l2j.gameserver.engine.item.ItemPersistenceEngine;
 import org.l2j.gameserver.enums.InventorySlot;
 import org.l2j.gameserver.enums.ItemLocation;
 import org.l2j.gameserver.model.ArmorSet;
@@ -651,6 +652,7 @@ public abstract class Inventory extends ItemContainer {
      */
     @Override
     public void restore() {
+        ItemPersistenceEngine.getInstance().flush(getOwnerId());
         try (Connection con = DatabaseFactory.getInstance().getConnection();
              PreparedStatement ps = con.prepareStatement("SELECT * FROM items WHERE owner_id=? AND (loc=? OR loc=?) ORDER BY loc_data")) {
             ps.setInt(1, getOwnerId());
@@ -25,6 +25,7 @@ import org.l2j.commons.database.DatabaseFactory;
 import org.l2j.commons.util.StreamUtil;
 import org.l2j.gameserver.Config;
 import org.l2j.gameserver.engine.item.ItemEngine;
+import org.l2j.gameserver.engine.item.ItemPersistenceEngine;
 import org.l2j.gameserver.enums.ItemLocation;
 import org.l2j.gameserver.model.WorldObject;
 import org.l2j.gameserver.model.actor.Creature;
@@ -556,6 +557,7 @@ public abstract class ItemContainer {
      * Get back items in container from database
      */
     public void restore() {
+        ItemPersistenceEngine.getInstance().flush(getOwnerId());
         try (Connection con = DatabaseFactory.getInstance().getConnection();
              PreparedStatement ps = con.prepareStatement("SELECT * FROM items WHERE owner_id=? AND (loc=?)")) {
             ps.setInt(1, getOwnerId());
@@ -24,6 +24,7 @@ import org.l2j.commons.util.Util;
 import org.l2j.gameserver.Config;
 import org.l2j.gameserver.api.item.PlayerInventoryListener;
 import org.l2j.gameserver.engine.item.ItemEngine;
+import org.l2j.gameserver.engine.item.ItemPersistenceEngine;
 import org.l2j.gameserver.enums.InventoryBlockType;
 import org.l2j.gameserver.enums.InventorySlot;
 import org.l2j.gameserver.enums.ItemLocation;
@@ -80,6 +81,7 @@ public class PlayerInventory extends Inventory {
 
     public static int[][] restoreVisibleInventory(int objectId) {
         final int[][] paperdoll = new int[InventorySlot.TOTAL_SLOTS][3];
+        ItemPersistenceEngine.getInstance().flush(objectId);
         try (Connection con = DatabaseFactory.getInstance().getConnection();
              PreparedStatement statement2 = con.prepareStatement("SELECT object_id,item_id,loc_data,enchant_level FROM items WHERE owner_id=? AND loc='PAPERDOLL'")) {
             statement2.setInt(1, objectId);
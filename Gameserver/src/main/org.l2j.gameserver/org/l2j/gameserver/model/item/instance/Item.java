@@ -26,7 +26,9 @@ import org.l2j.gameserver.data.xml.impl.AugmentationEngine;
 import org.l2j.gameserver.data.xml.impl.EnchantItemOptionsData;
 import org.l2j.gameserver.data.xml.impl.EnsoulData;
 import org.l2j.gameserver.engine.geo.GeoEngine;
+import org.l2j.gameserver.engine.item.ItemChanges;
 import org.l2j.gameserver.engine.item.ItemEngine;
+import org.l2j.gameserver.engine.item.ItemPersistenceEngine;
 import org.l2j.gameserver.engine.skill.api.Skill;
 import org.l2j.gameserver.enums.*;
 import org.l2j.gameserver.idfactory.IdFactory;
@@ -351,6 +353,11 @@ public final class Item extends WorldObject {
         // Remove any inventory skills from the old owner.
         removeSkillsFromOwner();
 
+        if (_existsInDb && ItemPersistenceEngine.getInstance().isEnabled()) {
+            // the record belongs to the old owner until it is written, a restore of the old owner must write it first
+            ItemPersistenceEngine.getInstance().enqueue(this, _ownerId);
+        }
+
         _ownerId = owner_id;
         _storedInDb = false;
 
@@ -1109,17 +1116,25 @@ public final class Item extends WorldObject {
      * @param force if the update should necessarilly be done.
      */
     public void updateDatabase(boolean force) {
+        final var persistence = ItemPersistenceEngine.getInstance();
+        if (persistence.isEnabled()) {
+            if (needsStore(force)) {
+                persistence.enqueue(this);
+            }
+            return;
+        }
+
         _dbLock.lock();
 
         try {
             if (_existsInDb) {
-                if ((_ownerId == 0) || (loc == ItemLocation.VOID) || (loc == ItemLocation.REFUND) || ((_count == 0) && (loc != ItemLocation.LEASE))) {
+                if (isRemovable()) {
                     removeFromDb();
                 } else if (!Config.LAZY_ITEMS_UPDATE || force) {
                     updateInDb();
                 }
             } else {
-                if ((_ownerId == 0) || (loc == ItemLocation.VOID) || (loc == ItemLocation.REFUND) || ((_count == 0) && (loc != ItemLocation.LEASE))) {
+                if (isRemovable()) {
                     return;
                 }
                 insertIntoDb();
@@ -1129,6 +1144,96 @@ public final class Item extends WorldObject {
         }
     }
 
+    private boolean needsStore(boolean force) {
+        _dbLock.lock();
+        try {
+            if (_wear) {
+                return false;
+            }
+            if (_existsInDb) {
+                return isRemovable() || force || !Config.LAZY_ITEMS_UPDATE;
+            }
+            return !isRemovable();
+        } finally {
+            _dbLock.unlock();
+        }
+    }
+
+    private boolean isRemovable() {
+        return (_ownerId == 0) || (loc == ItemLocation.VOID) || (loc == ItemLocation.REFUND) || ((_count == 0) && (loc != ItemLocation.LEASE));
+    }
+
+    /**
+     * Adds the current state of the item to the changes written by the {@link ItemPersistenceEngine}.<br>
+     * The item is marked as stored, when the write fails {@link #onStoreFailed(boolean)} restores it.
+     *
+     * @param changes the changes of the flush
+     */
+    public void storeChanges(ItemChanges changes) {
+        _dbLock.lock();
+        try {
+            if (_wear) {
+                return;
+            }
+
+            if (isRemovable()) {
+                if (_existsInDb) {
+                    changes.track(this, true);
+                    changes.deleteItem(getObjectId());
+                    _existsInDb = false;
+                    _storedInDb = false;
+                }
+                return;
+            }
+
+            if (_existsInDb) {
+                if (_storedInDb) {
+                    return;
+                }
+                changes.track(this, true);
+                changes.updateItem(_ownerId, _count, loc, _locData, enchantLevel, _time, getObjectId());
+            } else {
+                if (getObjectId() == 0) {
+                    return;
+                }
+                changes.track(this, false);
+                changes.insertItem(_ownerId, itemId, _count, loc, _locData, enchantLevel, getObjectId(), _time);
+            }
+            _existsInDb = true;
+            _storedInDb = true;
+
+            if (_augmentation != null) {
+                changes.replaceVariation(getObjectId(), _augmentation.getMineralId(), _augmentation.getOption1Id(), _augmentation.getOption2Id());
+            }
+            if (_elementals != null) {
+                changes.replaceAttributes(getObjectId(), _elementals.values());
+            }
+            for (Entry<Integer, EnsoulOption> entry : _ensoulOptions.entrySet()) {
+                changes.upsertSpecialAbility(getObjectId(), 1, entry.getValue().getId(), entry.getKey()); // regular options
+            }
+            for (Entry<Integer, EnsoulOption> entry : _ensoulSpecialOptions.entrySet()) {
+                changes.upsertSpecialAbility(getObjectId(), 2, entry.getValue().getId(), entry.getKey()); // special options
+            }
+        } finally {
+            _dbLock.unlock();
+        }
+    }
+
+    /**
+     * Restores the database state of the item after its changes could not be written.
+     *
+     * @param existedInDb if the item had a record before the write
+     */
+    public void onStoreFailed(boolean existedInDb) {
+        _dbLock.lock();
+        try {
+            _existsInDb = existedInDb;
+            _storedInDb = false;
+        } finally {
+            _dbLock.unlock();
+        }
+    }
+
     public final void dropMe(Creature dropper, int x, int y, int z) {
         ThreadPool.execute(new ItemDropTask(this, dropper, x, y, z));
         if (GameUtils.isPlayer(dropper)) {
@@ -40,6 +40,7 @@ import org.l2j.gameserver.model.actor.Summon;
 import org.l2j.gameserver.model.actor.instance.Player;
 import org.l2j.gameserver.model.effects.EffectType;
 import org.l2j.gameserver.model.events.EventDispatcher;
+import org.l2j.gameserver.model.events.EventType;
 import org.l2j.gameserver.model.events.impl.character.OnCreatureSkillFinishCast;
 import org.l2j.gameserver.model.events.impl.character.OnCreatureSkillUse;
 import org.l2j.gameserver.model.events.impl.character.npc.OnNpcSkillSee;
@@ -261,9 +262,13 @@ public class SkillCaster implements Runnable {
                 }
 
                 // Mobs in range 1000 see spell
+                final var dispatcher = EventDispatcher.getInstance();
                 World.getInstance().forEachVisibleObjectInRange(player, Npc.class, 1000, npcMob ->
                 {
-                    EventDispatcher.getInstance().notifyEventAsync(new OnNpcSkillSee(npcMob, player, skill, isSummon(caster), targets.toArray(WorldObject[]::new)), npcMob);
+                    // checked before building anything, most npcs have no listener
+                    if (dispatcher.hasListener(EventType.ON_NPC_SKILL_SEE, npcMob)) {
+                        dispatcher.notifyEventAsync(new OnNpcSkillSee(npcMob, player, skill, isSummon(caster), targets.toArray(WorldObject[]::new)), npcMob);
+                    }
 
                     // On Skill See logic
                     if (isAttackable(npcMob)) {
@@ -357,7 +362,7 @@ public class SkillCaster implements Runnable {
             return false;
         }
 
-        final TerminateReturn term = EventDispatcher.getInstance().notifyEvent(new OnCreatureSkillUse(caster, skill, skill.isWithoutAction()), caster, TerminateReturn.class);
+        final TerminateReturn term = EventDispatcher.getInstance().notifyEvent(EventType.ON_CREATURE_SKILL_USE, () -> new OnCreatureSkillUse(caster, skill, skill.isWithoutAction()), caster, TerminateReturn.class);
         if ((term != null) && term.terminate()) {
             caster.sendPacket(ActionFailed.STATIC_PACKET);
             return false;
@@ -680,7 +685,7 @@ public class SkillCaster implements Runnable {
         }
 
         // Notify skill is casted.
-        EventDispatcher.getInstance().notifyEvent(new OnCreatureSkillFinishCast(caster, target, _skill, _skill.isWithoutAction()), caster);
+        EventDispatcher.getInstance().notifyEvent(EventType.ON_CREATURE_SKILL_FINISH_CAST, () -> new OnCreatureSkillFinishCast(caster, target, _skill, _skill.isWithoutAction()), caster);
 
         // Call the skill's effects and AI interraction and stuff.
         callSkill(caster, target, _targets, _skill, _item);
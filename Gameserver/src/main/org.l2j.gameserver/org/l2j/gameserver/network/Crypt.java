@@ -19,15 +19,28 @@
 package org.l2j.gameserver.network;
 
 import org.l2j.gameserver.model.events.EventDispatcher;
+import org.l2j.gameserver.model.events.EventType;
+import org.l2j.gameserver.model.events.Listeners;
 import org.l2j.gameserver.model.events.impl.server.OnPacketReceived;
 import org.l2j.gameserver.model.events.impl.server.OnPacketSent;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
 import static java.lang.Byte.toUnsignedInt;
 
 /**
  * @author UnAfraid, Nos
  */
 public class Crypt {
+    /**
+     * Little endian views used to process 8 bytes of the packet at a time, the byte order matches the key position of each byte.
+     */
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_VIEW = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long BYTE_BROADCAST = 0x0101010101010101L;
+
     private final GameClient _client;
     private final byte[] _inKey = new byte[16];
     private final byte[] outKey = new byte[16];
@@ -50,15 +63,7 @@ public class Crypt {
         }
 
         onPacketSent(data);
-
-        int encrypted = 0;
-        for (int i = 0; i < size; i++) {
-            int raw = toUnsignedInt(data[offset + i]);
-            encrypted =  raw ^ outKey[i & 0x0F] ^ encrypted;
-            data[offset + i] = (byte) encrypted;
-        }
-
-        shiftKey(outKey, size);
+        encrypt(outKey, data, offset, size);
         return data;
     }
 
@@ -68,38 +73,80 @@ public class Crypt {
             return true;
         }
 
-        int xOr = 0;
-        for(int i = 0; i < size; i++) {
-            int encrypted =  toUnsignedInt(data[offset + i]);
-            data[offset + i] = (byte) (encrypted ^ _inKey[i & 15] ^ xOr);
-            xOr  = encrypted;
-        }
-
-        shiftKey(_inKey, size);
+        decrypt(_inKey, data, offset, size);
         onPacketReceive(data);
         return true;
 
     }
 
-    private void onPacketSent(byte[] data) {
-        EventDispatcher.getInstance().notifyEvent(new OnPacketSent(_client, data));
+    /**
+     * Encrypts the data and shifts the key. {@link ReferenceCrypt} has the byte at a time version of this cipher.
+     */
+    static void encrypt(byte[] key, byte[] data, int offset, int size) {
+        final long lowKey = (long) LONG_VIEW.get(key, 0);
+        final long highKey = (long) LONG_VIEW.get(key, 8);
+
+        int i = 0;
+        long encrypted = 0;
+        // each encrypted byte is xor-ed with the previous one, so the chain is resolved as a prefix xor inside each word
+        for (; i + Long.BYTES <= size; i += Long.BYTES) {
+            long word = (long) LONG_VIEW.get(data, offset + i) ^ ((i & 8) == 0 ? lowKey : highKey);
+            word ^= word << 8;
+            word ^= word << 16;
+            word ^= word << 32;
+            word ^= encrypted * BYTE_BROADCAST;
+            LONG_VIEW.set(data, offset + i, word);
+            encrypted = word >>> 56;
+        }
+
+        for (; i < size; i++) {
+            encrypted = toUnsignedInt(data[offset + i]) ^ key[i & 0x0F] ^ encrypted;
+            data[offset + i] = (byte) encrypted;
+        }
+
+        shiftKey(key, size);
     }
 
-    private void onPacketReceive(byte[] data) {
-        EventDispatcher.getInstance().notifyEvent(new OnPacketReceived(_client, data));
+    /**
+     * Decrypts the data and shifts the key. {@link ReferenceCrypt} has the byte at a time version of this cipher.
+     */
+    static void decrypt(byte[] key, byte[] data, int offset, int size) {
+        final long lowKey = (long) LONG_VIEW.get(key, 0);
+        final long highKey = (long) LONG_VIEW.get(key, 8);
+
+        int i = 0;
+        long xOr = 0;
+        for (; i + Long.BYTES <= size; i += Long.BYTES) {
+            final long encrypted = (long) LONG_VIEW.get(data, offset + i);
+            LONG_VIEW.set(data, offset + i, encrypted ^ ((i & 8) == 0 ? lowKey : highKey) ^ ((encrypted << 8) | xOr));
+            xOr = encrypted >>> 56;
+        }
+
+        for (; i < size; i++) {
+            final int encrypted = toUnsignedInt(data[offset + i]);
+            data[offset + i] = (byte) (encrypted ^ key[i & 15] ^ xOr);
+            xOr = encrypted;
+        }
+
+        shiftKey(key, size);
     }
 
-    private void shiftKey(byte[] key, int size) {
-        int old = key[8] & 0xff;
-        old |= (key[9] << 8) & 0xff00;
-        old |= (key[10] << 0x10) & 0xff0000;
-        old |= (key[11] << 0x18) & 0xff000000;
+    /**
+     * The packet events are only global, so the event is only created when there is a global listener for it.
+     */
+    private void onPacketSent(byte[] data) {
+        if (Listeners.Global().hasListener(EventType.ON_PACKET_SENT)) {
+            EventDispatcher.getInstance().notifyEvent(new OnPacketSent(_client, data));
+        }
+    }
 
-        old += size;
+    private void onPacketReceive(byte[] data) {
+        if (Listeners.Global().hasListener(EventType.ON_PACKET_RECEIVED)) {
+            EventDispatcher.getInstance().notifyEvent(new OnPacketReceived(_client, data));
+        }
+    }
 
-        key[8] = (byte) (old & 0xff);
-        key[9] = (byte) ((old >> 0x08) & 0xff);
-        key[10] = (byte) ((old >> 0x10) & 0xff);
-        key[11] = (byte) ((old >> 0x18) & 0xff);
+    private static void shiftKey(byte[] key, int size) {
+        INT_VIEW.set(key, 8, (int) INT_VIEW.get(key, 8) + size);
     }
 }
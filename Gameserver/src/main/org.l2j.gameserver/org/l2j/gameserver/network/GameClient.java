@@ -20,7 +20,10 @@ package org.l2j.gameserver.network;
 
 import io.github.joealisson.mmocore.Client;
 import io.github.joealisson.mmocore.Connection;
+import org.l2j.commons.metrics.Counter;
+import org.l2j.commons.metrics.MetricsRegistry;
 import org.l2j.commons.network.SessionKey;
+import org.l2j.commons.threading.ThreadPool;
 import org.l2j.commons.util.Util;
 import org.l2j.gameserver.Config;
 import org.l2j.gameserver.data.database.dao.AccountDAO;
@@ -31,6 +34,7 @@ import org.l2j.gameserver.data.database.data.AccountData;
 import org.l2j.gameserver.data.sql.impl.ClanTable;
 import org.l2j.gameserver.data.sql.impl.PlayerNameTable;
 import org.l2j.gameserver.data.xml.SecondaryAuthManager;
+import org.l2j.gameserver.engine.item.ItemPersistenceEngine;
 import org.l2j.gameserver.engine.mail.MailEngine;
 import org.l2j.gameserver.engine.vip.VipEngine;
 import org.l2j.gameserver.enums.CharacterDeleteFailType;
@@ -44,6 +48,7 @@ import org.l2j.gameserver.network.authcomm.AuthServerCommunication;
 import org.l2j.gameserver.network.authcomm.gs2as.PlayerLogout;
 import org.l2j.gameserver.network.serverpackets.*;
 import org.l2j.gameserver.network.serverpackets.vip.ReceiveVipInfo;
+import org.l2j.gameserver.settings.ServerSettings;
 import org.l2j.gameserver.util.FloodProtectors;
 import org.l2j.gameserver.world.World;
 import org.slf4j.Logger;
@@ -52,11 +57,15 @@ import org.slf4j.LoggerFactory;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static org.l2j.commons.configuration.Configurator.getSettings;
 import static org.l2j.commons.database.DatabaseAccess.getDAO;
 import static org.l2j.commons.util.Util.hash;
 import static org.l2j.commons.util.Util.isNotEmpty;
@@ -71,11 +80,24 @@ public final class GameClient extends Client<Connection<GameClient>> {
     protected static final Logger LOGGER = LoggerFactory.getLogger(GameClient.class);
     protected static final Logger LOGGER_ACCOUNTING = LoggerFactory.getLogger("accounting");
 
+    private static final Counter HELD_PACKETS;
+    private static final Counter SUPERSEDED_PACKETS;
+
+    static {
+        final var metrics = MetricsRegistry.getInstance();
+        HELD_PACKETS = metrics.counter("l2j_packets_held_total", "client", "game");
+        SUPERSEDED_PACKETS = metrics.counter("l2j_packets_superseded_total", "client", "game");
+        metrics.gauge("l2j_packets_superseded_ratio_percent", "client", "game", GameClient::getSupersededPercent);
+    }
+
     private final ReentrantLock activeCharLock = new ReentrantLock();
 
     private final FloodProtectors floodProtectors = new FloodProtectors(this);
 
     private final Crypt crypt;
+    private final List<ServerPacket> pendingPackets = new ArrayList<>();
+    private volatile boolean hasPendingPackets;
+    private boolean flushScheduled;
     private String accountName;
     private SessionKey sessionId;
     private Player player;
@@ -89,7 +111,7 @@ public final class GameClient extends Client<Connection<GameClient>> {
     private int[][] trace;
 
     private ConnectionState state;
-    private AccountData account;
+    private CompletableFuture<AccountData> account;
     private boolean secondaryAuthed;
 
     public GameClient(Connection<GameClient> connection) {
@@ -105,6 +127,7 @@ public final class GameClient extends Client<Connection<GameClient>> {
         PlayerNameTable.getInstance().removeName(objId);
         getDAO(PetDAO.class).deleteByOwner(objId);
 
+        ItemPersistenceEngine.getInstance().flush();
         var itemDAO = getDAO(ItemDAO.class);
         itemDAO.deleteVariationsByOwner(objId);
         itemDAO.deleteSpecialAbilitiesByOwner(objId);
@@ -149,10 +172,12 @@ public final class GameClient extends Client<Connection<GameClient>> {
     }
 
     public void closeNow() {
+        flushPackets();
         super.close(null);
     }
 
     public void close(ServerPacket packet) {
+        flushPackets();
         super.close(packet);
     }
 
@@ -197,10 +222,8 @@ public final class GameClient extends Client<Connection<GameClient>> {
     public synchronized void setAccountName(String accountName) {
         this.accountName = accountName;
 
-        account = getDAO(AccountDAO.class).findById(this.accountName);
-        if(isNull(account)) {
-            createNewAccountData();
-        }
+        // the network thread doesn't wait for the account, it's only joined when the data is first needed
+        account = getDAO(AccountDAO.class).findByIdAsync(accountName).thenApply(data -> isNull(data) ? newAccountData(accountName) : data);
     }
 
     public SessionKey getSessionId() {
@@ -216,10 +239,67 @@ public final class GameClient extends Client<Connection<GameClient>> {
             return;
         }
 
-        writePacket(packet);
+        final int collapseWindow = getSettings(ServerSettings.class).packetCollapseWindow();
+        if (collapseWindow > 0 && nonNull(player) && packet.canBeSuperseded()) {
+            holdPacket(packet, collapseWindow);
+        } else {
+            if (hasPendingPackets) {
+                // the held packets were sent before this one
+                flushPackets();
+            }
+            writePacket(packet);
+        }
         packet.runImpl(player);
     }
 
+    /**
+     * Holds the packet until the window ends or another kind of packet is sent, dropping the held packets it supersedes.
+     */
+    private void holdPacket(ServerPacket packet, int collapseWindow) {
+        HELD_PACKETS.increment();
+        synchronized (pendingPackets) {
+            final int pending = pendingPackets.size();
+            pendingPackets.removeIf(packet::supersedes);
+            SUPERSEDED_PACKETS.add(pending - pendingPackets.size());
+            pendingPackets.add(packet);
+            hasPendingPackets = true;
+
+            if (!flushScheduled) {
+                flushScheduled = true;
+                ThreadPool.schedule(this::onCollapseWindowEnd, collapseWindow);
+            }
+        }
+    }
+
+    private void onCollapseWindowEnd() {
+        synchronized (pendingPackets) {
+            flushScheduled = false;
+            flushPackets();
+        }
+    }
+
+    private void flushPackets() {
+        synchronized (pendingPackets) {
+            if (!hasPendingPackets) {
+                return;
+            }
+
+            hasPendingPackets = false;
+            if (!isDetached) {
+                pendingPackets.forEach(this::writePacket);
+            }
+            pendingPackets.clear();
+        }
+    }
+
+    /**
+     * @return the percentage of the held packets dropped because a newer one superseded them
+     */
+    private static long getSupersededPercent() {
+        final long held = HELD_PACKETS.count();
+        return held > 0 ? (SUPERSEDED_PACKETS.count() * 100) / held : 0;
+    }
+
 
     public void sendPacket(SystemMessageId smId) {
         sendPacket(SystemMessage.getSystemMessage(smId));
@@ -343,12 +423,13 @@ public final class GameClient extends Client<Connection<GameClient>> {
     }
 
     private AccountData getAccountData() {
-        return account;
+        return account.join();
     }
 
-    private void createNewAccountData() {
-        account = new AccountData();
-        account.setAccount(accountName);
+    private static AccountData newAccountData(String accountName) {
+        final var data = new AccountData();
+        data.setAccount(accountName);
+        return data;
     }
 
     public void sendActionFailed() {
@@ -454,7 +535,7 @@ public final class GameClient extends Client<Connection<GameClient>> {
     }
 
     public boolean hasSecondPassword() {
-        return isNotEmpty(account.getSecAuthPassword());
+        return isNotEmpty(getAccountData().getSecAuthPassword());
     }
 
     public boolean saveSecondPassword(String password) {
@@ -471,8 +552,8 @@ public final class GameClient extends Client<Connection<GameClient>> {
 
         try {
             var cripted = hash(password);
-            account.setSecAuthPassword(cripted);
-            account.setSecAuthAttempts(0);
+            getAccountData().setSecAuthPassword(cripted);
+            getAccountData().setSecAuthAttempts(0);
             return true;
         } catch (NoSuchAlgorithmException e) {
             LOGGER.error("Unsupported Algorithm", e);
@@ -509,7 +590,7 @@ public final class GameClient extends Client<Connection<GameClient>> {
         }
 
         try {
-            account.setSecAuthPassword(hash(newPassword));
+            getAccountData().setSecAuthPassword(hash(newPassword));
             secondaryAuthed = false;
             return true;
         } catch (NoSuchAlgorithmException e) {
@@ -522,8 +603,8 @@ public final class GameClient extends Client<Connection<GameClient>> {
         try {
             password = hash(password);
 
-            if (!Objects.equals(password, account.getSecAuthPassword())) {
-                var attempts = account.increaseSecAuthAttempts();
+            if (!Objects.equals(password, getAccountData().getSecAuthPassword())) {
+                var attempts = getAccountData().increaseSecAuthAttempts();
                 if (attempts  < SecondaryAuthManager.getInstance().getMaxAttempts()) {
                     sendPacket(new Ex2ndPasswordVerify(Ex2ndPasswordVerify.PASSWORD_WRONG, attempts));
                 } else {
@@ -541,9 +622,9 @@ public final class GameClient extends Client<Connection<GameClient>> {
 
         if (!skipAuth) {
             secondaryAuthed = true;
-            sendPacket(new Ex2ndPasswordVerify(Ex2ndPasswordVerify.PASSWORD_OK, account.getSecAuthAttempts()));
+            sendPacket(new Ex2ndPasswordVerify(Ex2ndPasswordVerify.PASSWORD_OK, getAccountData().getSecAuthAttempts()));
         }
-        account.setSecAuthAttempts(0);
+        getAccountData().setSecAuthAttempts(0);
         return true;
     }
 
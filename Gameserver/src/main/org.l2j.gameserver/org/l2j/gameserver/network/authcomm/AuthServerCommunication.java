@@ -21,6 +21,7 @@ package org.l2j.gameserver.network.authcomm;
 import io.github.joealisson.mmocore.Connector;
 import io.github.joealisson.mmocore.PacketExecutor;
 import io.github.joealisson.mmocore.ReadablePacket;
+import org.l2j.commons.threading.ExecutorGroup;
 import org.l2j.commons.threading.ThreadPool;
 import org.l2j.gameserver.network.GameClient;
 import org.l2j.gameserver.network.authcomm.gs2as.ChangePassword;
@@ -116,7 +117,7 @@ public class AuthServerCommunication implements Runnable, PacketExecutor<AuthSer
 
     @Override
     public void execute(ReadablePacket<AuthServerClient> packet) {
-        ThreadPool.execute(packet);
+        ThreadPool.execute(ExecutorGroup.NETWORK, packet);
     }
 
     public void shutdown() {
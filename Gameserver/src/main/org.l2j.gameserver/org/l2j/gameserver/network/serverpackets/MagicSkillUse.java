@@ -47,14 +47,19 @@ public final class MagicSkillUse extends ServerPacket {
     private final int _reuseDelay;
     private final int _actionId; // If skill is called from RequestActionUse, use that ID.
     private final SkillCastingType _castingType; // Defines which client bar is going to use.
-    private final Creature _activeChar;
-    private final WorldObject _target;
+    private final int _activeCharId;
+    private final Location _activeCharLoc;
+    private final int _targetId;
+    private final Location _targetLoc;
     private final List<Integer> _unknown = Collections.emptyList();
     private final List<Location> _groundLocations;
 
     public MagicSkillUse(Creature cha, WorldObject target, int skillId, int skillLevel, int hitTime, int reuseDelay, int reuseGroup, int actionId, SkillCastingType castingType) {
-        _activeChar = cha;
-        _target = target;
+        // the positions are taken now, the packet is broadcast and every receiver must see the same cast
+        _activeCharId = cha.getObjectId();
+        _activeCharLoc = cha.getLocation();
+        _targetId = target.getObjectId();
+        _targetLoc = target.getLocation();
         _skillId = skillId;
         _skillLevel = skillLevel;
         _hitTime = hitTime;
@@ -85,16 +90,16 @@ public final class MagicSkillUse extends ServerPacket {
         writeId(ServerPacketId.MAGIC_SKILL_USE);
 
         writeInt(_castingType.getClientBarId()); // Casting bar type: 0 - default, 1 - default up, 2 - blue, 3 - green, 4 - red.
-        writeInt(_activeChar.getObjectId());
-        writeInt(_target.getObjectId());
+        writeInt(_activeCharId);
+        writeInt(_targetId);
         writeInt(_skillId);
         writeInt(_skillLevel);
         writeInt(_hitTime);
         writeInt(_reuseGroup);
         writeInt(_reuseDelay);
-        writeInt(_activeChar.getX());
-        writeInt(_activeChar.getY());
-        writeInt(_activeChar.getZ());
+        writeInt(_activeCharLoc.getX());
+        writeInt(_activeCharLoc.getY());
+        writeInt(_activeCharLoc.getZ());
         writeShort((short) _unknown.size()); // TODO: Implement me!
         for (int unknown : _unknown) {
             writeShort((short) unknown);
@@ -105,9 +110,9 @@ public final class MagicSkillUse extends ServerPacket {
             writeInt(target.getY());
             writeInt(target.getZ());
         }
-        writeInt(_target.getX());
-        writeInt(_target.getY());
-        writeInt(_target.getZ());
+        writeInt(_targetLoc.getX());
+        writeInt(_targetLoc.getY());
+        writeInt(_targetLoc.getZ());
         writeInt(_actionId >= 0 ? 0x01 : 0x00); // 1 when ID from RequestActionUse is used
         writeInt(max(_actionId, 0)); // ID from RequestActionUse. Used to set cooldown on summon skills.
     }
@@ -41,6 +41,19 @@ public final class MoveToLocation extends ServerPacket {
         _zDst = cha.getZdestination();
     }
 
+    @Override
+    public boolean canBeSuperseded() {
+        return true;
+    }
+
+    /**
+     * The client moves the creature from the position of the newest packet, so the older ones are useless.
+     */
+    @Override
+    public boolean supersedes(ServerPacket pending) {
+        return (pending instanceof MoveToLocation) && (((MoveToLocation) pending)._charObjId == _charObjId);
+    }
+
     @Override
     public void writeImpl(GameClient client) {
         writeId(ServerPacketId.MOVE_TO_LOCATION);
@@ -78,6 +78,23 @@ public abstract class ServerPacket extends WritablePacket<GameClient> {
 
     }
 
+    /**
+     * @return true if this packet only refreshes a state, so it can be held for a while and dropped when a newer packet supersedes it
+     */
+    public boolean canBeSuperseded() {
+        return false;
+    }
+
+    /**
+     * Checks if this packet makes the held packet obsolete, only called when this packet can be superseded too.
+     *
+     * @param pending a packet held to be written to the same client
+     * @return true if the pending packet doesn't need to be written anymore
+     */
+    public boolean supersedes(ServerPacket pending) {
+        return false;
+    }
+
     public void writeOptionalD(int value) {
         if (value >= Short.MAX_VALUE) {
             writeShort(Short.MAX_VALUE);
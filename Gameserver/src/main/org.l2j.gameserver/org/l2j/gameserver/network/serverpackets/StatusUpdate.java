@@ -63,6 +63,27 @@ public final class StatusUpdate extends ServerPacket {
         return !updates.isEmpty();
     }
 
+    /**
+     * The visible updates show the caster animation, they are always written.
+     */
+    @Override
+    public boolean canBeSuperseded() {
+        return !isVisible;
+    }
+
+    /**
+     * A status update supersedes the one of the same object whose values are all updated by this.
+     */
+    @Override
+    public boolean supersedes(ServerPacket pending) {
+        if (!(pending instanceof StatusUpdate)) {
+            return false;
+        }
+
+        final StatusUpdate other = (StatusUpdate) pending;
+        return other.objectId == objectId && updates.keySet().containsAll(other.updates.keySet());
+    }
+
     @Override
     public void writeImpl(GameClient client) {
         writeId(ServerPacketId.STATUS_UPDATE);
@@ -52,6 +52,7 @@ public class GeneralSettings implements Settings {
     private boolean destroyEquipableItem;
     private IntSet protectedItems;
     private boolean clearDroppedItemsAfterLoad;
+    private Duration itemWriteBehindInterval;
 
     @Override
     public void load(SettingsFile settingsFile) {
@@ -71,6 +72,7 @@ public class GeneralSettings implements Settings {
         destroyEquipableItem = settingsFile.getBoolean("DestroyEquipableItem", false);
         protectedItems = settingsFile.getIntSet("ListOfProtectedItems", ",");
         clearDroppedItemsAfterLoad = settingsFile.getBoolean("EmptyDroppedItemTableAfterLoad", false);
+        itemWriteBehindInterval = settingsFile.getDuration("ItemWriteBehindInterval", ChronoUnit.MILLIS, 1000);
 
         allowMail = settingsFile.getBoolean("AllowMail", true);
 
@@ -123,6 +125,10 @@ public class GeneralSettings implements Settings {
         return clearDroppedItemsAfterLoad;
     }
 
+    public Duration itemWriteBehindInterval() {
+        return itemWriteBehindInterval;
+    }
+
     public int autoDestroyItemTime() {
         return autoDestroyItemTime;
     }
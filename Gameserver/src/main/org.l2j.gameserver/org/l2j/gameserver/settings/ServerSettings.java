@@ -20,9 +20,12 @@ package org.l2j.gameserver.settings;
 
 import org.l2j.commons.configuration.Settings;
 import org.l2j.commons.configuration.SettingsFile;
+import org.l2j.commons.threading.ExecutorGroup;
 import org.l2j.gameserver.ServerType;
 
 import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * @author JoeAlisson
@@ -39,11 +42,16 @@ public class ServerSettings implements Settings {
     private boolean isPvP;
     private int type;
     private short port;
+    private int packetCollapseWindow;
     private int maximumOnlineUsers;
     private Path dataPackDirectory;
 
     private int scheduledPoolSize;
     private int threadPoolSize;
+    private Map<ExecutorGroup, Integer> executorPoolSizes;
+    private int metricsPort;
+    private int asyncEventPoolSize;
+    private int asyncEventQueueSize;
     private int[] acceptedProtocols;
     private boolean scheduleRestart;
     private boolean useDeadLockDetector;
@@ -60,6 +68,7 @@ public class ServerSettings implements Settings {
         authServerPort = settingsFile.getShort("LoginPort", (short) 9014);
 
         port = settingsFile.getShort("GameserverPort", (short) 7777);
+        packetCollapseWindow = Math.max(0, settingsFile.getInteger("PacketCollapseWindow", 0));
 
         type = ServerType.maskOf(settingsFile.getStringArray("ServerListType"));
 
@@ -74,6 +83,14 @@ public class ServerSettings implements Settings {
 
         scheduledPoolSize = determinePoolSize(settingsFile, "ScheduledThreadPoolSize", processors);
         threadPoolSize = determinePoolSize(settingsFile, "ThreadPoolSize", processors);
+        executorPoolSizes = new EnumMap<>(ExecutorGroup.class);
+        executorPoolSizes.put(ExecutorGroup.NETWORK, determinePoolSize(settingsFile, "NetworkThreadPoolSize", processors));
+        executorPoolSizes.put(ExecutorGroup.AI, determinePoolSize(settingsFile, "AiThreadPoolSize", Math.max(2, processors / 2)));
+        executorPoolSizes.put(ExecutorGroup.PERSISTENCE, determinePoolSize(settingsFile, "PersistenceThreadPoolSize", 2));
+        executorPoolSizes.put(ExecutorGroup.SCRIPTS, determinePoolSize(settingsFile, "ScriptsThreadPoolSize", Math.max(2, processors / 2)));
+        metricsPort = settingsFile.getInteger("MetricsPort", 0);
+        asyncEventPoolSize = determinePoolSize(settingsFile, "AsyncEventThreadPoolSize", Math.max(2, processors / 2));
+        asyncEventQueueSize = Math.max(1, settingsFile.getInteger("AsyncEventQueueSize", 10000));
         acceptedProtocols =  settingsFile.getIntegerArray("AllowedProtocolRevisions", ";");
 
         scheduleRestart = settingsFile.getBoolean("ServerRestartScheduleEnabled", false);
@@ -83,11 +100,11 @@ public class ServerSettings implements Settings {
         restartOnDeadLock = settingsFile.getBoolean("RestartOnDeadlock", false);
     }
 
-    private int determinePoolSize(SettingsFile settingsFile, String property, int processors) {
-        var size = settingsFile.getInteger(property, processors);
+    private int determinePoolSize(SettingsFile settingsFile, String property, int defaultSize) {
+        var size = settingsFile.getInteger(property, defaultSize);
 
         if(size < 2) {
-            return processors;
+            return defaultSize;
         }
         return size;
     }
@@ -104,6 +121,13 @@ public class ServerSettings implements Settings {
         return port;
     }
 
+    /**
+     * @return the time in milliseconds the packets that can be superseded by a newer one are held before being written, 0 when disabled
+     */
+    public int packetCollapseWindow() {
+        return packetCollapseWindow;
+    }
+
     public String authServerAddress() {
         return authServerAddress;
     }
@@ -152,6 +176,31 @@ public class ServerSettings implements Settings {
         return threadPoolSize;
     }
 
+    /**
+     * @return the size of the thread pool of each executor group
+     */
+    public Map<ExecutorGroup, Integer> executorPoolSizes() {
+        return executorPoolSizes;
+    }
+
+    /**
+     * @return the local port serving the metrics, 0 when disabled
+     */
+    public int metricsPort() {
+        return metricsPort;
+    }
+
+    public int asyncEventPoolSize() {
+        return asyncEventPoolSize;
+    }
+
+    /**
+     * @return the maximum amount of pending asynchronous events of each type
+     */
+    public int asyncEventQueueSize() {
+        return asyncEventQueueSize;
+    }
+
     public int[] acceptedProtocols() {
         return acceptedProtocols;
     }
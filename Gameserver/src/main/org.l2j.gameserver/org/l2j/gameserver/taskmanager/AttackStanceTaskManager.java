@@ -18,18 +18,16 @@
  */
 package org.l2j.gameserver.taskmanager;
 
-import org.l2j.commons.threading.ThreadPool;
 import org.l2j.gameserver.model.actor.Creature;
 import org.l2j.gameserver.model.actor.Summon;
 import org.l2j.gameserver.network.serverpackets.AutoAttackStop;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static java.util.Objects.nonNull;
 import static org.l2j.gameserver.util.GameUtils.isPlayer;
 import static org.l2j.gameserver.util.GameUtils.isSummon;
 
@@ -42,13 +40,12 @@ import static org.l2j.gameserver.util.GameUtils.isSummon;
 public class AttackStanceTaskManager {
     public static final long COMBAT_TIME = 15_000;
     protected static final Logger LOGGER = LoggerFactory.getLogger(AttackStanceTaskManager.class);
-    protected static final Map<Creature, Long> _attackStanceTasks = new ConcurrentHashMap<>();
+    protected static final Map<Creature, TimingWheel.Timeout> _attackStanceTasks = new ConcurrentHashMap<>();
 
     /**
      * Instantiates a new attack stance task manager.
      */
     private AttackStanceTaskManager() {
-        ThreadPool.scheduleAtFixedRate(new FightModeScheduler(), 0, 1000);
     }
 
     /**
@@ -58,7 +55,12 @@ public class AttackStanceTaskManager {
      */
     public void addAttackStanceTask(Creature actor) {
         if (actor != null) {
-            _attackStanceTasks.put(actor, System.currentTimeMillis());
+            _attackStanceTasks.compute(actor, (creature, previous) -> {
+                if (nonNull(previous)) {
+                    previous.cancel();
+                }
+                return TimingWheel.getInstance().schedule(timeout -> stopAttackStance(creature, timeout), COMBAT_TIME);
+            });
         }
     }
 
@@ -72,7 +74,10 @@ public class AttackStanceTaskManager {
             if (isSummon(actor)) {
                 actor = actor.getActingPlayer();
             }
-            _attackStanceTasks.remove(actor);
+            final var timeout = _attackStanceTasks.remove(actor);
+            if (nonNull(timeout)) {
+                timeout.cancel();
+            }
         }
     }
 
@@ -100,36 +105,24 @@ public class AttackStanceTaskManager {
         private static final AttackStanceTaskManager INSTANCE = new AttackStanceTaskManager();
     }
 
-    protected class FightModeScheduler implements Runnable {
-        @Override
-        public void run() {
-            final long current = System.currentTimeMillis();
-            try {
-                final Iterator<Entry<Creature, Long>> iter = _attackStanceTasks.entrySet().iterator();
-                Entry<Creature, Long> e;
-                Creature actor;
-                while (iter.hasNext()) {
-                    e = iter.next();
-                    if ((current - e.getValue()) > COMBAT_TIME) {
-                        actor = e.getKey();
-                        if (actor != null) {
-                            actor.broadcastPacket(new AutoAttackStop(actor.getObjectId()));
-                            actor.getAI().setAutoAttacking(false);
-                            if (isPlayer(actor) && actor.hasSummon()) {
-                                final Summon pet = actor.getPet();
-                                if (pet != null) {
-                                    pet.broadcastPacket(new AutoAttackStop(pet.getObjectId()));
-                                }
-                                actor.getServitors().values().forEach(s -> s.broadcastPacket(new AutoAttackStop(s.getObjectId())));
-                            }
-                        }
-                        iter.remove();
-                    }
+    private void stopAttackStance(Creature actor, TimingWheel.Timeout timeout) {
+        if (!_attackStanceTasks.remove(actor, timeout)) {
+            return;
+        }
+
+        try {
+            actor.broadcastPacket(new AutoAttackStop(actor.getObjectId()));
+            actor.getAI().setAutoAttacking(false);
+            if (isPlayer(actor) && actor.hasSummon()) {
+                final Summon pet = actor.getPet();
+                if (pet != null) {
+                    pet.broadcastPacket(new AutoAttackStop(pet.getObjectId()));
                 }
-            } catch (Exception e) {
-                // Unless caught here, players remain in attack positions.
-                LOGGER.warn("Error in FightModeScheduler: " + e.getMessage(), e);
+                actor.getServitors().values().forEach(s -> s.broadcastPacket(new AutoAttackStop(s.getObjectId())));
             }
+        } catch (Exception e) {
+            // Unless caught here, players remain in attack positions.
+            LOGGER.warn("Error stopping attack stance: " + e.getMessage(), e);
         }
     }
 }
@@ -21,61 +21,170 @@ package org.l2j.gameserver.taskmanager;
 import org.l2j.commons.threading.ThreadPool;
 import org.l2j.gameserver.ai.CreatureAI;
 import org.l2j.gameserver.model.actor.Attackable;
+import org.l2j.gameserver.world.WorldRegion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-
-
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * Runs the think pass of the registered attackables every second.<br>
+ * <br>
+ * The attackables are partitioned by world region and the partitions are thought in parallel on the fork join pool,
+ * attackables of the same region are always thought sequentially by the same thread.
+ * A pass that outlasts the period is never skipped, the next pass starts as soon as it ends and the lag is reported.
+ *
  * @author Mobius
  */
 public class AttackableThinkTaskManager
 {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AttackableThinkTaskManager.class);
+
+    private static final long THINK_PERIOD = 1000;
+    private static final long[] HISTOGRAM_BOUNDS = { 10, 50, 100, 250, 500, 1000 };
+
     private static final Set<Attackable> ATTACKABLES = ConcurrentHashMap.newKeySet();
-    private static boolean _working = false;
+
+    private final AtomicBoolean working = new AtomicBoolean();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private volatile long pendingSince;
+
+    private final AtomicLongArray durationHistogram = new AtomicLongArray(HISTOGRAM_BOUNDS.length + 1);
+    private final LongAdder passes = new LongAdder();
+    private final LongAdder overruns = new LongAdder();
+    private volatile long lastDuration;
+    private volatile long maxDuration;
+    private volatile long lastLag;
+    private volatile long maxLag;
+    private volatile int lastPartitions;
 
     public AttackableThinkTaskManager()
     {
-        ThreadPool.scheduleAtFixedRate(() ->
+        ThreadPool.scheduleAtFixedRate(this::tick, THINK_PERIOD, THINK_PERIOD);
+    }
+
+    private void tick()
+    {
+        if (working.compareAndSet(false, true))
         {
-            if (_working)
+            final long scheduledTime = System.currentTimeMillis();
+            ThreadPool.executeForked(() -> think(scheduledTime));
+        }
+        else if (!pending.getAndSet(true))
+        {
+            pendingSince = System.currentTimeMillis();
+            overruns.increment();
+        }
+    }
+
+    private void think(long scheduledTime)
+    {
+        final long start = System.currentTimeMillis();
+        try
+        {
+            final Map<WorldRegion, List<Attackable>> regions = new HashMap<>();
+            for (Attackable attackable : ATTACKABLES)
             {
-                return;
+                regions.computeIfAbsent(attackable.getWorldRegion(), r -> new ArrayList<>()).add(attackable);
             }
-            _working = true;
 
-            CreatureAI ai;
-            for (Attackable attackable : ATTACKABLES)
+            final List<List<Attackable>> partitions = new ArrayList<>(regions.values());
+            lastPartitions = partitions.size();
+            if (!partitions.isEmpty())
             {
-                if (attackable.hasAI())
+                new ThinkAction(partitions, 0, partitions.size()).invoke();
+            }
+        }
+        catch (Exception e)
+        {
+            LOGGER.warn("Error thinking attackables", e);
+        }
+        finally
+        {
+            onPassFinished(scheduledTime, start, System.currentTimeMillis());
+        }
+    }
+
+    private void onPassFinished(long scheduledTime, long start, long end)
+    {
+        final long duration = end - start;
+        lastDuration = duration;
+        if (duration > maxDuration)
+        {
+            maxDuration = duration;
+        }
+
+        int bucket = 0;
+        while (bucket < HISTOGRAM_BOUNDS.length && duration >= HISTOGRAM_BOUNDS[bucket])
+        {
+            bucket++;
+        }
+        durationHistogram.incrementAndGet(bucket);
+        passes.increment();
+
+        final long lag = start - scheduledTime;
+        lastLag = lag;
+        if (lag > maxLag)
+        {
+            maxLag = lag;
+        }
+
+        if (pending.getAndSet(false))
+        {
+            final long since = pendingSince;
+            if (duration > THINK_PERIOD)
+            {
+                LOGGER.warn("Attackable think pass took {} ms for {} attackables, next pass is late by {} ms", duration, ATTACKABLES.size(), end - since);
+            }
+            ThreadPool.executeForked(() -> think(since));
+        }
+        else
+        {
+            working.set(false);
+            // a tick may have arrived between the pending check and the release
+            if (pending.getAndSet(false) && working.compareAndSet(false, true))
+            {
+                final long since = pendingSince;
+                ThreadPool.executeForked(() -> think(since));
+            }
+        }
+    }
+
+    private static void thinkRegion(List<Attackable> attackables)
+    {
+        for (Attackable attackable : attackables)
+        {
+            try
+            {
+                final CreatureAI ai = attackable.hasAI() ? attackable.getAI() : null;
+                if (ai != null)
                 {
-                    ai = attackable.getAI();
-                    if (ai != null)
-                    {
-                        ai.onEvtThink();
-                    }
-                    else
-                    {
-                        remove(attackable);
-                    }
+                    ai.onEvtThink();
                 }
                 else
                 {
-                    remove(attackable);
+                    ATTACKABLES.remove(attackable);
                 }
             }
-
-            _working = false;
-        }, 1000, 1000);
+            catch (Exception e)
+            {
+                LOGGER.warn("Error thinking {}", attackable, e);
+            }
+        }
     }
 
     public void add(Attackable attackable)
     {
-        if (!ATTACKABLES.contains(attackable))
-        {
-            ATTACKABLES.add(attackable);
-        }
+        ATTACKABLES.add(attackable);
     }
 
     public void remove(Attackable attackable)
@@ -83,6 +192,29 @@ public class AttackableThinkTaskManager
         ATTACKABLES.remove(attackable);
     }
 
+    public CharSequence getStats()
+    {
+        final StringBuilder stats = new StringBuilder();
+        stats.append("AttackableThinkTaskManager\n");
+        stats.append("=================================================\n");
+        stats.append("\tattackables: ......... ").append(ATTACKABLES.size()).append('\n');
+        stats.append("\tpartitions: .......... ").append(lastPartitions).append('\n');
+        stats.append("\tpasses: .............. ").append(passes.sum()).append('\n');
+        stats.append("\toverruns: ............ ").append(overruns.sum()).append('\n');
+        stats.append("\tlastDuration: ........ ").append(lastDuration).append(" ms\n");
+        stats.append("\tmaxDuration: ......... ").append(maxDuration).append(" ms\n");
+        stats.append("\tlastLag: ............. ").append(lastLag).append(" ms\n");
+        stats.append("\tmaxLag: .............. ").append(maxLag).append(" ms\n");
+        long lowerBound = 0;
+        for (int i = 0; i < HISTOGRAM_BOUNDS.length; i++)
+        {
+            stats.append("\t[").append(lowerBound).append(", ").append(HISTOGRAM_BOUNDS[i]).append(") ms: ").append(durationHistogram.get(i)).append('\n');
+            lowerBound = HISTOGRAM_BOUNDS[i];
+        }
+        stats.append("\t[").append(lowerBound).append(", ...) ms: ").append(durationHistogram.get(HISTOGRAM_BOUNDS.length)).append('\n');
+        return stats;
+    }
+
     public static AttackableThinkTaskManager getInstance()
     {
         return SingletonHolder.INSTANCE;
@@ -92,4 +224,34 @@ public class AttackableThinkTaskManager
     {
         protected static final AttackableThinkTaskManager INSTANCE = new AttackableThinkTaskManager();
     }
+
+    /**
+     * Splits the region partitions in halves until a single region is left, letting idle workers steal the other halves.
+     */
+    private static final class ThinkAction extends RecursiveAction
+    {
+        private final List<List<Attackable>> partitions;
+        private final int from;
+        private final int to;
+
+        private ThinkAction(List<List<Attackable>> partitions, int from, int to)
+        {
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if ((to - from) == 1)
+            {
+                thinkRegion(partitions.get(from));
+                return;
+            }
+
+            final int middle = (from + to) >>> 1;
+            invokeAll(new ThinkAction(partitions, from, middle), new ThinkAction(partitions, middle, to));
+        }
+    }
 }
@@ -18,7 +18,6 @@
  */
 package org.l2j.gameserver.taskmanager;
 
-import org.l2j.commons.threading.ThreadPool;
 import org.l2j.gameserver.Config;
 import org.l2j.gameserver.model.actor.Attackable;
 import org.l2j.gameserver.model.actor.Creature;
@@ -30,6 +29,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static java.util.Objects.nonNull;
+
 import static org.l2j.gameserver.util.GameUtils.isAttackable;
 
 
@@ -39,22 +40,15 @@ import static org.l2j.gameserver.util.GameUtils.isAttackable;
 public final class DecayTaskManager {
     protected static final Logger LOGGER = LoggerFactory.getLogger(DecayTaskManager.class);
 
-    private static final Map<Creature, Long> DECAY_SCHEDULES = new ConcurrentHashMap<>();
+    private static final Map<Creature, TimingWheel.Timeout> DECAY_SCHEDULES = new ConcurrentHashMap<>();
 
     private DecayTaskManager() {
-        ThreadPool.scheduleAtFixedRate(() ->
-        {
-            final long time = System.currentTimeMillis();
-            for (Entry<Creature, Long> entry : DECAY_SCHEDULES.entrySet())
-            {
-                if (time > entry.getValue())
-                {
-                    final Creature creature = entry.getKey();
-                    DECAY_SCHEDULES.remove(creature);
-                    creature.onDecay();
-                }
-            }
-        }, 0, 1000);
+    }
+
+    private void decay(Creature creature, TimingWheel.Timeout timeout) {
+        if (DECAY_SCHEDULES.remove(creature, timeout)) {
+            creature.onDecay();
+        }
     }
 
     /**
@@ -80,8 +74,14 @@ public final class DecayTaskManager {
             delay += Config.SPOILED_CORPSE_EXTEND_TIME;
         }
 
-		// Add to decay schedules.
-		DECAY_SCHEDULES.put(character, System.currentTimeMillis() + (delay * 1000));
+        // Add to decay schedules.
+        final long decayTime = delay * 1000;
+        DECAY_SCHEDULES.compute(character, (creature, previous) -> {
+            if (nonNull(previous)) {
+                previous.cancel();
+            }
+            return TimingWheel.getInstance().schedule(timeout -> decay(creature, timeout), decayTime);
+        });
     }
 
     /**
@@ -89,9 +89,11 @@ public final class DecayTaskManager {
      *
      * @param creature the character
      */
-	public void cancel(Creature creature)
-	{
-		DECAY_SCHEDULES.remove(creature);
+    public void cancel(Creature creature) {
+        final var timeout = DECAY_SCHEDULES.remove(creature);
+        if (nonNull(timeout)) {
+            timeout.cancel();
+        }
     }
 
     /**
@@ -100,10 +102,9 @@ public final class DecayTaskManager {
      * @param creature the character
      * @return if a decay task exists the remaining time, {@code Long.MAX_VALUE} otherwise
      */
-	public long getRemainingTime(Creature creature)
-	{
-		final Long time = DECAY_SCHEDULES.get(creature);
-		return time != null ? time - System.currentTimeMillis() : Long.MAX_VALUE;
+    public long getRemainingTime(Creature creature) {
+        final var timeout = DECAY_SCHEDULES.get(creature);
+        return nonNull(timeout) ? timeout.getRemainingTime() : Long.MAX_VALUE;
     }
 
     @Override
@@ -117,15 +118,13 @@ public final class DecayTaskManager {
         ret.append("Tasks dump:");
         ret.append(System.lineSeparator());
 
-		final long time = System.currentTimeMillis();
-		for (Entry<Creature, Long> entry : DECAY_SCHEDULES.entrySet())
-		{
+        for (Entry<Creature, TimingWheel.Timeout> entry : DECAY_SCHEDULES.entrySet()) {
             ret.append("Class/Name: ");
             ret.append(entry.getKey().getClass().getSimpleName());
             ret.append('/');
             ret.append(entry.getKey().getName());
             ret.append(" decay timer: ");
-			ret.append(entry.getValue() - time);
+            ret.append(entry.getValue().getRemainingTime());
             ret.append(System.lineSeparator());
         }
 
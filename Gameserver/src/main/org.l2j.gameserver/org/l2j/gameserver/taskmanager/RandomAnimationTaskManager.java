@@ -18,15 +18,14 @@
  */
 package org.l2j.gameserver.taskmanager;
 
-import org.l2j.commons.threading.ThreadPool;
 import org.l2j.commons.util.Rnd;
 import org.l2j.gameserver.Config;
 import org.l2j.gameserver.model.actor.Npc;
 
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static java.util.Objects.nonNull;
 import static org.l2j.gameserver.util.GameUtils.isAttackable;
 
 /**
@@ -34,40 +33,49 @@ import static org.l2j.gameserver.util.GameUtils.isAttackable;
  */
 public class RandomAnimationTaskManager
 {
-    private static final Map<Npc, Long> PENDING_ANIMATIONS = new ConcurrentHashMap<>();
+    private static final Map<Npc, TimingWheel.Timeout> PENDING_ANIMATIONS = new ConcurrentHashMap<>();
 
     public RandomAnimationTaskManager()
     {
-        ThreadPool.scheduleAtFixedRate(() ->
+    }
+
+    private void animate(Npc npc, TimingWheel.Timeout timeout)
+    {
+        // only reschedule while the expired timeout is still the current one, the npc may have been removed meanwhile
+        final var next = schedule(npc);
+        if (!PENDING_ANIMATIONS.replace(npc, timeout, next))
         {
-            final long time = System.currentTimeMillis();
-            for (Entry<Npc, Long> entry : PENDING_ANIMATIONS.entrySet())
-            {
-                if (time > entry.getValue())
-                {
-                    final Npc npc = entry.getKey();
-					if (npc.isInActiveRegion() && !npc.isDead() && !npc.isInCombat() && !npc.isMoving() && !npc.hasBlockActions())
-                    {
-                        npc.onRandomAnimation(Rnd.get(2, 3));
-                    }
+            next.cancel();
+            return;
+        }
 
-                    PENDING_ANIMATIONS.put(npc, time + (Rnd.get((isAttackable(npc) ? Config.MIN_MONSTER_ANIMATION : Config.MIN_NPC_ANIMATION), (isAttackable(npc) ? Config.MAX_MONSTER_ANIMATION : Config.MAX_NPC_ANIMATION)) * 1000));
-                }
-            }
-        }, 0, 1000);
+        if (npc.isInActiveRegion() && !npc.isDead() && !npc.isInCombat() && !npc.isMoving() && !npc.hasBlockActions())
+        {
+            npc.onRandomAnimation(Rnd.get(2, 3));
+        }
+    }
+
+    private TimingWheel.Timeout schedule(Npc npc)
+    {
+        final long delay = Rnd.get((isAttackable(npc) ? Config.MIN_MONSTER_ANIMATION : Config.MIN_NPC_ANIMATION), (isAttackable(npc) ? Config.MAX_MONSTER_ANIMATION : Config.MAX_NPC_ANIMATION)) * 1000L;
+        return TimingWheel.getInstance().schedule(timeout -> animate(npc, timeout), delay);
     }
 
     public void add(Npc npc)
     {
         if (npc.hasRandomAnimation())
         {
-            PENDING_ANIMATIONS.putIfAbsent(npc, System.currentTimeMillis() + (Rnd.get((isAttackable(npc) ? Config.MIN_MONSTER_ANIMATION : Config.MIN_NPC_ANIMATION), (isAttackable(npc) ? Config.MAX_MONSTER_ANIMATION : Config.MAX_NPC_ANIMATION)) * 1000));
+            PENDING_ANIMATIONS.computeIfAbsent(npc, this::schedule);
         }
     }
 
     public void remove(Npc npc)
     {
-        PENDING_ANIMATIONS.remove(npc);
+        final var timeout = PENDING_ANIMATIONS.remove(npc);
+        if (nonNull(timeout))
+        {
+            timeout.cancel();
+        }
     }
 
     public static RandomAnimationTaskManager getInstance()
@@ -18,15 +18,19 @@
  */
 package org.l2j.gameserver.taskmanager;
 
+import org.l2j.commons.threading.ExecutorGroup;
 import org.l2j.commons.threading.ThreadPool;
 import org.l2j.gameserver.model.actor.instance.Player;
 import org.l2j.gameserver.settings.GeneralSettings;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.isNull;
@@ -35,22 +39,37 @@ import static org.l2j.commons.configuration.Configurator.getSettings;
 import static org.l2j.commons.util.Util.falseIfNullOrElse;
 
 /**
+ * Periodically stores the online players.<br>
+ * <br>
+ * Each player is saved when its own save time is due, checked every few seconds, so the saves are spread over the interval instead of all at once.
+ * The saves run on the persistence executor, keeping the database load of the autosave bounded and away from the game threads.
+ *
  * @author JoeAlisson
  */
 public class SaveTaskManager {
 
+    private static final long CHECK_INTERVAL = 10;
+
     private final Map<Player, Long> playerSaveStamp = Collections.synchronizedMap(new WeakHashMap<>());
     private ScheduledFuture<?> scheduledTask;
 
     private SaveTaskManager() {
     }
 
-    public void registerPlayer(Player player) {
+    public synchronized void registerPlayer(Player player) {
         var scheduleTime = getSettings(GeneralSettings.class).autoSavePlayerTime();
         if(playerSaveStamp.isEmpty() && (isNull(scheduledTask) || scheduledTask.isDone())) {
-            scheduledTask = ThreadPool.scheduleAtFixedDelay(this::saveTask, scheduleTime, scheduleTime, TimeUnit.MINUTES);
+            scheduledTask = ThreadPool.scheduleAtFixedDelay(this::saveTask, CHECK_INTERVAL, CHECK_INTERVAL, TimeUnit.SECONDS);
         }
-        playerSaveStamp.put(player, nextSave(scheduleTime));
+        playerSaveStamp.put(player, firstSave(scheduleTime));
+    }
+
+    /**
+     * The first save is spread over the second half of the interval, players logged in together after a restart are not saved together.
+     */
+    private long firstSave(int scheduleTime) {
+        final long interval = Duration.ofMinutes(scheduleTime).toMillis();
+        return System.currentTimeMillis() + interval / 2 + ThreadLocalRandom.current().nextLong(interval / 2 + 1);
     }
 
     protected long nextSave(int scheduleTime) {
@@ -61,19 +80,27 @@ public class SaveTaskManager {
         final var now = System.currentTimeMillis();
         final var nextSave = nextSave(getSettings(GeneralSettings.class).autoSavePlayerTime());
 
+        final List<Player> players = new ArrayList<>();
         synchronized (playerSaveStamp) {
             playerSaveStamp.entrySet().stream()
                     .filter(entry -> falseIfNullOrElse(entry, e -> e.getValue() < now))
-                    .forEach(entry -> save(nextSave, entry));
+                    .forEach(entry -> {
+                        players.add(entry.getKey());
+                        entry.setValue(nextSave);
+                    });
         }
-    }
 
-    private void save(long nextSave, Map.Entry<Player, Long> entry) {
-        entry.getKey().storeMe();
-        entry.setValue(nextSave);
+        // saved out of the lock, the players logging in or out are not blocked by the saves
+        for (Player player : players) {
+            ThreadPool.execute(ExecutorGroup.PERSISTENCE, () -> {
+                if(playerSaveStamp.containsKey(player)) {
+                    player.storeMe();
+                }
+            });
+        }
     }
 
-    public void remove(Player player) {
+    public synchronized void remove(Player player) {
         playerSaveStamp.remove(player);
         if(playerSaveStamp.isEmpty() && nonNull(scheduledTask) && !scheduledTask.isDone()) {
             scheduledTask.cancel(false);
@@ -0,0 +1,357 @@
+package org.l2j.gameserver.taskmanager;
+
+import org.l2j.commons.threading.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel shared by the task managers.<br>
+ * <br>
+ * Timeouts are hashed into buckets by expiration tick, so scheduling and cancelling are O(1) and each tick only touches the entries that expire on it.
+ * Far away timeouts live on the upper levels and are cascaded down as the wheel turns.
+ * Expired tasks run on the wheel's thread, outside of the wheel lock, so they must be short and may schedule or cancel other timeouts.
+ *
+ * @author JoeAlisson
+ */
+public final class TimingWheel {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimingWheel.class);
+
+    public static final long TICK_DURATION = 100;
+
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_TICKS = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private final Bucket[][] wheel = new Bucket[LEVELS][WHEEL_SIZE];
+    private final int[] levelOccupancy = new int[LEVELS];
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long startTime;
+    private long currentTick;
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder cascaded = new LongAdder();
+    private final LongAdder totalLag = new LongAdder();
+    private volatile long lastLag;
+    private volatile long maxLag;
+    private volatile long lastTickDuration;
+
+    private TimingWheel() {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[level][i] = new Bucket(level);
+            }
+        }
+        startTime = System.currentTimeMillis();
+        ThreadPool.scheduleAtFixedRate(this::tick, TICK_DURATION, TICK_DURATION);
+    }
+
+    /**
+     * Schedules the task to run once after the given delay.
+     *
+     * @param task the task to run
+     * @param delay the delay in milliseconds
+     * @return the timeout handle, used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay) {
+        return schedule(timeout -> task.run(), delay);
+    }
+
+    /**
+     * Schedules the task to run once after the given delay.<br>
+     * The task receives its own timeout, so owners that track timeouts by key can tell a stale timeout from the current one.
+     *
+     * @param task the task to run
+     * @param delay the delay in milliseconds
+     * @return the timeout handle, used to cancel the task
+     */
+    public Timeout schedule(Consumer<Timeout> task, long delay) {
+        final var timeout = new Timeout(task, System.currentTimeMillis() + Math.max(0, delay));
+        lock.lock();
+        try {
+            place(timeout);
+        } finally {
+            lock.unlock();
+        }
+        scheduled.increment();
+        return timeout;
+    }
+
+    private void tick() {
+        final long now = System.currentTimeMillis();
+        final long targetTick = (now - startTime) / TICK_DURATION;
+        final List<Timeout> expiredTimeouts = new ArrayList<>();
+
+        lock.lock();
+        try {
+            while (currentTick <= targetTick) {
+                advance(expiredTimeouts);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (var timeout : expiredTimeouts) {
+            final long lag = now - timeout.deadline;
+            totalLag.add(lag);
+            lastLag = lag;
+            if (lag > maxLag) {
+                maxLag = lag;
+            }
+
+            try {
+                timeout.task.accept(timeout);
+            } catch (Exception e) {
+                LOGGER.warn("Error running timing wheel task {}", timeout.task, e);
+            }
+        }
+        expired.add(expiredTimeouts.size());
+        lastTickDuration = System.currentTimeMillis() - now;
+    }
+
+    private void advance(List<Timeout> expiredTimeouts) {
+        final int index = (int) (currentTick & WHEEL_MASK);
+        if (index == 0) {
+            cascade(1);
+        }
+
+        final var bucket = wheel[0][index];
+        var timeout = bucket.head;
+        while (timeout != null) {
+            final var next = timeout.next;
+            bucket.remove(timeout);
+            levelOccupancy[0]--;
+            if (timeout.expirationTick > currentTick) {
+                // scheduled beyond the wheel span, must go around again
+                place(timeout);
+            } else {
+                timeout.state = Timeout.EXPIRED;
+                expiredTimeouts.add(timeout);
+            }
+            timeout = next;
+        }
+        currentTick++;
+    }
+
+    private void cascade(int level) {
+        if (level >= LEVELS) {
+            return;
+        }
+
+        final int index = (int) ((currentTick >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+        final var bucket = wheel[level][index];
+        var timeout = bucket.head;
+        while (timeout != null) {
+            final var next = timeout.next;
+            bucket.remove(timeout);
+            levelOccupancy[level]--;
+            place(timeout);
+            cascaded.increment();
+            timeout = next;
+        }
+
+        if (index == 0) {
+            cascade(level + 1);
+        }
+    }
+
+    private void place(Timeout timeout) {
+        if (timeout.expirationTick < 0) {
+            timeout.expirationTick = Math.max(0, (timeout.deadline - startTime + TICK_DURATION - 1) / TICK_DURATION);
+        }
+
+        final long delta = timeout.expirationTick - currentTick;
+        long tick = timeout.expirationTick;
+        int level = 0;
+        if (delta < 0) {
+            tick = currentTick;
+        } else {
+            if (delta > MAX_TICKS) {
+                tick = currentTick + MAX_TICKS;
+            }
+            final long span = tick - currentTick;
+            while (level < LEVELS - 1 && span >= (1L << ((level + 1) * WHEEL_BITS))) {
+                level++;
+            }
+        }
+
+        wheel[level][(int) ((tick >>> (level * WHEEL_BITS)) & WHEEL_MASK)].add(timeout);
+        levelOccupancy[level]++;
+    }
+
+    private boolean cancel(Timeout timeout) {
+        lock.lock();
+        try {
+            if (timeout.state != Timeout.PENDING) {
+                return false;
+            }
+            timeout.state = Timeout.CANCELLED;
+            final var bucket = timeout.bucket;
+            if (bucket != null) {
+                bucket.remove(timeout);
+                levelOccupancy[bucket.level]--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        cancelled.increment();
+        return true;
+    }
+
+    /**
+     * @return the amount of timeouts waiting on the wheel
+     */
+    public int size() {
+        lock.lock();
+        try {
+            int size = 0;
+            for (int count : levelOccupancy) {
+                size += count;
+            }
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CharSequence getStats() {
+        final var stats = new StringBuilder();
+        stats.append("TimingWheel\n");
+        stats.append("=================================================\n");
+        lock.lock();
+        try {
+            stats.append("\tcurrentTick: ......... ").append(currentTick).append('\n');
+            for (int level = 0; level < LEVELS; level++) {
+                int usedBuckets = 0;
+                int largestBucket = 0;
+                for (var bucket : wheel[level]) {
+                    if (bucket.size > 0) {
+                        usedBuckets++;
+                        largestBucket = Math.max(largestBucket, bucket.size);
+                    }
+                }
+                stats.append("\tlevel ").append(level).append(": ............. ").append(levelOccupancy[level]).append(" timeouts in ")
+                        .append(usedBuckets).append('/').append(WHEEL_SIZE).append(" buckets, largest ").append(largestBucket).append('\n');
+            }
+        } finally {
+            lock.unlock();
+        }
+        final long expiredCount = expired.sum();
+        stats.append("\tscheduled: ........... ").append(scheduled.sum()).append('\n');
+        stats.append("\tcancelled: ........... ").append(cancelled.sum()).append('\n');
+        stats.append("\texpired: ............. ").append(expiredCount).append('\n');
+        stats.append("\tcascaded: ............ ").append(cascaded.sum()).append('\n');
+        stats.append("\tlastLag: ............. ").append(lastLag).append(" ms\n");
+        stats.append("\tmaxLag: .............. ").append(maxLag).append(" ms\n");
+        stats.append("\taverageLag: .......... ").append(expiredCount > 0 ? totalLag.sum() / expiredCount : 0).append(" ms\n");
+        stats.append("\tlastTickDuration: .... ").append(lastTickDuration).append(" ms\n");
+        return stats;
+    }
+
+    public static TimingWheel getInstance() {
+        return Singleton.INSTANCE;
+    }
+
+    private static class Singleton {
+        private static final TimingWheel INSTANCE = new TimingWheel();
+    }
+
+    /**
+     * Handle of a task scheduled on the wheel.
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Consumer<Timeout> task;
+        private final long deadline;
+        private long expirationTick = -1;
+        private volatile int state = PENDING;
+
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(Consumer<Timeout> task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task if it has not run yet.
+         *
+         * @return {@code true} if the task was cancelled, {@code false} if it already expired or was cancelled before
+         */
+        public boolean cancel() {
+            return state == PENDING && getInstance().cancel(this);
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        /**
+         * @return the time remaining to run the task in milliseconds
+         */
+        public long getRemainingTime() {
+            return deadline - System.currentTimeMillis();
+        }
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+        private final int level;
+        private int size;
+
+        private Bucket(int level) {
+            this.level = level;
+        }
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+            size++;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+            size--;
+        }
+    }
+}
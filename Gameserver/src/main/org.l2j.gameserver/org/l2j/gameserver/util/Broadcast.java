@@ -59,33 +59,46 @@ public final class Broadcast {
      * Player in the detection area of the Creature are identified in <B>_knownPlayers</B>.<BR>
      * In order to inform other players of state modification on the Creature, server just need to go through _knownPlayers to send Server->Client Packet<BR>
      * <FONT COLOR=#FF0000><B> <U>Caution</U> : This method DOESN'T SEND Server->Client packet to this Creature (to do this use method toSelfAndKnownPlayers)</B></FONT><BR>
+     * <BR>
+     * The same packet instance is shared by all the known players and written once for each of them,
+     * so its content must be taken when it is created and must not depend on the receiver.
      *
      * @param character
      * @param mov
      */
     public static void toKnownPlayers(Creature character, ServerPacket mov) {
+        if ((mov instanceof ExCharInfo) && isPlayer(character)) {
+            toKnownPlayersUpdatingRelation((Player) character, mov);
+            return;
+        }
+
+        World.getInstance().forEachVisibleObject(character, Player.class, mov::sendTo);
+    }
+
+    /**
+     * Sends the player info to the known players, followed by the relation of each one that changed since the last time.
+     */
+    private static void toKnownPlayersUpdatingRelation(Player character, ServerPacket mov) {
         World.getInstance().forEachVisibleObject(character, Player.class, player ->
         {
             try {
                 player.sendPacket(mov);
-                if ((mov instanceof ExCharInfo) && (isPlayer(character))) {
-                    final int relation = ((Player) character).getRelation(player);
-                    final Integer oldrelation = character.getKnownRelations().get(player.getObjectId());
-                    if ((oldrelation != null) && (oldrelation != relation)) {
-                        final RelationChanged rc = new RelationChanged();
-                        rc.addRelation((Player) character, relation, character.isAutoAttackable(player));
-                        if (character.hasSummon()) {
-                            final Summon pet = character.getPet();
-                            if (pet != null) {
-                                rc.addRelation(pet, relation, character.isAutoAttackable(player));
-                            }
-                            if (character.hasServitors()) {
-                                character.getServitors().values().forEach(s -> rc.addRelation(s, relation, character.isAutoAttackable(player)));
-                            }
+                final int relation = character.getRelation(player);
+                final Integer oldrelation = character.getKnownRelations().get(player.getObjectId());
+                if ((oldrelation != null) && (oldrelation != relation)) {
+                    final RelationChanged rc = new RelationChanged();
+                    rc.addRelation(character, relation, character.isAutoAttackable(player));
+                    if (character.hasSummon()) {
+                        final Summon pet = character.getPet();
+                        if (pet != null) {
+                            rc.addRelation(pet, relation, character.isAutoAttackable(player));
+                        }
+                        if (character.hasServitors()) {
+                            character.getServitors().values().forEach(s -> rc.addRelation(s, relation, character.isAutoAttackable(player)));
                         }
-                        player.sendPacket(rc);
-                        character.getKnownRelations().put(player.getObjectId(), relation);
                     }
+                    player.sendPacket(rc);
+                    character.getKnownRelations().put(player.getObjectId(), relation);
                 }
             } catch (NullPointerException e) {
                 LOGGER.warn(e.getMessage(), e);
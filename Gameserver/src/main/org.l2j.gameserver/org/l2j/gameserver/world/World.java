@@ -35,11 +35,11 @@ import org.l2j.gameserver.model.actor.Summon;
 import org.l2j.gameserver.model.actor.instance.Pet;
 import org.l2j.gameserver.model.actor.instance.Player;
 import org.l2j.gameserver.model.events.EventDispatcher;
+import org.l2j.gameserver.model.events.EventType;
 import org.l2j.gameserver.model.events.impl.character.npc.OnNpcCreatureSee;
 import org.l2j.gameserver.network.Disconnection;
 import org.l2j.gameserver.settings.CharacterSettings;
 import org.l2j.gameserver.util.GameUtils;
-import org.l2j.gameserver.util.MathUtil;
 import org.l2j.gameserver.world.zone.ZoneManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +54,7 @@ import static java.util.Objects.nonNull;
 import static org.l2j.commons.configuration.Configurator.getSettings;
 import static org.l2j.commons.util.Util.isAnyNull;
 import static org.l2j.gameserver.util.GameUtils.*;
+import static org.l2j.gameserver.world.WorldRegion.UNLIMITED_RANGE;
 
 public final class World {
 
@@ -68,7 +69,7 @@ public final class World {
     /**
      * Bit shift, defines number of regions note, shifting by 15 will result in regions corresponding to map tiles shifting by 11 divides one tile to 16x16 regions.
      */
-    private static final int SHIFT_BY = 11;
+    static final int SHIFT_BY = 11;
     public static final int TILE_SIZE = 32768;
     /**
      * Map dimensions.
@@ -86,8 +87,8 @@ public final class World {
     /**
      * Calculated offset used so top left region is 0,0
      */
-    private static final int OFFSET_X = Math.abs(MAP_MIN_X >> SHIFT_BY);
-    private static final int OFFSET_Y = Math.abs(MAP_MIN_Y >> SHIFT_BY);
+    static final int OFFSET_X = Math.abs(MAP_MIN_X >> SHIFT_BY);
+    static final int OFFSET_Y = Math.abs(MAP_MIN_Y >> SHIFT_BY);
     /**
      * Number of regions.
      */
@@ -110,6 +111,14 @@ public final class World {
     private final AtomicInteger memberInPartyNumber = new AtomicInteger();
 
     private final WorldRegion[][] regions = new WorldRegion[REGIONS_X + 1][REGIONS_Y + 1];
+    /**
+     * Collects the objects whose region switch was deferred by the current thread.
+     */
+    private final ThreadLocal<Collection<WorldObject>> deferredRegionSwitches = new ThreadLocal<>();
+    /**
+     * Collects the zone updates deferred by the current thread.
+     */
+    private final ThreadLocal<Collection<Runnable>> deferredZoneUpdates = new ThreadLocal<>();
 
     private World() {
     }
@@ -287,12 +296,14 @@ public final class World {
 
         describeObjectToOther(wo, object);
 
-        if (isNpc(wo) && isCreature(object)) {
-            EventDispatcher.getInstance().notifyEventAsync(new OnNpcCreatureSee((Npc) wo, (Creature) object, isSummon(object)), wo);
+        // checked before building anything, most npcs have no listener
+        final var dispatcher = EventDispatcher.getInstance();
+        if (isNpc(wo) && isCreature(object) && dispatcher.hasListener(EventType.ON_NPC_CREATURE_SEE, wo)) {
+            dispatcher.notifyEventAsync(new OnNpcCreatureSee((Npc) wo, (Creature) object, isSummon(object)), wo);
         }
 
-        if (isNpc(object) && isCreature(wo)) {
-            EventDispatcher.getInstance().notifyEventAsync(new OnNpcCreatureSee((Npc) object, (Creature) wo, isSummon(wo)), object);
+        if (isNpc(object) && isCreature(wo) && dispatcher.hasListener(EventType.ON_NPC_CREATURE_SEE, object)) {
+            dispatcher.notifyEventAsync(new OnNpcCreatureSee((Npc) object, (Creature) wo, isSummon(wo)), object);
         }
     }
 
@@ -340,17 +351,66 @@ public final class World {
         oldRegion.forEachObjectInSurrounding(Creature.class, other ->  forgetEachOther(object, other), other -> !object.equals(other));
     }
 
+    /**
+     * Runs the action deferring the region switches and the zone updates it causes.<br>
+     * The objects that must switch region are added to the deferred collection instead, and must be passed to {@link #switchRegionIfNeed(WorldObject)} afterwards.
+     * Updates inside the same region are applied immediately.
+     * The zone updates are added to their collection and must be run afterwards, since entering or leaving a zone runs the zone scripts.
+     *
+     * @param regionSwitches the collection receiving the objects that must switch region, must be thread safe if shared among threads
+     * @param zoneUpdates the collection receiving the zone updates, must be thread safe if shared among threads
+     * @param action the action to run
+     */
+    public void deferringMoveUpdates(Collection<WorldObject> regionSwitches, Collection<Runnable> zoneUpdates, Runnable action) {
+        deferredRegionSwitches.set(regionSwitches);
+        deferredZoneUpdates.set(zoneUpdates);
+        try {
+            action.run();
+        } finally {
+            deferredRegionSwitches.remove();
+            deferredZoneUpdates.remove();
+        }
+    }
+
+    /**
+     * Runs the zone update, or defers it when the current thread is running {@link #deferringMoveUpdates(Collection, Collection, Runnable)}.<br>
+     * A deferred update is skipped when the creature is no longer spawned, its zones were already left by the decay.
+     *
+     * @param creature the creature whose zones are updated
+     * @param update the update of the creature zones
+     */
+    public void updateZones(Creature creature, Runnable update) {
+        final var deferred = deferredZoneUpdates.get();
+        if (nonNull(deferred)) {
+            deferred.add(() -> {
+                if (creature.isSpawned()) {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
     public void switchRegionIfNeed(WorldObject object) {
         var newRegion = getRegion(object);
         WorldRegion oldRegion;
 
         if (nonNull(newRegion) && !newRegion.equals(oldRegion = object.getWorldRegion())) {
+            final var deferred = deferredRegionSwitches.get();
+            if (nonNull(deferred)) {
+                deferred.add(object);
+                return;
+            }
+
             object.setWorldRegion(newRegion);
             if (nonNull(oldRegion)) {
                 oldRegion.removeVisibleObject(object);
             }
             newRegion.addVisibleObject(object);
             switchRegion(object, oldRegion, newRegion);
+        } else if (nonNull(newRegion)) {
+            newRegion.updateObjectCell(object);
         }
     }
 
@@ -408,7 +468,7 @@ public final class World {
             return includeReference && clazz.isInstance(reference) ? clazz.cast(reference) : null;
         }
 
-        return region.findAnyObjectInSurrounding(clazz, and(isVisibleInRange(reference, range, includeReference), filter));
+        return region.findAnyVisibleObjectInSurrounding(reference, clazz, range, includeReference, filter);
     }
 
     public <T extends WorldObject> T findFirstVisibleObject(WorldObject reference, Class<T> clazz, int range, boolean includeReference, Predicate<T> filter, Comparator<T> comparator) {
@@ -418,7 +478,7 @@ public final class World {
             return includeReference && clazz.isInstance(reference)? clazz.cast(reference) : null;
         }
 
-        return region.findFirstObjectInSurrounding(clazz, and(isVisibleInRange(reference, range, includeReference), filter), comparator);
+        return region.findFirstVisibleObjectInSurrounding(reference, clazz, range, includeReference, filter, comparator);
     }
 
     public boolean hasVisiblePlayer(WorldObject object) {
@@ -428,7 +488,7 @@ public final class World {
             return false;
         }
 
-        return region.hasObjectInSurrounding(Player.class, isVisibleInRange(object, getSettings(CharacterSettings.class).partyRange(), false));
+        return region.hasVisibleObjectInSurrounding(object, Player.class, getSettings(CharacterSettings.class).partyRange(), p -> true);
     }
 
     public <T extends WorldObject> boolean hasAnyVisibleObjectInRange(WorldObject reference, Class<T> clazz, int range, Predicate<T> filter) {
@@ -436,20 +496,20 @@ public final class World {
         if(isNull(region)) {
             return false;
         }
-        return region.hasObjectInSurrounding(clazz, and(isVisibleInRange(reference, range, false), filter));
+        return region.hasVisibleObjectInSurrounding(reference, clazz, range, filter);
     }
 
     public <T extends WorldObject> void forEachVisibleObject(WorldObject reference, Class<T> clazz, Consumer<T> action) {
         var region = getRegion(reference);
         if(nonNull(region)) {
-            region.forEachObjectInSurrounding(clazz, action, isVisible(reference));
+            region.forEachVisibleObjectInSurrounding(reference, clazz, UNLIMITED_RANGE, false, Integer.MAX_VALUE, o -> true, action);
         }
     }
 
     public <T extends WorldObject> void forEachVisibleObject(WorldObject reference, Class<T> clazz, Consumer<T> action, Predicate<T> filter) {
         var region = getRegion(reference);
         if(nonNull(region)) {
-            region.forEachObjectInSurrounding(clazz, action, and(isVisible(reference), filter));
+            region.forEachVisibleObjectInSurrounding(reference, clazz, UNLIMITED_RANGE, false, Integer.MAX_VALUE, filter, action);
         }
     }
 
@@ -460,7 +520,7 @@ public final class World {
             return Collections.emptyList();
         }
 
-        return region.findAllObjectsInSurrounding(clazz, and(isVisibleInRange(reference, range, false), filter));
+        return region.findAllVisibleObjectsInSurrounding(reference, clazz, range, filter);
     }
 
     public void forEachPlayerInRange(WorldObject reference, int range, Consumer<Player> action, Predicate<Player> filter) {
@@ -477,7 +537,7 @@ public final class World {
             return;
         }
 
-        region.forEachObjectInSurrounding(clazz, action, and(isVisibleInRange(reference, range, false), filter));
+        region.forEachVisibleObjectInSurrounding(reference, clazz, range, false, Integer.MAX_VALUE, filter, action);
     }
 
     public <T extends WorldObject> void forVisibleObjectsInRange(WorldObject reference, Class<T> clazz, int range, int maxObjects, Predicate<T> filter, Consumer<T> action) {
@@ -486,7 +546,7 @@ public final class World {
             return;
         }
 
-        region.forEachObjectInSurroundingLimiting(clazz, maxObjects, and(isVisibleInRange(reference, range, false), filter), action);
+        region.forEachVisibleObjectInSurrounding(reference, clazz, range, false, maxObjects, filter, action);
     }
 
     public <T extends WorldObject> void forVisibleOrderedObjectsInRange(WorldObject reference, Class<T> clazz, int range, int maxObjects, Predicate<T> filter, Comparator<T> comparator, Consumer<? super T> action) {
@@ -496,7 +556,7 @@ public final class World {
             return;
         }
 
-        region.forEachOrderedObjectInSurrounding(clazz, maxObjects, comparator, and(isVisibleInRange(reference, range, false), filter), action);
+        region.forEachOrderedVisibleObjectInSurrounding(reference, clazz, range, maxObjects, comparator, filter, action);
     }
 
     public <T extends WorldObject> void forAnyVisibleObject(WorldObject reference, Class<T> clazz, Consumer<T> action, Predicate<T> filter) {
@@ -509,7 +569,10 @@ public final class World {
         if(isNull(region)) {
             return;
         }
-        region.forAnyObjectInSurrounding(clazz, action, and(isVisibleInRange(reference, range, false), filter));
+        final T object = region.findAnyVisibleObjectInSurrounding(reference, clazz, range, false, filter);
+        if(nonNull(object)) {
+            action.accept(object);
+        }
     }
 
     public <T extends WorldObject> boolean checkAnyVisibleObjectInRange(WorldObject reference, Class<T> clazz, int range, Predicate<T> filter) {
@@ -519,7 +582,7 @@ public final class World {
             return false;
         }
 
-        return region.hasObjectInSurrounding(clazz, and(isVisibleInRange(reference, range, false), filter));
+        return region.hasVisibleObjectInSurrounding(reference, clazz, range, filter);
     }
 
     /**
@@ -606,10 +669,6 @@ public final class World {
         return memberInPartyNumber.get();
     }
 
-    public static <T extends WorldObject> Predicate<T> and(Predicate<T> p1, Predicate<T> p2) {
-        return p1.and(p2);
-    }
-
     public static void init() {
         getInstance().initRegions();
         MapRegionManager.init();
@@ -622,19 +681,6 @@ public final class World {
         FenceDataManager.init();
     }
 
-    private static <T extends WorldObject> Predicate<T> isVisible(WorldObject reference) {
-        return isVisible(reference, false);
-    }
-
-    private static <T extends WorldObject> Predicate<T> isVisible(WorldObject reference, boolean includeReference) {
-        return object -> nonNull(object) && (includeReference || !object.equals(reference)) &&
-                Objects.equals(object.getInstanceWorld(), reference.getInstanceWorld());
-    }
-
-    private static <T extends WorldObject> Predicate<T> isVisibleInRange(WorldObject reference, int range, boolean includeReference){
-        return object -> isVisible(reference, includeReference).test(object) && MathUtil.isInsideRadius3D(reference, object, range);
-    }
-
     public static World getInstance() {
         return Singleton.INSTANCE;
     }
@@ -26,18 +26,21 @@ import org.l2j.gameserver.ai.CtrlIntention;
 import org.l2j.gameserver.model.WorldObject;
 import org.l2j.gameserver.model.actor.Attackable;
 import org.l2j.gameserver.model.actor.Npc;
+import org.l2j.gameserver.model.actor.Summon;
+import org.l2j.gameserver.model.actor.instance.Player;
+import org.l2j.gameserver.model.item.instance.Item;
 import org.l2j.gameserver.taskmanager.RandomAnimationTaskManager;
-import org.l2j.gameserver.util.GameUtils;
 import org.l2j.gameserver.util.MathUtil;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static java.lang.Math.abs;
 import static java.util.Objects.isNull;
@@ -46,12 +49,49 @@ import static org.l2j.gameserver.util.GameUtils.*;
 
 public final class WorldRegion {
 
+    /**
+     * Range used by the visibility queries that should not check the distance to the reference.
+     */
+    static final int UNLIMITED_RANGE = -1;
+    /**
+     * Bit shift, defines the size of the cells used to index the objects inside the region. Shifting by 8 divides the region in 8x8 cells.
+     */
+    private static final int CELL_SHIFT_BY = 8;
+    private static final int CELLS_PER_SIDE = 1 << (World.SHIFT_BY - CELL_SHIFT_BY);
+    private static final int REGION_SIZE = 1 << World.SHIFT_BY;
+    private static final int CELLS_PER_BUCKET = CELLS_PER_SIDE * CELLS_PER_SIDE;
+    /**
+     * Buckets separating the objects by its major type, so typed queries don't walk unrelated objects.
+     */
+    private static final int PLAYER_BUCKET = 0;
+    private static final int SUMMON_BUCKET = 1;
+    private static final int NPC_BUCKET = 2;
+    private static final int ITEM_BUCKET = 3;
+    private static final int OTHER_BUCKET = 4;
+    private static final Class<?>[] BUCKET_TYPES = { Player.class, Summon.class, Npc.class, Item.class };
+    private static final int BUCKET_COUNT = BUCKET_TYPES.length + 1;
+
+    private static final ClassValue<int[]> BUCKETS_BY_TYPE = new ClassValue<>() {
+        @Override
+        protected int[] computeValue(Class<?> type) {
+            return bucketsOf(type);
+        }
+    };
+
     private final int regionX;
     private final int regionY;
+    private final int minX;
+    private final int minY;
     /**
      * Map containing visible objects in this world region.
      */
     private final IntMap<WorldObject> objects = new CHashIntMap<>();
+    /**
+     * Spatial index of the visible objects, the cells are created on demand since most regions are empty.
+     */
+    private volatile AtomicReferenceArray<IntMap<WorldObject>> cells;
+    private final Object cellsLocker = new Object();
+    private final AtomicInteger playableCount = new AtomicInteger();
     /**
      * Map containing nearby regions forming this world region's effective area.
      */
@@ -64,10 +104,17 @@ public final class WorldRegion {
     WorldRegion(int regionX, int regionY) {
         this.regionX = regionX;
         this.regionY = regionY;
+        this.minX = (regionX - World.OFFSET_X) << World.SHIFT_BY;
+        this.minY = (regionY - World.OFFSET_Y) << World.SHIFT_BY;
     }
 
     private boolean areNeighborsEmpty() {
-        return checkEachSurroundingRegion(w -> !(w.isActive() && w.objects.values().stream().anyMatch(GameUtils::isPlayable)));
+        for (WorldRegion region : surroundingRegions) {
+            if (region.isActive() && region.playableCount.get() > 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -81,7 +128,12 @@ public final class WorldRegion {
             return;
         }
 
-        objects.put(object.getObjectId(), object);
+        if (nonNull(objects.put(object.getObjectId(), object))) {
+            removeFromCell(object);
+        } else if (isPlayable(object)) {
+            playableCount.incrementAndGet();
+        }
+        addToCell(object, bucketOf(object) * CELLS_PER_BUCKET + cellOf(object.getX(), object.getY()));
 
         if (isPlayable(object)) {
             // If this is the first player to enter the region, activate self and neighbors.
@@ -182,15 +234,156 @@ public final class WorldRegion {
             return;
         }
 
-        objects.remove(object.getObjectId());
+        if (isNull(objects.remove(object.getObjectId()))) {
+            return;
+        }
+        removeFromCell(object);
 
         if (isPlayable(object)) {
+            playableCount.decrementAndGet();
             if (areNeighborsEmpty() && !Config.GRIDS_ALWAYS_ON) {
                 startDeactivation();
             }
         }
     }
 
+    /**
+     * Moves the object to the cell of its current position, the object must be visible in this region.<br>
+     * The move is claimed by swapping the object cell, so it never races with a removal: when the removal comes
+     * first the claim fails, and when it comes between the claim and the add the object is taken out of the new cell again.
+     *
+     * @param object the object which position has changed
+     */
+    void updateObjectCell(WorldObject object) {
+        final int current = object.getWorldRegionCell();
+        if (current < 0) {
+            return;
+        }
+
+        final int cell = current - current % CELLS_PER_BUCKET + cellOf(object.getX(), object.getY());
+        if (current == cell || !object.compareAndSetWorldRegionCell(current, cell)) {
+            return;
+        }
+
+        // remove before add, so concurrent queries never visit the object twice
+        removeFromCell(object, current);
+        cellObjects(cell).put(object.getObjectId(), object);
+
+        if (object.getWorldRegionCell() != cell) {
+            // removed or moved meanwhile, the new owner of the cell index has not seen this add
+            removeFromCell(object, cell);
+        }
+    }
+
+    private void addToCell(WorldObject object, int cell) {
+        cellObjects(cell).put(object.getObjectId(), object);
+        object.setWorldRegionCell(cell);
+    }
+
+    private void removeFromCell(WorldObject object) {
+        removeFromCell(object, object.getAndSetWorldRegionCell(-1));
+    }
+
+    private void removeFromCell(WorldObject object, int cell) {
+        final var regionCells = cells;
+        if (cell >= 0 && nonNull(regionCells)) {
+            final var cellObjects = regionCells.get(cell);
+            if (nonNull(cellObjects)) {
+                cellObjects.remove(object.getObjectId());
+            }
+        }
+    }
+
+    private IntMap<WorldObject> cellObjects(int cell) {
+        var regionCells = cells;
+        IntMap<WorldObject> cellObjects;
+        if (nonNull(regionCells) && nonNull(cellObjects = regionCells.get(cell))) {
+            return cellObjects;
+        }
+
+        synchronized (cellsLocker) {
+            if (isNull(regionCells = cells)) {
+                cells = regionCells = new AtomicReferenceArray<>(BUCKET_COUNT * CELLS_PER_BUCKET);
+            }
+
+            if (isNull(cellObjects = regionCells.get(cell))) {
+                cellObjects = new CHashIntMap<>();
+                regionCells.set(cell, cellObjects);
+            }
+        }
+        return cellObjects;
+    }
+
+    private static int bucketOf(WorldObject object) {
+        if (isPlayer(object)) {
+            return PLAYER_BUCKET;
+        } else if (isSummon(object)) {
+            return SUMMON_BUCKET;
+        } else if (isNpc(object)) {
+            return NPC_BUCKET;
+        } else if (isItem(object)) {
+            return ITEM_BUCKET;
+        }
+        return OTHER_BUCKET;
+    }
+
+    /**
+     * @return the buckets that can hold instances of the given type
+     */
+    private static int[] bucketsOf(Class<?> type) {
+        if (type.isInterface()) {
+            return new int[] { PLAYER_BUCKET, SUMMON_BUCKET, NPC_BUCKET, ITEM_BUCKET, OTHER_BUCKET };
+        }
+
+        final List<Integer> buckets = new ArrayList<>(BUCKET_COUNT);
+        for (int bucket = 0; bucket < BUCKET_TYPES.length; bucket++) {
+            if (BUCKET_TYPES[bucket].isAssignableFrom(type)) {
+                return new int[] { bucket };
+            }
+
+            if (type.isAssignableFrom(BUCKET_TYPES[bucket])) {
+                buckets.add(bucket);
+            }
+        }
+        buckets.add(OTHER_BUCKET);
+        return buckets.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int cellOf(int x, int y) {
+        return cellX(x) * CELLS_PER_SIDE + cellY(y);
+    }
+
+    private int cellX(int x) {
+        return Math.max(0, Math.min(CELLS_PER_SIDE - 1, (x - minX) >> CELL_SHIFT_BY));
+    }
+
+    private int cellY(int y) {
+        return Math.max(0, Math.min(CELLS_PER_SIDE - 1, (y - minY) >> CELL_SHIFT_BY));
+    }
+
+    private int firstCellX(int x, int range) {
+        return range == UNLIMITED_RANGE ? 0 : cellX(x - range);
+    }
+
+    private int lastCellX(int x, int range) {
+        return range == UNLIMITED_RANGE ? CELLS_PER_SIDE - 1 : cellX(x + range);
+    }
+
+    private int firstCellY(int y, int range) {
+        return range == UNLIMITED_RANGE ? 0 : cellY(y - range);
+    }
+
+    private int lastCellY(int y, int range) {
+        return range == UNLIMITED_RANGE ? CELLS_PER_SIDE - 1 : cellY(y + range);
+    }
+
+    /**
+     * @return true if the square around the point with the given range intersects this region
+     */
+    private boolean intersects(int x, int y, int range) {
+        return range == UNLIMITED_RANGE || (x + range >= minX && x - range < minX + REGION_SIZE && y + range >= minY && y - range < minY + REGION_SIZE);
+    }
+
     boolean checkEachSurroundingRegion(Predicate<WorldRegion> p) {
         for (WorldRegion worldRegion : surroundingRegions) {
             if (!p.test(worldRegion)) {
@@ -201,37 +394,95 @@ public final class WorldRegion {
     }
 
     void forEachSurroundingRegion(Consumer<WorldRegion> action) {
-        Arrays.stream(surroundingRegions).forEach(action);
+        for (WorldRegion worldRegion : surroundingRegions) {
+            action.accept(worldRegion);
+        }
     }
 
     <T extends WorldObject> void forEachObject(Class<T> clazz, Consumer<T> action, Predicate<T> filter) {
-        regionToWorldObjectStream(this).filter(applyInstanceFilter(clazz, filter)).map(clazz::cast).forEach(action);
+        for (WorldObject object : objects.values()) {
+            if (clazz.isInstance(object)) {
+                final T casted = clazz.cast(object);
+                if (filter.test(casted)) {
+                    action.accept(casted);
+                }
+            }
+        }
     }
 
     <T extends WorldObject> void forEachObjectInSurrounding(Class<T> clazz, Consumer<T> action, Predicate<T> filter) {
-        filteredParallelSurroundingObjects(clazz, filter).forEach(action);
+        for (WorldRegion region : surroundingRegions) {
+            region.forEachObject(clazz, action, filter);
+        }
     }
 
-    private <T extends WorldObject> Stream<T> filteredParallelSurroundingObjects(Class<T> clazz, Predicate<T> filter) {
-        return Arrays.stream(surroundingRegions)
-                .flatMap(WorldRegion::regionToWorldObjectStream)
-                .filter(applyInstanceFilter(clazz, filter)).map(clazz::cast);
+    /**
+     * Visit each object in the surrounding regions that is visible to the reference.
+     * Only the buckets that can hold the class and the cells intersecting the range are walked.
+     *
+     * @param reference the object whose visibility is checked
+     * @param clazz the class of the objects to be visited
+     * @param range the maximum distance from the reference or {@link #UNLIMITED_RANGE}
+     * @param includeReference whether the reference itself can be visited
+     * @param limit the maximum amount of objects visited
+     * @param filter the filter applied to the visible objects
+     * @param action the action executed on each visible object
+     */
+    <T extends WorldObject> void forEachVisibleObjectInSurrounding(WorldObject reference, Class<T> clazz, int range, boolean includeReference, int limit, Predicate<T> filter, Consumer<? super T> action) {
+        final int[] buckets = BUCKETS_BY_TYPE.get(clazz);
+        int visited = 0;
+        for (WorldRegion region : surroundingRegions) {
+            for (int bucket : buckets) {
+                if (visited >= limit) {
+                    return;
+                }
+                visited += region.forEachVisibleObject(bucket, reference, clazz, range, includeReference, limit - visited, filter, action);
+            }
+        }
     }
 
-    <T extends WorldObject> void forEachObjectInSurroundingLimiting(Class<T> clazz, int limit, Predicate<T> filter, Consumer<T> action) {
-        filteredParallelSurroundingObjects(clazz, filter).limit(limit).forEach(action);
-    }
+    private <T extends WorldObject> int forEachVisibleObject(int bucket, WorldObject reference, Class<T> clazz, int range, boolean includeReference, int limit, Predicate<T> filter, Consumer<? super T> action) {
+        final var regionCells = cells;
+        if (isNull(regionCells) || !intersects(reference.getX(), reference.getY(), range)) {
+            return 0;
+        }
 
-    <T extends WorldObject> void forEachOrderedObjectInSurrounding(Class<T> clazz, int maxObjects, Comparator<T> comparator, Predicate<T> filter, Consumer<? super T> action) {
-        filteredSurroundingObjects(clazz, filter).sorted(comparator).limit(maxObjects).forEach(action);
-    }
+        int visited = 0;
+        final int fromY = firstCellY(reference.getY(), range);
+        final int toY = lastCellY(reference.getY(), range);
+        final int toX = lastCellX(reference.getX(), range);
+        for (int x = firstCellX(reference.getX(), range); x <= toX; x++) {
+            for (int y = fromY; y <= toY; y++) {
+                final var cellObjects = regionCells.get(bucket * CELLS_PER_BUCKET + x * CELLS_PER_SIDE + y);
+                if (isNull(cellObjects)) {
+                    continue;
+                }
 
-    private <T extends WorldObject> Stream<T> filteredSurroundingObjects(Class<T> clazz, Predicate<T> filter) {
-        return Arrays.stream(surroundingRegions).flatMap(r -> r.objects.values().stream()).filter(applyInstanceFilter(clazz, filter)).map(clazz::cast);
+                for (WorldObject object : cellObjects.values()) {
+                    if (visited >= limit) {
+                        return visited;
+                    }
+
+                    if (isVisible(reference, object, range, includeReference) && clazz.isInstance(object)) {
+                        final T casted = clazz.cast(object);
+                        if (filter.test(casted)) {
+                            action.accept(casted);
+                            visited++;
+                        }
+                    }
+                }
+            }
+        }
+        return visited;
     }
 
-    <T extends WorldObject> void forAnyObjectInSurrounding(Class<T> clazz, Consumer<T> action, Predicate<T> filter) {
-        filteredParallelSurroundingObjects(clazz, filter).findAny().ifPresent(action);
+    <T extends WorldObject> void forEachOrderedVisibleObjectInSurrounding(WorldObject reference, Class<T> clazz, int range, int limit, Comparator<T> comparator, Predicate<T> filter, Consumer<? super T> action) {
+        final List<T> result = findAllVisibleObjectsInSurrounding(reference, clazz, range, filter);
+        result.sort(comparator);
+        final int size = Math.min(limit, result.size());
+        for (int i = 0; i < size; i++) {
+            action.accept(result.get(i));
+        }
     }
 
     WorldObject findObjectInSurrounding(WorldObject reference, int objectId, int range) {
@@ -247,24 +498,96 @@ public final class WorldRegion {
         return null;
     }
 
-    <T extends WorldObject> List<T> findAllObjectsInSurrounding(Class<T> clazz, Predicate<T> filter) {
-        return filteredSurroundingObjects(clazz, filter).collect(Collectors.toList());
+    <T extends WorldObject> List<T> findAllVisibleObjectsInSurrounding(WorldObject reference, Class<T> clazz, int range, Predicate<T> filter) {
+        final List<T> result = new ArrayList<>();
+        forEachVisibleObjectInSurrounding(reference, clazz, range, false, Integer.MAX_VALUE, filter, result::add);
+        return result;
+    }
+
+    <T extends WorldObject> T findAnyVisibleObjectInSurrounding(WorldObject reference, Class<T> clazz, int range, boolean includeReference, Predicate<T> filter) {
+        final int[] buckets = BUCKETS_BY_TYPE.get(clazz);
+        T object;
+        for (WorldRegion region : surroundingRegions) {
+            for (int bucket : buckets) {
+                if (nonNull(object = region.findAnyVisibleObject(bucket, reference, clazz, range, includeReference, filter))) {
+                    return object;
+                }
+            }
+        }
+        return null;
     }
 
-    <T extends WorldObject> T findAnyObjectInSurrounding(Class<T> clazz, Predicate<T> filter) {
-        return  filteredParallelSurroundingObjects(clazz, filter).findAny().orElse(null);
+    private <T extends WorldObject> T findAnyVisibleObject(int bucket, WorldObject reference, Class<T> clazz, int range, boolean includeReference, Predicate<T> filter) {
+        final var regionCells = cells;
+        if (isNull(regionCells) || !intersects(reference.getX(), reference.getY(), range)) {
+            return null;
+        }
+
+        final int fromY = firstCellY(reference.getY(), range);
+        final int toY = lastCellY(reference.getY(), range);
+        final int toX = lastCellX(reference.getX(), range);
+        for (int x = firstCellX(reference.getX(), range); x <= toX; x++) {
+            for (int y = fromY; y <= toY; y++) {
+                final var cellObjects = regionCells.get(bucket * CELLS_PER_BUCKET + x * CELLS_PER_SIDE + y);
+                if (isNull(cellObjects)) {
+                    continue;
+                }
+
+                for (WorldObject object : cellObjects.values()) {
+                    if (isVisible(reference, object, range, includeReference) && clazz.isInstance(object)) {
+                        final T casted = clazz.cast(object);
+                        if (filter.test(casted)) {
+                            return casted;
+                        }
+                    }
+                }
+            }
+        }
+        return null;
     }
 
-    <T extends WorldObject> T findFirstObjectInSurrounding(Class<T> clazz, Predicate<T> filter, Comparator<T> comparator) {
-        return filteredSurroundingObjects(clazz, filter).min(comparator).orElse(null);
+    <T extends WorldObject> T findFirstVisibleObjectInSurrounding(WorldObject reference, Class<T> clazz, int range, boolean includeReference, Predicate<T> filter, Comparator<T> comparator) {
+        final int[] buckets = BUCKETS_BY_TYPE.get(clazz);
+        T first = null;
+        for (WorldRegion region : surroundingRegions) {
+            for (int bucket : buckets) {
+                first = region.findFirstVisibleObject(bucket, reference, clazz, range, includeReference, filter, comparator, first);
+            }
+        }
+        return first;
     }
 
-    <T extends WorldObject> boolean hasObjectInSurrounding(Class<T> clazz, Predicate<T> filter) {
-        return Arrays.stream(surroundingRegions).flatMap(WorldRegion::regionToWorldObjectStream).anyMatch(applyInstanceFilter(clazz, filter));
+    private <T extends WorldObject> T findFirstVisibleObject(int bucket, WorldObject reference, Class<T> clazz, int range, boolean includeReference, Predicate<T> filter, Comparator<T> comparator, T first) {
+        final var regionCells = cells;
+        if (isNull(regionCells) || !intersects(reference.getX(), reference.getY(), range)) {
+            return first;
+        }
+
+        final int fromY = firstCellY(reference.getY(), range);
+        final int toY = lastCellY(reference.getY(), range);
+        final int toX = lastCellX(reference.getX(), range);
+        for (int x = firstCellX(reference.getX(), range); x <= toX; x++) {
+            for (int y = fromY; y <= toY; y++) {
+                final var cellObjects = regionCells.get(bucket * CELLS_PER_BUCKET + x * CELLS_PER_SIDE + y);
+                if (isNull(cellObjects)) {
+                    continue;
+                }
+
+                for (WorldObject object : cellObjects.values()) {
+                    if (isVisible(reference, object, range, includeReference) && clazz.isInstance(object)) {
+                        final T casted = clazz.cast(object);
+                        if (filter.test(casted) && (isNull(first) || comparator.compare(casted, first) < 0)) {
+                            first = casted;
+                        }
+                    }
+                }
+            }
+        }
+        return first;
     }
 
-    <T extends WorldObject> long countObjectInSurrounding(Class<T> clazz, Predicate<T> filter) {
-        return filteredParallelSurroundingObjects(clazz, filter).count();
+    <T extends WorldObject> boolean hasVisibleObjectInSurrounding(WorldObject reference, Class<T> clazz, int range, Predicate<T> filter) {
+        return nonNull(findAnyVisibleObjectInSurrounding(reference, clazz, range, false, filter));
     }
 
     WorldObject getObject(int objectId) {
@@ -301,12 +624,13 @@ public final class WorldRegion {
     }
 
 
-    private static <T extends WorldObject> Predicate<? super WorldObject> applyInstanceFilter(Class<T> clazz, Predicate<T> filter) {
-        return object -> clazz.isInstance(object) && filter.test(clazz.cast(object));
-    }
-
-    private static Stream<? extends WorldObject> regionToWorldObjectStream(WorldRegion region) {
-        return region.objects.values().parallelStream();
+    /**
+     * Checks the object is visible to the reference without allocating a predicate per query.
+     */
+    private static boolean isVisible(WorldObject reference, WorldObject object, int range, boolean includeReference) {
+        return nonNull(object) && (includeReference || !object.equals(reference)) &&
+                Objects.equals(object.getInstanceWorld(), reference.getInstanceWorld()) &&
+                (range == UNLIMITED_RANGE || MathUtil.isInsideRadius3D(reference, object, range));
     }
 
     @Override
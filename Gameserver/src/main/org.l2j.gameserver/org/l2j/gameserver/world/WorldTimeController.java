@@ -18,6 +18,7 @@
  */
 package org.l2j.gameserver.world;
 
+import org.l2j.gameserver.model.WorldObject;
 import org.l2j.gameserver.model.actor.Creature;
 import org.l2j.gameserver.model.events.EventDispatcher;
 import org.l2j.gameserver.model.events.impl.OnDayNightChange;
@@ -29,10 +30,15 @@ import org.slf4j.LoggerFactory;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
 
 import static java.lang.System.currentTimeMillis;
+import static java.util.Objects.nonNull;
 
 /**
  * World Time controller class.
@@ -49,13 +55,31 @@ public final class WorldTimeController extends Thread {
     private static final int MILLIS_PER_IN_GAME_DAY = (3600000 * 24) / IN_GAME_DAYS_PER_DAY;
     private static final int SECONDS_PER_IN_GAME_DAY = MILLIS_PER_IN_GAME_DAY / 1000;
     private static final int TICKS_PER_IN_GAME_DAY = SECONDS_PER_IN_GAME_DAY * TICKS_PER_SECOND;
+    private static final int PARALLEL_MOVE_THRESHOLD = 256;
 
     private final Set<Creature> movingObjects = ConcurrentHashMap.newKeySet();
     private final Set<Creature> shadowSenseCharacters = ConcurrentHashMap.newKeySet();
+    /**
+     * The movement has its own workers, so a tick never waits behind the AI passes on the shared fork pool.
+     */
+    private final ForkJoinPool movePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        final var worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("World Move-" + worker.getPoolIndex());
+        return worker;
+    }, null, false);
 
     private final long referenceTime;
     private volatile boolean shutdown = false;
 
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder overruns = new LongAdder();
+    private final LongAdder parallelTicks = new LongAdder();
+    private final LongAdder deferredSwitches = new LongAdder();
+    private final LongAdder deferredZoneUpdates = new LongAdder();
+    private volatile long lastTickDuration;
+    private volatile long maxTickDuration;
+    private volatile int lastMovingObjects;
+
     private WorldTimeController() {
         super("World Time Controller");
         setDaemon(true);
@@ -116,13 +140,91 @@ public final class WorldTimeController extends Thread {
      * <li>If movement is finished, the Creature is removed from movingObjects</li>
      * <li>Create a task to update the _knownObject and _knowPlayers of each Creature that finished its movement and of their already known WorldObject then notify AI with EVT_ARRIVED</li>
      * </ul>
+     * When there are many moving objects they are partitioned by world region and moved in parallel on the fork join pool.
+     * The region switches are deferred while moving and applied afterwards on this thread, since they make the objects aware of each other.
+     * The zone updates follow them, since entering or leaving a zone runs the zone scripts.
      */
     private void moveObjects() {
-        movingObjects.removeIf(Creature::updatePosition);
+        lastMovingObjects = movingObjects.size();
+        if (lastMovingObjects < PARALLEL_MOVE_THRESHOLD) {
+            movingObjects.removeIf(Creature::updatePosition);
+            return;
+        }
+
+        final Map<WorldRegion, List<Creature>> regions = new HashMap<>();
+        for (Creature creature : movingObjects) {
+            regions.computeIfAbsent(creature.getWorldRegion(), r -> new ArrayList<>()).add(creature);
+        }
+
+        final List<List<Creature>> partitions = new ArrayList<>(regions.values());
+        final Queue<WorldObject> regionSwitches = new ConcurrentLinkedQueue<>();
+        final Queue<Runnable> zoneUpdates = new ConcurrentLinkedQueue<>();
+        movePool.invoke(new MoveAction(partitions, 0, partitions.size(), regionSwitches, zoneUpdates));
+        parallelTicks.increment();
+
+        final var world = World.getInstance();
+        WorldObject object;
+        while (nonNull(object = regionSwitches.poll())) {
+            if (object.isSpawned()) {
+                world.switchRegionIfNeed(object);
+            }
+            deferredSwitches.increment();
+        }
+
+        Runnable zoneUpdate;
+        while (nonNull(zoneUpdate = zoneUpdates.poll())) {
+            try {
+                zoneUpdate.run();
+            } catch (Exception e) {
+                LOGGER.warn("Error updating zones", e);
+            }
+            deferredZoneUpdates.increment();
+        }
+    }
+
+    private void moveRegion(List<Creature> creatures) {
+        for (Creature creature : creatures) {
+            try {
+                if (creature.updatePosition()) {
+                    movingObjects.remove(creature);
+                }
+            } catch (Exception e) {
+                LOGGER.warn("Error moving {}", creature, e);
+            }
+        }
+    }
+
+    private void onTickFinished(long duration) {
+        ticks.increment();
+        lastTickDuration = duration;
+        if (duration > maxTickDuration) {
+            maxTickDuration = duration;
+        }
+
+        if (duration > MILLIS_IN_TICK) {
+            overruns.increment();
+            LOGGER.debug("World tick took {} ms moving {} objects", duration, lastMovingObjects);
+        }
+    }
+
+    public CharSequence getStats() {
+        final StringBuilder stats = new StringBuilder();
+        stats.append("WorldTimeController\n");
+        stats.append("=================================================\n");
+        stats.append("\tmovingObjects: ....... ").append(movingObjects.size()).append('\n');
+        stats.append("\tticks: ............... ").append(ticks.sum()).append('\n');
+        stats.append("\tparallelTicks: ....... ").append(parallelTicks.sum()).append('\n');
+        stats.append("\toverruns: ............ ").append(overruns.sum()).append('\n');
+        stats.append("\tdeferredSwitches: .... ").append(deferredSwitches.sum()).append('\n');
+        stats.append("\tdeferredZoneUpdates: . ").append(deferredZoneUpdates.sum()).append('\n');
+        stats.append("\tlastTickDuration: .... ").append(lastTickDuration).append(" ms\n");
+        stats.append("\tmaxTickDuration: ..... ").append(maxTickDuration).append(" ms\n");
+        return stats;
     }
 
     public final void stopTimer() {
         shutdown = true;
+        movePool.shutdown();
     }
 
     @Override
@@ -134,13 +236,15 @@ public final class WorldTimeController extends Thread {
         EventDispatcher.getInstance().notifyEventAsync(OnDayNightChange.of(isNight));
 
         while (!shutdown) {
-            nextTickTime = ((currentTimeMillis() / MILLIS_IN_TICK) * MILLIS_IN_TICK) + 100;
+            final long tickStart = currentTimeMillis();
+            nextTickTime = ((tickStart / MILLIS_IN_TICK) * MILLIS_IN_TICK) + 100;
 
             try {
                 moveObjects();
             } catch (Throwable e) {
                 LOGGER.warn(e.getLocalizedMessage(), e);
             }
+            onTickFinished(currentTimeMillis() - tickStart);
 
             sleepTime = nextTickTime - currentTimeMillis();
             if (sleepTime > 0) {
@@ -190,4 +294,35 @@ public final class WorldTimeController extends Thread {
     private static class Singleton {
         private static final WorldTimeController INSTANCE = new WorldTimeController();
     }
+
+    /**
+     * Splits the region partitions in halves until a single region is left, letting idle workers steal the other halves.
+     */
+    private final class MoveAction extends RecursiveAction {
+        private final List<List<Creature>> partitions;
+        private final int from;
+        private final int to;
+        private final Queue<WorldObject> regionSwitches;
+        private final Queue<Runnable> zoneUpdates;
+
+        private MoveAction(List<List<Creature>> partitions, int from, int to, Queue<WorldObject> regionSwitches, Queue<Runnable> zoneUpdates) {
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+            this.regionSwitches = regionSwitches;
+            this.zoneUpdates = zoneUpdates;
+        }
+
+        @Override
+        protected void compute() {
+            if ((to - from) == 1) {
+                final var creatures = partitions.get(from);
+                World.getInstance().deferringMoveUpdates(regionSwitches, zoneUpdates, () -> moveRegion(creatures));
+                return;
+            }
+
+            final int middle = (from + to) >>> 1;
+            invokeAll(new MoveAction(partitions, from, middle, regionSwitches, zoneUpdates), new MoveAction(partitions, middle, to, regionSwitches, zoneUpdates));
+        }
+    }
 }
\ No newline at end of file
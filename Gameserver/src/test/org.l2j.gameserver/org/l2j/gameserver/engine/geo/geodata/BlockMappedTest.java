@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.engine.geo.geodata;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the answers of {@link BlockMapped} with the heap blocks loaded from the same random L2D region.
+ *
+ * @author JoeAlisson
+ */
+public class BlockMappedTest {
+
+    private static final int MAX_LAYERS = 6;
+    private static final int QUERIES = 200_000;
+    private static final int WRITES = 20_000;
+
+    private Random random;
+    private byte[] region;
+    private ABlock[] heap;
+    private BlockMapped mapped;
+
+    @BeforeEach
+    public void setUp() {
+        random = new Random(0x4C32440AL);
+        region = randomRegion();
+        heap = loadHeapBlocks(region);
+        mapped = new BlockMapped(ByteBuffer.wrap(region.clone()).asReadOnlyBuffer());
+    }
+
+    @Test
+    public void readsAsHeapBlocks() {
+        assertSameAnswers();
+    }
+
+    @Test
+    public void writesAsHeapBlocks() throws IOException {
+        final byte[] original = region.clone();
+
+        for (int i = 0; i < WRITES; i++) {
+            final int geoX = random.nextInt(GeoStructure.REGION_CELLS_X);
+            final int geoY = random.nextInt(GeoStructure.REGION_CELLS_Y);
+            final int worldZ = randomHeight();
+            final byte nswe = (byte) random.nextInt();
+
+            heap(geoX, geoY).setNswe(heap(geoX, geoY).getIndexNearest(geoX, geoY, worldZ), nswe);
+            mapped.setNswe(mapped.getIndexNearest(geoX, geoY, worldZ), nswe);
+        }
+
+        assertSameAnswers();
+        assertArrayEquals(saveHeapBlocks(), save(mapped));
+        assertArrayEquals(original, region);
+    }
+
+    @Test
+    public void savesTheRegion() throws IOException {
+        assertArrayEquals(region, save(mapped));
+        assertArrayEquals(region, saveHeapBlocks());
+    }
+
+    private void assertSameAnswers() {
+        for (int i = 0; i < QUERIES; i++) {
+            final int geoX = random.nextInt(GeoStructure.REGION_CELLS_X);
+            final int geoY = random.nextInt(GeoStructure.REGION_CELLS_Y);
+            final int worldZ = randomHeight();
+            final ABlock block = heap(geoX, geoY);
+            final String cell = geoX + ", " + geoY + ", " + worldZ;
+
+            assertEquals(block.getHeightNearest(geoX, geoY, worldZ), mapped.getHeightNearest(geoX, geoY, worldZ), cell);
+            assertEquals(block.getHeightAbove(geoX, geoY, worldZ), mapped.getHeightAbove(geoX, geoY, worldZ), cell);
+            assertEquals(block.getHeightBelow(geoX, geoY, worldZ), mapped.getHeightBelow(geoX, geoY, worldZ), cell);
+            assertEquals(block.getNsweNearest(geoX, geoY, worldZ), mapped.getNsweNearest(geoX, geoY, worldZ), cell);
+            assertEquals(block.getNsweAbove(geoX, geoY, worldZ), mapped.getNsweAbove(geoX, geoY, worldZ), cell);
+            assertEquals(block.getNsweBelow(geoX, geoY, worldZ), mapped.getNsweBelow(geoX, geoY, worldZ), cell);
+
+            assertSameCell(block, block.getIndexNearest(geoX, geoY, worldZ), mapped.getIndexNearest(geoX, geoY, worldZ), cell);
+            assertSameCell(block, block.getIndexAbove(geoX, geoY, worldZ), mapped.getIndexAbove(geoX, geoY, worldZ), cell);
+            assertSameCell(block, block.getIndexBelow(geoX, geoY, worldZ), mapped.getIndexBelow(geoX, geoY, worldZ), cell);
+        }
+    }
+
+    private void assertSameCell(ABlock block, int heapIndex, int mappedIndex, String cell) {
+        assertEquals(heapIndex == -1, mappedIndex == -1, cell);
+        if (heapIndex != -1) {
+            assertEquals(block.getHeight(heapIndex), mapped.getHeight(mappedIndex), cell);
+            assertEquals(block.getNswe(heapIndex), mapped.getNswe(mappedIndex), cell);
+        }
+    }
+
+    private ABlock heap(int geoX, int geoY) {
+        return heap[((geoX / GeoStructure.BLOCK_CELLS_X) % GeoStructure.REGION_BLOCKS_X) * GeoStructure.REGION_BLOCKS_Y + ((geoY / GeoStructure.BLOCK_CELLS_Y) % GeoStructure.REGION_BLOCKS_Y)];
+    }
+
+    private short randomHeight() {
+        return (short) (random.nextInt(8192) - 4096);
+    }
+
+    private byte[] randomRegion() {
+        final ByteBuffer buffer = ByteBuffer.allocate(GeoStructure.REGION_BLOCKS * (1 + GeoStructure.BLOCK_CELLS * (1 + MAX_LAYERS * 3))).order(ByteOrder.LITTLE_ENDIAN);
+        for (int block = 0; block < GeoStructure.REGION_BLOCKS; block++) {
+            switch (random.nextInt(3)) {
+                case 0 -> buffer.put(GeoStructure.TYPE_FLAT_L2D).putShort(randomHeight());
+                case 1 -> {
+                    buffer.put(GeoStructure.TYPE_COMPLEX_L2D);
+                    for (int cell = 0; cell < GeoStructure.BLOCK_CELLS; cell++) {
+                        buffer.put((byte) random.nextInt()).putShort(randomHeight());
+                    }
+                }
+                default -> {
+                    buffer.put(GeoStructure.TYPE_MULTILAYER_L2D);
+                    for (int cell = 0; cell < GeoStructure.BLOCK_CELLS; cell++) {
+                        final int layers = 1 + random.nextInt(MAX_LAYERS);
+                        buffer.put((byte) layers);
+
+                        // layers are stored from the top one, equal heights exercise the tie break
+                        short height = (short) (4096 - random.nextInt(64));
+                        for (int layer = 0; layer < layers; layer++) {
+                            buffer.put((byte) random.nextInt()).putShort(height);
+                            height -= random.nextInt(1024);
+                        }
+                    }
+                }
+            }
+        }
+
+        final byte[] region = new byte[buffer.position()];
+        buffer.flip().get(region);
+        return region;
+    }
+
+    private static ABlock[] loadHeapBlocks(byte[] region) {
+        final ByteBuffer buffer = ByteBuffer.wrap(region).order(ByteOrder.LITTLE_ENDIAN);
+        final ABlock[] blocks = new ABlock[GeoStructure.REGION_BLOCKS];
+        BlockMultilayer.initialize();
+        try {
+            for (int block = 0; block < GeoStructure.REGION_BLOCKS; block++) {
+                final byte type = buffer.get();
+                blocks[block] = switch (type) {
+                    case GeoStructure.TYPE_FLAT_L2D -> new BlockFlat(buffer, GeoFormat.L2D);
+                    case GeoStructure.TYPE_COMPLEX_L2D -> new BlockComplex(buffer, GeoFormat.L2D);
+                    case GeoStructure.TYPE_MULTILAYER_L2D -> new BlockMultilayer(buffer, GeoFormat.L2D);
+                    default -> throw new IllegalArgumentException("Unknown block type: " + type);
+                };
+            }
+        } finally {
+            BlockMultilayer.release();
+        }
+        return blocks;
+    }
+
+    private byte[] saveHeapBlocks() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(region.length);
+        try (BufferedOutputStream stream = new BufferedOutputStream(output)) {
+            for (ABlock block : heap) {
+                block.saveBlock(stream);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] save(ABlock block) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (BufferedOutputStream stream = new BufferedOutputStream(output)) {
+            block.saveBlock(stream);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2019-2020 L2JOrg
+ *
+ * This file is part of the L2JOrg project.
+ *
+ * L2JOrg is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * L2JOrg is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2j.gameserver.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Fuzzes the word at a time cipher of {@link Crypt} against {@link ReferenceCrypt}.
+ *
+ * @author JoeAlisson
+ */
+public class CryptTest {
+
+    private static final int SESSIONS = 2_000;
+    private static final int PACKETS = 16;
+    private static final int MAX_PACKET_SIZE = 1024;
+    private static final int MAX_OFFSET = 16;
+
+    private final Random random = new Random(0x43525950L);
+
+    @Test
+    public void encryptsAsReference() {
+        fuzz(true);
+    }
+
+    @Test
+    public void decryptsAsReference() {
+        fuzz(false);
+    }
+
+    @Test
+    public void decryptsWhatWasEncrypted() {
+        for (int session = 0; session < SESSIONS; session++) {
+            final byte[] outKey = randomKey();
+            final byte[] inKey = outKey.clone();
+
+            for (int packet = 0; packet < PACKETS; packet++) {
+                final byte[] data = randomData();
+                final int offset = random.nextInt(MAX_OFFSET);
+                final int size = random.nextInt(data.length - offset + 1);
+                final byte[] original = data.clone();
+
+                Crypt.encrypt(outKey, data, offset, size);
+                Crypt.decrypt(inKey, data, offset, size);
+
+                assertArrayEquals(original, data);
+                assertArrayEquals(outKey, inKey);
+            }
+        }
+    }
+
+    private void fuzz(boolean encrypt) {
+        for (int session = 0; session < SESSIONS; session++) {
+            final byte[] key = randomKey();
+            final byte[] referenceKey = key.clone();
+
+            for (int packet = 0; packet < PACKETS; packet++) {
+                final byte[] data = randomData();
+                final byte[] reference = data.clone();
+                final int offset = random.nextInt(MAX_OFFSET);
+                final int size = random.nextInt(data.length - offset + 1);
+
+                if (encrypt) {
+                    Crypt.encrypt(key, data, offset, size);
+                    ReferenceCrypt.encrypt(referenceKey, reference, offset, size);
+                } else {
+                    Crypt.decrypt(key, data, offset, size);
+                    ReferenceCrypt.decrypt(referenceKey, reference, offset, size);
+                }
+
+                assertArrayEquals(reference, data, () -> "size " + size + ", offset " + offset + ", key " + Arrays.toString(key));
+                assertArrayEquals(referenceKey, key);
+            }
+        }
+    }
+
+    private byte[] randomKey() {
+        final byte[] key = new byte[16];
+        random.nextBytes(key);
+        return key;
+    }
+
+    private byte[] randomData() {
+        final byte[] data = new byte[MAX_OFFSET + random.nextInt(MAX_PACKET_SIZE)];
+        random.nextBytes(data);
+        return data;
+    }
+}